@@ -1351,4 +1351,61 @@ class ConstraintLayoutTest {
             assertEquals(IntOffset(0, box1Size), box2Position)
         }
     }
+
+    @Test
+    fun testConstraintLayout_updates_whenLayoutIdsAreSwapped() = with(rule.density) {
+        val smallSize = 20
+        val largeSize = 40
+        var swapped by mutableStateOf(false)
+        val constraintSet = ConstraintSet {
+            val box1 = createRefFor("box1")
+            val box2 = createRefFor("box2")
+            constrain(box1) {
+                start.linkTo(parent.start)
+                top.linkTo(parent.top)
+            }
+            constrain(box2) {
+                start.linkTo(box1.end)
+                top.linkTo(parent.top)
+            }
+        }
+
+        var smallPosition = IntOffset.Zero
+        var largePosition = IntOffset.Zero
+        rule.setContent {
+            ConstraintLayout(constraintSet) {
+                Box(
+                    Modifier
+                        .size(smallSize.toDp())
+                        .layoutId(if (swapped) "box2" else "box1")
+                        .onGloballyPositioned {
+                            smallPosition = it
+                                .positionInRoot()
+                                .round()
+                        }
+                )
+                Box(
+                    Modifier
+                        .size(largeSize.toDp())
+                        .layoutId(if (swapped) "box1" else "box2")
+                        .onGloballyPositioned {
+                            largePosition = it
+                                .positionInRoot()
+                                .round()
+                        }
+                )
+            }
+        }
+
+        rule.runOnIdle {
+            assertEquals(IntOffset(0, 0), smallPosition)
+            assertEquals(IntOffset(smallSize, 0), largePosition)
+            swapped = true
+        }
+
+        rule.runOnIdle {
+            assertEquals(IntOffset(largeSize, 0), smallPosition)
+            assertEquals(IntOffset(0, 0), largePosition)
+        }
+    }
 }
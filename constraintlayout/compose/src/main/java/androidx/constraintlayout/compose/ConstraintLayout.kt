@@ -1510,16 +1510,42 @@ class JSONConstraintSet(@Language("json5") content: String,
         : EditableJSONLayout(content), ConstraintSet {
     private val overridedVariables = HashMap<String, Float>()
     private val overrideVariables = overrideVariables
+    // the override variables, parsed once
+    private var parsedOverrideVariables: HashMap<String, Float>? = null
+    // the content parsed by the last measure, parsed again only when the content changes
+    private var parsedContent: String? = null
+    private var parsedJson: CLObject? = null
+    // changes whenever an override changes the variables this set applies
+    internal var overrideVersion = 0L
+        private set
 
     init {
         initialization()
     }
 
+    /**
+     * Returns the parsed current content, the same tree is reused until the content changes
+     */
+    private fun getParsedContent() : CLObject? {
+        val content = getCurrentContent()
+        if (parsedContent !== content) {
+            parsedJson = try {
+                CLParser.parse(content)
+            } catch (e: CLParsingException) {
+                System.err.println("Error parsing JSON $e")
+                null
+            }
+            parsedContent = content
+        }
+        return parsedJson
+    }
+
     // Only called by MotionLayout in MotionMeasurer
     override fun applyTo(transition: Transition, type: Int) {
         val layoutVariables = LayoutVariables()
         applyLayoutVariables(layoutVariables)
-        parseJSON(getCurrentContent(), transition, type)
+        val json = getParsedContent() ?: return
+        parseJSON(json, transition, type)
     }
 
     fun emitDesignElements(designElements: ArrayList<DesignElement>) {
@@ -1546,30 +1572,39 @@ class JSONConstraintSet(@Language("json5") content: String,
         applyLayoutVariables(layoutVariables)
         // TODO: Need to better handle half parsed JSON and/or incorrect states.
         try {
-            parseJSON(getCurrentContent(), state, layoutVariables)
+            val json = getParsedContent() ?: return
+            parseJSON(json, state, layoutVariables)
         } catch (e : Exception) {
             // nothing (content might be invalid, sent by live edit)
         }
     }
 
     override fun override(name: String, value: Float): ConstraintSet {
-        overridedVariables[name] = value
+        if (overridedVariables[name] != value) {
+            overridedVariables[name] = value
+            overrideVersion++
+        }
         return this
     }
 
     private fun applyLayoutVariables(layoutVariables: LayoutVariables) {
-        if (overrideVariables != null) {
+        if (overrideVariables != null && parsedOverrideVariables == null) {
+            val parsed = HashMap<String, Float>()
             try {
                 val variables = CLParser.parse(overrideVariables)
                 for (i in 0..variables.size() - 1) {
                     val key = variables[i] as CLKey
                     val variable = key.value.float
                     // TODO: allow arbitrary override, not just float values
-                    layoutVariables.putOverride(key.content(), variable)
+                    parsed[key.content()] = variable
                 }
             } catch (e: CLParsingException) {
                 System.err.println("exception: " + e)
             }
+            parsedOverrideVariables = parsed
+        }
+        parsedOverrideVariables?.forEach { (name, value) ->
+            layoutVariables.putOverride(name, value)
         }
         for (name in overridedVariables.keys) {
             layoutVariables.putOverride(name, overridedVariables[name]!!)
@@ -1677,10 +1712,41 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
     var layoutCurrentWidth: Int = 0
     var layoutCurrentHeight: Int = 0
 
+    // inputs of the last solved measure, to skip the solver when none of them changed
+    private val childConstraints = mutableMapOf<Measurable, Constraints>()
+    private val lastMeasurables = ArrayList<Measurable>()
+    // layoutId, constraintLayoutId and constraintLayoutTag of each of the last measurables
+    private val lastMeasurableIds = ArrayList<Any?>()
+    private var lastConstraintSet: ConstraintSet? = null
+    private var lastContent: String? = null
+    private var lastOverrideVersion = 0L
+    private var lastConstraints = Constraints()
+    private var lastLayoutDirection = LayoutDirection.Ltr
+    private var lastOptimizationLevel = 0
+    private var lastDensity = 0f
+    private var lastFontScale = 0f
+    private var lastForcedWidth = Int.MIN_VALUE
+    private var lastForcedHeight = Int.MIN_VALUE
+    private var lastSize = IntSize.Zero
+
+    /**
+     * Number of measures that reused the previous solution
+     */
+    var measureCacheHits = 0L
+        private set
+
+    /**
+     * Number of measures that had to run the solver
+     */
+    var measureCacheMisses = 0L
+        private set
+
     protected fun reset() {
         placeables.clear()
         lastMeasures.clear()
         frameCache.clear()
+        childConstraints.clear()
+        lastConstraintSet = null
         state.reset()
     }
 
@@ -1745,7 +1811,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
             if (DEBUG) {
                 Log.d("CCL", "Measuring ${measurable.layoutId} with $constraints")
             }
-            val placeable = measurable.measure(constraints).also { placeables[measurable] = it }
+            val placeable = measureChild(measurable, constraints)
             if (DEBUG) {
                 Log.d(
                     "CCL",
@@ -1785,7 +1851,7 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
                 if (DEBUG) {
                     Log.d("CCL", "Remeasuring coerced ${measurable.layoutId} with $constraints")
                 }
-                measurable.measure(constraints).also { placeables[measurable] = it }
+                measureChild(measurable, constraints)
             }
         }
 
@@ -1924,6 +1990,14 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
     ): IntSize {
         this.density = measureScope
         this.measureScope = measureScope
+        if (reusePreviousMeasure(
+                constraints, layoutDirection, constraintSet, measurables,
+                optimizationLevel, measureScope
+            )
+        ) {
+            measureCacheHits++
+            return lastSize
+        }
         reset()
         // Define the size of the ConstraintLayout.
         state.width(
@@ -1979,14 +2053,93 @@ internal open class Measurer : BasicMeasure.Measurer, DesignInfoProvider {
                             "to confirm size ${child.width} ${child.height}"
                     )
                 }
-                measurable.measure(Constraints.fixed(child.width, child.height))
-                    .also { placeables[measurable] = it }
+                measureChild(measurable, Constraints.fixed(child.width, child.height))
             }
         }
         if (DEBUG) {
             Log.d("CCL", "ConstraintLayout is at the end ${root.width} ${root.height}")
         }
-        return IntSize(root.width, root.height)
+        measureCacheMisses++
+        lastConstraintSet = constraintSet
+        lastContent = (constraintSet as? EditableJSONLayout)?.getCurrentContent()
+        lastOverrideVersion = (constraintSet as? JSONConstraintSet)?.overrideVersion ?: 0L
+        lastConstraints = constraints
+        lastLayoutDirection = layoutDirection
+        lastOptimizationLevel = optimizationLevel
+        lastDensity = measureScope.density
+        lastFontScale = measureScope.fontScale
+        lastForcedWidth = layoutInformationReceiver?.getForcedWidth() ?: Int.MIN_VALUE
+        lastForcedHeight = layoutInformationReceiver?.getForcedHeight() ?: Int.MIN_VALUE
+        lastMeasurables.clear()
+        lastMeasurables.addAll(measurables)
+        lastMeasurableIds.clear()
+        measurables.fastForEach { measurable ->
+            lastMeasurableIds.add(measurable.layoutId)
+            lastMeasurableIds.add(measurable.constraintLayoutId)
+            lastMeasurableIds.add(measurable.constraintLayoutTag)
+        }
+        lastSize = IntSize(root.width, root.height)
+        return lastSize
+    }
+
+    private fun measureChild(measurable: Measurable, constraints: Constraints): Placeable {
+        childConstraints[measurable] = constraints
+        return measurable.measure(constraints).also { placeables[measurable] = it }
+    }
+
+    /**
+     * Reuse the previous solution if the constraints, the constraint set and the measurables,
+     * along with their ids and tags, are the same, and every child measured with its previous
+     * constraints keeps its size and baseline. The children are measured again, but the solver
+     * does not run.
+     */
+    private fun reusePreviousMeasure(
+        constraints: Constraints,
+        layoutDirection: LayoutDirection,
+        constraintSet: ConstraintSet,
+        measurables: List<Measurable>,
+        optimizationLevel: Int,
+        measureScope: MeasureScope
+    ): Boolean {
+        if (lastConstraintSet !== constraintSet
+            || lastContent !== (constraintSet as? EditableJSONLayout)?.getCurrentContent()
+            || lastOverrideVersion != ((constraintSet as? JSONConstraintSet)?.overrideVersion ?: 0L)
+            || lastConstraints != constraints
+            || lastLayoutDirection != layoutDirection
+            || lastOptimizationLevel != optimizationLevel
+            || lastDensity != measureScope.density
+            || lastFontScale != measureScope.fontScale
+            || lastForcedWidth != (layoutInformationReceiver?.getForcedWidth() ?: Int.MIN_VALUE)
+            || lastForcedHeight != (layoutInformationReceiver?.getForcedHeight() ?: Int.MIN_VALUE)
+            || lastMeasurables.size != measurables.size
+        ) {
+            return false
+        }
+        for (i in measurables.indices) {
+            val measurable = measurables[i]
+            if (measurable !== lastMeasurables[i]
+                || measurable.layoutId != lastMeasurableIds[i * 3]
+                || measurable.constraintLayoutId != lastMeasurableIds[i * 3 + 1]
+                || measurable.constraintLayoutTag != lastMeasurableIds[i * 3 + 2]
+            ) {
+                return false
+            }
+        }
+        for (i in measurables.indices) {
+            val measurable = measurables[i]
+            val previous = placeables[measurable] ?: continue
+            val childConstraints = childConstraints[measurable] ?: return false
+            val placeable = measurable.measure(childConstraints)
+            placeables[measurable] = placeable
+            if (placeable.width != previous.width || placeable.height != previous.height) {
+                return false
+            }
+            val baseline = lastMeasures[measurable]?.get(2) ?: AlignmentLine.Unspecified
+            if (baseline != AlignmentLine.Unspecified && placeable[FirstBaseline] != baseline) {
+                return false
+            }
+        }
+        return true
     }
 
     protected fun applyRootSize(constraints: Constraints) {
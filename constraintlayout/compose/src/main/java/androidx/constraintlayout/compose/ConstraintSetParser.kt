@@ -443,7 +443,20 @@ internal fun parseJSON(
     state: Int
 ) {
     try {
-        val json = CLParser.parse(content)
+        parseJSON(CLParser.parse(content), transition, state)
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+    }
+}
+
+/**
+ * Apply the custom properties of an already parsed constraint set to a transition
+ */
+internal fun parseJSON(
+    json: CLObject, transition: Transition,
+    state: Int
+) {
+    try {
         val elements = json.names() ?: return
         (0 until elements.size).forEach { i ->
             val elementName = elements[i]
@@ -596,7 +609,18 @@ fun parseDebug(scene: MotionScene, json: Any) {
 
 internal fun parseJSON(content: String, state: State, layoutVariables: LayoutVariables) {
     try {
-        val json = CLParser.parse(content)
+        parseJSON(CLParser.parse(content), state, layoutVariables)
+    } catch (e: CLParsingException) {
+        System.err.println("Error parsing JSON $e")
+    }
+}
+
+/**
+ * Apply an already parsed constraint set to the state, the tree is not modified
+ * so it can be applied on every measure
+ */
+internal fun parseJSON(json: CLObject, state: State, layoutVariables: LayoutVariables) {
+    try {
         val elements = json.names() ?: return
         (0 until elements.size).forEach { i ->
             val elementName = elements[i]
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.utils.widget;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Times animating the saturation of many ImageFilterViews, with and without
+ * filter quantization. The timings are logged, only the sharing of filters is checked.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageFilterViewBenchmark {
+    private static final String TAG = "ImageFilterViewBenchmark";
+    private static final int VIEWS = 50;
+    private static final int FRAMES = 200;
+
+    private final Context mContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    private ImageFilterView[] createViews(float quantization) {
+        ImageFilterView[] views = new ImageFilterView[VIEWS];
+        for (int i = 0; i < VIEWS; i++) {
+            views[i] = new ImageFilterView(mContext);
+            views[i].setImageDrawable(new ColorDrawable(Color.RED));
+            views[i].setFilterQuantization(quantization);
+        }
+        return views;
+    }
+
+    /**
+     * Animate the saturation of all the views from 0 to 2, returns the time in ns
+     */
+    private static long animate(ImageFilterView[] views) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            float saturation = 2f * frame / (FRAMES - 1);
+            for (ImageFilterView view : views) {
+                view.setSaturation(saturation);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void saturationAnimation() {
+        ImageFilterView[] exact = createViews(0);
+        ImageFilterView[] quantized = createViews(0.01f);
+        // warm up both paths before timing them
+        animate(exact);
+        animate(quantized);
+
+        long exactTime = animate(exact);
+        long quantizedTime = animate(quantized);
+        Log.i(TAG, VIEWS + " views x " + FRAMES + " frames: exact "
+                + exactTime / 1000000f + "ms, quantized " + quantizedTime / 1000000f + "ms");
+
+        assertNotSame(exact[0].getColorFilter(), exact[1].getColorFilter());
+        assertSame(quantized[0].getColorFilter(), quantized[1].getColorFilter());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.widget;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class ConstraintSetDeltaTest {
+    private static final int A = 1;
+    private static final int B = 2;
+
+    private final Context mContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    private ConstraintLayout createLayout() {
+        ConstraintLayout layout = new ConstraintLayout(mContext);
+        for (int id : new int[]{A, B}) {
+            TextView view = new TextView(mContext);
+            view.setId(id);
+            view.setText("text");
+            layout.addView(view, new ConstraintLayout.LayoutParams(
+                    ConstraintLayout.LayoutParams.WRAP_CONTENT,
+                    ConstraintLayout.LayoutParams.WRAP_CONTENT));
+        }
+        return layout;
+    }
+
+    private static ConstraintSet createSet(int margin) {
+        ConstraintSet set = new ConstraintSet();
+        set.connect(A, ConstraintSet.START, ConstraintSet.PARENT_ID, ConstraintSet.START, margin);
+        set.connect(A, ConstraintSet.TOP, ConstraintSet.PARENT_ID, ConstraintSet.TOP);
+        set.constrainWidth(A, ConstraintSet.MATCH_CONSTRAINT);
+        set.constrainDefaultWidth(A, ConstraintSet.MATCH_CONSTRAINT_WRAP);
+        set.constrainHeight(A, ConstraintSet.WRAP_CONTENT);
+        set.connect(B, ConstraintSet.LEFT, A, ConstraintSet.RIGHT, 8);
+        set.connect(B, ConstraintSet.TOP, A, ConstraintSet.BOTTOM);
+        set.constrainWidth(B, ConstraintSet.WRAP_CONTENT);
+        set.constrainHeight(B, 40);
+        return set;
+    }
+
+    private static void layout(ConstraintLayout layout) {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, 500, 500);
+    }
+
+    @Test
+    public void changedIds() {
+        ConstraintSet set = createSet(16);
+        ConstraintSet copy = new ConstraintSet();
+        copy.clone(set);
+        assertArrayEquals(new int[0], set.getChangedIds(copy));
+        copy.setAlpha(B, 0.5f);
+        assertArrayEquals(new int[]{B}, set.getChangedIds(copy));
+        assertArrayEquals(new int[]{A, B}, createSet(8).getChangedIds(copy));
+    }
+
+    @Test
+    public void appliedAfterLayout() {
+        ConstraintLayout layout = createLayout();
+        ConstraintSet set = createSet(16);
+        set.applyTo(layout);
+        layout(layout);
+        assertTrue(set.isAppliedTo(layout));
+        assertFalse(createSet(8).isAppliedTo(layout));
+    }
+
+    @Test
+    public void layoutParamsEdited() {
+        ConstraintLayout layout = createLayout();
+        ConstraintSet set = createSet(16);
+        set.applyTo(layout);
+        layout(layout);
+        View view = layout.getViewById(B);
+        ConstraintLayout.LayoutParams params =
+                (ConstraintLayout.LayoutParams) view.getLayoutParams();
+        params.height = 80;
+        view.setLayoutParams(params);
+        assertFalse(set.isAppliedTo(layout));
+    }
+
+    @Test
+    public void versionChangesOnApply() {
+        ConstraintLayout layout = createLayout();
+        int version = layout.mConstraintSetVersion;
+        createSet(16).applyTo(layout);
+        assertNotEquals(version, layout.mConstraintSetVersion);
+        version = layout.mConstraintSetVersion;
+        layout.setConstraintSet(createSet(8));
+        assertNotEquals(version, layout.mConstraintSetVersion);
+    }
+}
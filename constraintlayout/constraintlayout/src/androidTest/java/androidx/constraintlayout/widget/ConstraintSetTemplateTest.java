@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+@RunWith(AndroidJUnit4.class)
+public class ConstraintSetTemplateTest {
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int C = 3;
+    private static final int GUIDELINE = 4;
+    private static final int BARRIER = 5;
+
+    private final Context mContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    private ConstraintLayout createLayout(int... ids) {
+        ConstraintLayout layout = new ConstraintLayout(mContext);
+        for (int id : ids) {
+            TextView view = new TextView(mContext);
+            view.setId(id);
+            layout.addView(view, new ConstraintLayout.LayoutParams(
+                    ConstraintLayout.LayoutParams.WRAP_CONTENT,
+                    ConstraintLayout.LayoutParams.WRAP_CONTENT));
+        }
+        return layout;
+    }
+
+    private static ConstraintSet createSet() {
+        ConstraintSet set = new ConstraintSet();
+        set.create(GUIDELINE, ConstraintSet.VERTICAL_GUIDELINE);
+        set.setGuidelinePercent(GUIDELINE, 0.3f);
+        set.connect(A, ConstraintSet.LEFT, ConstraintSet.PARENT_ID, ConstraintSet.LEFT, 8);
+        set.connect(A, ConstraintSet.TOP, ConstraintSet.PARENT_ID, ConstraintSet.TOP, 16);
+        set.constrainWidth(A, 120);
+        set.constrainHeight(A, ConstraintSet.WRAP_CONTENT);
+        set.connect(B, ConstraintSet.LEFT, GUIDELINE, ConstraintSet.RIGHT);
+        set.connect(B, ConstraintSet.RIGHT, ConstraintSet.PARENT_ID, ConstraintSet.RIGHT);
+        set.connect(B, ConstraintSet.TOP, A, ConstraintSet.BOTTOM, 4);
+        set.constrainWidth(B, ConstraintSet.MATCH_CONSTRAINT);
+        set.constrainHeight(B, ConstraintSet.WRAP_CONTENT);
+        set.setHorizontalBias(B, 0.2f);
+        set.setAlpha(B, 0.5f);
+        set.createBarrier(BARRIER, ConstraintSet.BOTTOM, 10, A, B);
+        set.connect(C, ConstraintSet.TOP, BARRIER, ConstraintSet.BOTTOM);
+        set.connect(C, ConstraintSet.START, ConstraintSet.PARENT_ID, ConstraintSet.START);
+        set.constrainWidth(C, ConstraintSet.WRAP_CONTENT);
+        set.constrainHeight(C, 60);
+        set.setVisibility(C, View.INVISIBLE);
+        set.setColorValue(C, "BackgroundColor", Color.RED);
+        return set;
+    }
+
+    /**
+     * Compare the primitive fields of the layout params of every child
+     */
+    private static void assertSameLayout(ConstraintLayout expected, ConstraintLayout actual)
+            throws IllegalAccessException {
+        assertEquals(expected.getChildCount(), actual.getChildCount());
+        for (int i = 0; i < expected.getChildCount(); i++) {
+            View expectedView = expected.getChildAt(i);
+            View view = actual.getViewById(expectedView.getId());
+            assertEquals(expectedView.getClass(), view.getClass());
+            assertEquals(expectedView.getVisibility(), view.getVisibility());
+            assertEquals(expectedView.getAlpha(), view.getAlpha(), 0);
+            if (expectedView.getBackground() instanceof ColorDrawable) {
+                assertTrue(view.getBackground() instanceof ColorDrawable);
+                assertEquals(((ColorDrawable) expectedView.getBackground()).getColor(),
+                        ((ColorDrawable) view.getBackground()).getColor());
+            }
+            Object expectedParams = expectedView.getLayoutParams();
+            Object params = view.getLayoutParams();
+            for (Field field : ConstraintLayout.LayoutParams.class.getFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> type = field.getType();
+                if (type.isPrimitive() || type == String.class) {
+                    assertEquals(expectedView.getId() + " " + field.getName(),
+                            field.get(expectedParams), field.get(params));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameLayoutParamsAsConstraintSet() throws Exception {
+        ConstraintSet set = createSet();
+        ConstraintSetTemplate template = new ConstraintSetTemplate(mContext, set);
+
+        ConstraintLayout expected = createLayout(A, B, C);
+        set.applyTo(expected);
+        ConstraintLayout actual = createLayout(A, B, C);
+        template.applyTo(actual);
+        assertSameLayout(expected, actual);
+
+        // the barrier and guideline are now children, apply again on top of them
+        set.applyTo(expected);
+        template.applyTo(actual);
+        assertSameLayout(expected, actual);
+    }
+
+    @Test
+    public void sharedAcrossLayouts() throws Exception {
+        ConstraintSetTemplate template = new ConstraintSetTemplate(mContext, createSet());
+        ConstraintLayout expected = createLayout(A, B, C);
+        createSet().applyTo(expected);
+        for (int i = 0; i < 3; i++) {
+            // children in another order and an unknown child
+            ConstraintLayout actual = createLayout(C, 42, B, A);
+            template.applyTo(actual);
+            actual.removeView(actual.getViewById(42));
+            assertSameLayout(expected, actual);
+        }
+    }
+}
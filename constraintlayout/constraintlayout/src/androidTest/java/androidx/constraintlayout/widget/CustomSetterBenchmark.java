@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+
+/**
+ * Times interpolating a custom attribute on many views through the cached setters,
+ * against looking the setter up by reflection on every frame. The timings are logged,
+ * only the values set are checked.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CustomSetterBenchmark {
+    private static final String TAG = "CustomSetterBenchmark";
+    private static final int VIEWS = 50;
+    private static final int FRAMES = 200;
+
+    private final Context mContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    private View[] createViews() {
+        View[] views = new View[VIEWS];
+        for (int i = 0; i < VIEWS; i++) {
+            views[i] = new TextView(mContext);
+        }
+        return views;
+    }
+
+    /**
+     * Interpolate the alpha of all the views through the attribute, returns the time in ns
+     */
+    private static long animateCached(View[] views, ConstraintAttribute attribute) {
+        float[] value = new float[1];
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            value[0] = frame / (float) (FRAMES - 1);
+            for (View view : views) {
+                attribute.setInterpolatedValue(view, value);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Interpolate the alpha of all the views, looking the setter up each time
+     */
+    private static long animateReflection(View[] views) throws Exception {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            float value = frame / (float) (FRAMES - 1);
+            for (View view : views) {
+                Method method = view.getClass().getMethod("setAlpha", Float.TYPE);
+                method.invoke(view, value);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    public void alphaAnimation() throws Exception {
+        ConstraintAttribute attribute = new ConstraintAttribute("Alpha",
+                ConstraintAttribute.AttributeType.FLOAT_TYPE, 0f, false);
+        View[] cached = createViews();
+        View[] reflected = createViews();
+        // warm up both paths before timing them
+        animateCached(cached, attribute);
+        animateReflection(reflected);
+
+        long cachedTime = animateCached(cached, attribute);
+        long reflectionTime = animateReflection(reflected);
+        Log.i(TAG, VIEWS + " views x " + FRAMES + " frames: cached "
+                + cachedTime / 1000000f + "ms, reflection " + reflectionTime / 1000000f + "ms");
+
+        for (int i = 0; i < VIEWS; i++) {
+            assertEquals(1f, cached[i].getAlpha(), 0);
+            assertEquals(reflected[i].getAlpha(), cached[i].getAlpha(), 0);
+        }
+    }
+}
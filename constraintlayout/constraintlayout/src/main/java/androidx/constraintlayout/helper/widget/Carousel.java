@@ -21,6 +21,7 @@ import android.content.res.TypedArray;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 
 import androidx.annotation.RequiresApi;
@@ -31,6 +32,7 @@ import androidx.constraintlayout.widget.ConstraintSet;
 import androidx.constraintlayout.widget.R;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Carousel works within a MotionLayout to provide a simple recycler like pattern.
@@ -61,6 +63,11 @@ public class Carousel extends MotionHelper {
     private float velocityThreshold = 2f;
     private int mTargetIndex = -1;
     private int mAnimateTargetDelay = 200;
+    // items prepared ahead of being shown, by index
+    private final SparseArray<Object> mPrepared = new SparseArray<>();
+    private static final Object PENDING = new Object();
+    private Executor mPrefetchExecutor = null;
+    private int mPrefetchedIndex = -1;
 
     /**
      * Adapter for a Carousel
@@ -87,6 +94,31 @@ public class Carousel extends MotionHelper {
         void onNewItem(int index);
     }
 
+    /**
+     * Adapter for a Carousel that can prepare the items (e.g. load or decode their images)
+     * before they are shown. While a transition runs, the items that will be shown once it
+     * completes are prepared, so that completing it only has to bind the prepared data.
+     */
+    public interface PrefetchAdapter extends Adapter {
+        /**
+         * Prepare the data of an item. Called on the prefetch executor if one is set, so it
+         * must not touch views, otherwise on the UI thread during the transition.
+         *
+         * @param index
+         * @return the prepared data, passed to {@link #populate(View, int, Object)}
+         */
+        Object prepare(int index);
+
+        /**
+         * Callback to populate the view for the given index with its prepared data
+         *
+         * @param view
+         * @param index
+         * @param prepared the result of {@link #prepare(int)} for this index
+         */
+        void populate(View view, int index, Object prepared);
+    }
+
     public Carousel(Context context) {
         super(context);
     }
@@ -135,6 +167,18 @@ public class Carousel extends MotionHelper {
 
     public void setAdapter(Adapter adapter) {
         mAdapter = adapter;
+        mPrepared.clear();
+        mPrefetchedIndex = -1;
+    }
+
+    /**
+     * Set the executor used to prepare items with a {@link PrefetchAdapter}.
+     * If not set, items are prepared on the UI thread while the transition runs.
+     *
+     * @param executor
+     */
+    public void setPrefetchExecutor(Executor executor) {
+        mPrefetchExecutor = executor;
     }
 
     /**
@@ -186,6 +230,8 @@ public class Carousel extends MotionHelper {
     }
 
     public void refresh() {
+        mPrepared.clear();
+        mPrefetchedIndex = -1;
         final int count = mList.size();
         for (int i = 0; i < count; i++) {
             View view = mList.get(i);
@@ -205,6 +251,99 @@ public class Carousel extends MotionHelper {
             System.out.println("onTransitionChange from " + startId + " to " + endId + " progress " + progress);
         }
         mLastStartId = startId;
+        if (progress > 0 && progress < 1) {
+            if (endId == nextState) {
+                prefetch(mIndex + 1);
+            } else if (endId == previousState) {
+                prefetch(mIndex - 1);
+            }
+        }
+    }
+
+    /**
+     * Map a position in the list of views to the index of the item it shows around the given
+     * current index, or -1 if the view is empty
+     */
+    private int itemIndex(int current, int position) {
+        final int count = mAdapter.count();
+        int index = current + position - startIndex;
+        if (infiniteCarousel) {
+            index = index % count;
+            return index < 0 ? index + count : index;
+        }
+        return index < 0 || index >= count ? -1 : index;
+    }
+
+    /**
+     * Prepare the items shown once the carousel reaches the given index
+     */
+    private void prefetch(int target) {
+        if (!(mAdapter instanceof PrefetchAdapter) || mMotionLayout == null
+                || mAdapter.count() == 0 || target == mPrefetchedIndex) {
+            return;
+        }
+        mPrefetchedIndex = target;
+        final PrefetchAdapter adapter = (PrefetchAdapter) mAdapter;
+        final int viewCount = mList.size();
+        for (int i = 0; i < viewCount; i++) {
+            final int index = itemIndex(target, i);
+            if (index == -1 || mPrepared.get(index) != null) {
+                continue;
+            }
+            if (mPrefetchExecutor == null) {
+                mPrepared.put(index, adapter.prepare(index));
+                continue;
+            }
+            mPrepared.put(index, PENDING);
+            mPrefetchExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Object prepared = adapter.prepare(index);
+                    mMotionLayout.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (mAdapter == adapter && mPrepared.get(index) == PENDING) {
+                                mPrepared.put(index, prepared);
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * Populate a view, with its prepared data if any
+     */
+    private void populate(View view, int index) {
+        if (!(mAdapter instanceof PrefetchAdapter)) {
+            mAdapter.populate(view, index);
+            return;
+        }
+        PrefetchAdapter adapter = (PrefetchAdapter) mAdapter;
+        Object prepared = mPrepared.get(index);
+        if (prepared == null || prepared == PENDING) {
+            prepared = adapter.prepare(index);
+            mPrepared.put(index, prepared);
+        }
+        adapter.populate(view, index, prepared);
+    }
+
+    /**
+     * Only keep the prepared items close to the current one
+     */
+    private void trimPrepared() {
+        final int range = mList.size();
+        final int count = mAdapter.count();
+        for (int i = mPrepared.size() - 1; i >= 0; i--) {
+            int distance = Math.abs(mPrepared.keyAt(i) - mIndex);
+            if (infiniteCarousel) {
+                distance = Math.min(distance, count - distance);
+            }
+            if (distance > range) {
+                mPrepared.removeAt(i);
+            }
+        }
     }
 
     int mLastStartId = -1;
@@ -373,6 +512,10 @@ public class Carousel extends MotionHelper {
         if (DEBUG) {
             System.out.println("Update items, index: " + mIndex);
         }
+        mPrefetchedIndex = -1;
+        if (mAdapter instanceof PrefetchAdapter) {
+            trimPrepared();
+        }
         final int viewCount = mList.size();
         for (int i = 0; i < viewCount; i++) {
             // mIndex should map to i == startIndex
@@ -386,9 +529,9 @@ public class Carousel extends MotionHelper {
                         updateViewVisibility(view, VISIBLE);
                     }
                     if (index % mAdapter.count() == 0) {
-                        mAdapter.populate(view, 0);
+                        populate(view, 0);
                     } else {
-                        mAdapter.populate(view, mAdapter.count() + (index % mAdapter.count()));
+                        populate(view, mAdapter.count() + (index % mAdapter.count()));
                     }
                 } else if (index >= mAdapter.count()) {
                     if (index == mAdapter.count()) {
@@ -401,10 +544,10 @@ public class Carousel extends MotionHelper {
                     } else {
                         updateViewVisibility(view, VISIBLE);
                     }
-                    mAdapter.populate(view, index);
+                    populate(view, index);
                 } else {
                     updateViewVisibility(view, VISIBLE);
-                    mAdapter.populate(view, index);
+                    populate(view, index);
                 }
             } else {
                 if (index < 0) {
@@ -413,7 +556,7 @@ public class Carousel extends MotionHelper {
                     updateViewVisibility(view, emptyViewBehavior);
                 } else {
                     updateViewVisibility(view, VISIBLE);
-                    mAdapter.populate(view, index);
+                    populate(view, index);
                 }
             }
         }
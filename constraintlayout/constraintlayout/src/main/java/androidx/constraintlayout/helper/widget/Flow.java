@@ -18,6 +18,7 @@ package androidx.constraintlayout.helper.widget;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Rect;
 import android.os.Build;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.constraintlayout.widget.ConstraintSet;
@@ -27,6 +28,8 @@ import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.HelperWidget;
 import android.util.AttributeSet;
 import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 /**
  *
@@ -119,6 +122,30 @@ public class Flow extends VirtualLayout {
     public static final int VERTICAL_ALIGN_CENTER = androidx.constraintlayout.core.widgets.Flow.VERTICAL_ALIGN_CENTER;
     public static final int VERTICAL_ALIGN_BASELINE = androidx.constraintlayout.core.widgets.Flow.VERTICAL_ALIGN_BASELINE;
 
+    private Adapter mAdapter = null;
+    private int mFirstIndex = 0;
+    private final Rect mVisibleRect = new Rect();
+    private ViewTreeObserver.OnScrollChangedListener mScrollListener = null;
+
+    /**
+     * Adapter for a virtualized Flow
+     */
+    public interface Adapter {
+        /**
+         * Number of items you want to display in the Flow
+         * @return number of items
+         */
+        int count();
+
+        /**
+         * Callback to populate the view for the given index
+         *
+         * @param view
+         * @param index
+         */
+        void populate(View view, int index);
+    }
+
     public Flow(Context context) {
         super(context);
     }
@@ -267,6 +294,128 @@ public class Flow extends VirtualLayout {
         validateParams();
     }
 
+    /**
+     * Virtualize the Flow. The referenced views are recycled to show a window of the adapter's
+     * items around the visible part of the Flow (e.g. inside a ScrollView), and only the chains
+     * of that window are created; the space taken by the other items is estimated.
+     * Reference more views than fit on screen to have a margin of items prepared before they
+     * scroll in. Only supported with the wrap chain mode.
+     *
+     * @param adapter the adapter, or null to lay out the referenced views as usual
+     */
+    public void setAdapter(Adapter adapter) {
+        mAdapter = adapter;
+        if (adapter == null) {
+            mFlow.setVirtualWindow(0, ConstraintWidget.UNKNOWN);
+            requestLayout();
+            return;
+        }
+        populate(0);
+    }
+
+    public Adapter getAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * Populate the views again, e.g. after the items of the adapter changed
+     */
+    public void refresh() {
+        if (mAdapter != null) {
+            populate(mFirstIndex);
+        }
+    }
+
+    /**
+     * @return the index of the item shown by the first referenced view
+     */
+    public int getFirstIndex() {
+        return mFirstIndex;
+    }
+
+    private void populate(int firstIndex) {
+        if (!(getParent() instanceof ConstraintLayout)) {
+            return;
+        }
+        ConstraintLayout container = (ConstraintLayout) getParent();
+        int count = mAdapter.count();
+        mFirstIndex = Math.max(0, Math.min(firstIndex, count - mCount));
+        for (int i = 0; i < mCount; i++) {
+            View view = container.getViewById(mIds[i]);
+            if (view == null) {
+                continue;
+            }
+            int index = mFirstIndex + i;
+            if (index < count) {
+                view.setVisibility(VISIBLE);
+                mAdapter.populate(view, index);
+            } else {
+                view.setVisibility(GONE);
+            }
+        }
+        mFlow.setVirtualWindow(mFirstIndex, count);
+        requestLayout();
+    }
+
+    /**
+     * Move the window of items if the visible part of the Flow gets close to its ends
+     */
+    private void updateWindow() {
+        float chainExtent = mFlow.getEstimatedChainExtent();
+        float itemsPerChain = mFlow.getEstimatedItemsPerChain();
+        if (mAdapter == null || chainExtent <= 0 || itemsPerChain <= 0
+                || !getLocalVisibleRect(mVisibleRect)) {
+            return;
+        }
+        int start;
+        int end;
+        if (mFlow.getOrientation() == HORIZONTAL) {
+            start = mVisibleRect.top - mFlow.getPaddingTop();
+            end = mVisibleRect.bottom - mFlow.getPaddingTop();
+        } else {
+            start = mVisibleRect.left - mFlow.getPaddingLeft();
+            end = mVisibleRect.right - mFlow.getPaddingLeft();
+        }
+        int perChain = Math.max(1, Math.round(itemsPerChain));
+        int firstVisible = (int) (Math.max(0, start) / chainExtent) * perChain;
+        int lastVisible = ((int) (Math.max(0, end) / chainExtent) + 1) * perChain;
+        if (firstVisible >= mFirstIndex && lastVisible <= mFirstIndex + mCount) {
+            return;
+        }
+        // center the window on the visible items, on a chain boundary
+        int margin = Math.max(0, (mCount - (lastVisible - firstVisible)) / 2);
+        int first = Math.max(0, firstVisible - margin) / perChain * perChain;
+        if (first != mFirstIndex) {
+            populate(first);
+        }
+    }
+
+    /**
+     * @hide
+     */
+    @Override
+    public void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mScrollListener == null) {
+            mScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+                @Override
+                public void onScrollChanged() {
+                    updateWindow();
+                }
+            };
+        }
+        getViewTreeObserver().addOnScrollChangedListener(mScrollListener);
+        if (mAdapter != null) {
+            populate(mFirstIndex);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnScrollChangedListener(mScrollListener);
+    }
+
     /**
      * Set the orientation of the layout
      *
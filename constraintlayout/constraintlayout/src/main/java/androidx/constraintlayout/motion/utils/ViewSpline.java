@@ -25,9 +25,9 @@ import androidx.constraintlayout.motion.widget.Key;
 import androidx.constraintlayout.motion.widget.MotionLayout;
 import androidx.constraintlayout.core.motion.utils.SplineSet;
 import androidx.constraintlayout.widget.ConstraintAttribute;
+import androidx.constraintlayout.widget.CustomSetter;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 public abstract class ViewSpline extends SplineSet {
     private static final String TAG = "ViewSpline";
@@ -234,15 +234,15 @@ public abstract class ViewSpline extends SplineSet {
                 if (mNoMethod) {
                     return;
                 }
-                Method method = null;
+                CustomSetter method = null;
                 try {
-                    method = view.getClass().getMethod("setProgress", Float.TYPE);
+                    method = CustomSetter.get(view.getClass(), "setProgress", CustomSetter.FLOAT);
                 } catch (NoSuchMethodException e) {
                     mNoMethod = true;
                 }
                 if (method != null) {
                     try {
-                        method.invoke(view, get(t));
+                        method.setFloat(view, get(t));
                     } catch (IllegalAccessException e) {
                         Log.e(TAG, "unable to setProgress", e);
                     } catch (InvocationTargetException e) {
@@ -26,9 +26,9 @@ import androidx.constraintlayout.core.motion.utils.TimeCycleSplineSet;
 import androidx.constraintlayout.motion.widget.Key;
 import androidx.constraintlayout.motion.widget.MotionLayout;
 import androidx.constraintlayout.widget.ConstraintAttribute;
+import androidx.constraintlayout.widget.CustomSetter;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 /**
  * This engine allows manipulation of attributes by wave shapes oscillating in time
@@ -48,14 +48,14 @@ public abstract class ViewTimeCycle extends TimeCycleSplineSet {
             return mCache[CURVE_OFFSET];
         }
         if (Float.isNaN(last_cycle)) { // it has not been set
-            last_cycle = cache.getFloatValue(view, mType, 0); // check the cache
+            last_cycle = getCachedCycle(cache, view, mType); // check the cache
             if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                 last_cycle = 0;
             }
         }
         long delta_time = time - last_time;
         last_cycle = (float) ((last_cycle + delta_time * 1E-9 * period) % 1.0);
-        cache.setFloatValue(view, mType, 0, last_cycle);
+        setCachedCycle(cache, view, mType, last_cycle);
         last_time = time;
         float v = mCache[CURVE_VALUE];
         float wave = calcWave(last_cycle);
@@ -263,7 +263,7 @@ public abstract class ViewTimeCycle extends TimeCycleSplineSet {
             long delta_time = time - last_time;
 
             if (Float.isNaN(last_cycle)) { // it has not been set
-                last_cycle = cache.getFloatValue(view, mAttributeName, 0); // check the cache
+                last_cycle = getCachedCycle(cache, view, mAttributeName); // check the cache
                 if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                     last_cycle = 0;
                 }
@@ -296,15 +296,15 @@ public abstract class ViewTimeCycle extends TimeCycleSplineSet {
                 if (mNoMethod) {
                     return false;
                 }
-                Method method = null;
+                CustomSetter method = null;
                 try {
-                    method = view.getClass().getMethod("setProgress", Float.TYPE);
+                    method = CustomSetter.get(view.getClass(), "setProgress", CustomSetter.FLOAT);
                 } catch (NoSuchMethodException e) {
                     mNoMethod = true;
                 }
                 if (method != null) {
                     try {
-                        method.invoke(view, get(t, time, view, cache));
+                        method.setFloat(view, get(t, time, view, cache));
                     } catch (IllegalAccessException e) {
                         Log.e(TAG, "unable to setProgress", e);
                     } catch (InvocationTargetException e) {
@@ -67,6 +67,7 @@ public class KeyTrigger extends Key {
     private int mTriggerID = UNSET;
     private int mTriggerCollisionId = UNSET;
     private View mTriggerCollisionView = null;
+    private View mTriggerReceiverView = null;
     float mTriggerSlack = .1f;
     private boolean mFireCrossReset = true;
     private boolean mFireNegativeReset = true;
@@ -154,6 +155,17 @@ public class KeyTrigger extends Key {
         }
     }
 
+    /**
+     * The receiver is looked up on every frame, keep it while it is still a child of the layout
+     */
+    private View getTriggerReceiver(ViewGroup layout) {
+        View view = mTriggerReceiverView;
+        if (view == null || view.getId() != mTriggerReceiver || view.getParent() != layout) {
+            view = mTriggerReceiverView = layout.findViewById(mTriggerReceiver);
+        }
+        return view;
+    }
+
     private void setUpRect(RectF rect, View child, boolean postLayout) {
         rect.top = child.getTop();
         rect.bottom = child.getBottom();
@@ -250,7 +262,7 @@ public class KeyTrigger extends Key {
         if (fireNegative || fireCross || firePositive) {
             ((MotionLayout) child.getParent()).fireTrigger(mTriggerID, firePositive, pos);
         }
-        View call = (mTriggerReceiver == UNSET) ? child : ((MotionLayout) child.getParent()).findViewById(mTriggerReceiver);
+        View call = (mTriggerReceiver == UNSET) ? child : getTriggerReceiver((ViewGroup) child.getParent());
 
         if (fireNegative) {
             if (mNegativeCross != null) {
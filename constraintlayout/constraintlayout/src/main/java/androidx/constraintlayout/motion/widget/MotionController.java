@@ -123,6 +123,7 @@ public class MotionController {
     private float mQuantizeMotionPhase = Float.NaN;
     private Interpolator mQuantizeMotionInterpolator = null;
     private boolean mNoMovement = false;
+    private int mCustomAttributeCount = UNSET;
 
     /**
      * Get the view to pivot around
@@ -151,6 +152,31 @@ public class MotionController {
         setView(view);
     }
 
+    /**
+     * @return the number of custom attributes set by each call to interpolate
+     */
+    int getCustomAttributeCount() {
+        if (mCustomAttributeCount == UNSET) {
+            int count = mAttributeNames == null ? 0 : mAttributeNames.length;
+            if (mAttributesMap != null) {
+                for (String attribute : mAttributesMap.keySet()) {
+                    if (attribute.startsWith("CUSTOM,")) {
+                        count++;
+                    }
+                }
+            }
+            if (mTimeCycleAttributesMap != null) {
+                for (String attribute : mTimeCycleAttributesMap.keySet()) {
+                    if (attribute.startsWith("CUSTOM,")) {
+                        count++;
+                    }
+                }
+            }
+            mCustomAttributeCount = count;
+        }
+        return mCustomAttributeCount;
+    }
+
     /**
      * get the left most position of the widget at the start of the movement.
      *
@@ -622,6 +648,7 @@ public class MotionController {
      * Spines are evaluated
      */
     public void setup(int parentWidth, int parentHeight, float transitionDuration, long currentTime) {
+        mCustomAttributeCount = UNSET;
         HashSet<String> springAttributes = new HashSet<>(); // attributes we need to interpolate
         HashSet<String> timeCycleAttributes = new HashSet<>(); // attributes we need to interpolate
         HashSet<String> splineAttributes = new HashSet<>(); // attributes we need to interpolate
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.motion.widget;
+
+import android.content.Context;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Records where a MotionLayout spends its time on each animated frame.
+ * Set it with {@link MotionLayout#setFrameStats(MotionFrameStats)}; the last frames are kept
+ * in a ring buffer, can be observed with a {@link FrameListener} and summarized per transition
+ * with {@link #getSummary(Context)}.
+ */
+public class MotionFrameStats {
+    /**
+     * Computing the new progress and interpolating the views, includes {@link #PHASE_INTERPOLATE}
+     */
+    public static final int PHASE_EVALUATE = 0;
+    /**
+     * Interpolating the views (MotionController.interpolate)
+     */
+    public static final int PHASE_INTERPOLATE = 1;
+    /**
+     * Measuring the MotionLayout during the transition
+     */
+    public static final int PHASE_LAYOUT = 2;
+    /**
+     * Drawing the children and the decorators
+     */
+    public static final int PHASE_DRAW = 3;
+    static final int PHASE_COUNT = 4;
+    private static final String[] PHASE_NAMES = {"evaluate", "interpolate", "layout", "draw"};
+
+    /**
+     * Notified of every recorded frame
+     */
+    public interface FrameListener {
+        /**
+         * Called after a frame was drawn. The frame is reused by the ring buffer,
+         * use {@link Frame#copy()} to keep it.
+         *
+         * @param motionLayout
+         * @param frame
+         */
+        void onFrame(MotionLayout motionLayout, Frame frame);
+    }
+
+    /**
+     * The timings and counts of one frame
+     */
+    public static class Frame {
+        int mStartId;
+        int mEndId;
+        float mProgress;
+        long mTime;
+        long[] mPhaseTime = new long[PHASE_COUNT];
+        int mViewsInterpolated;
+        int mCustomAttributes;
+        int mRelayouts;
+
+        public int getStartId() {
+            return mStartId;
+        }
+
+        public int getEndId() {
+            return mEndId;
+        }
+
+        public float getProgress() {
+            return mProgress;
+        }
+
+        /**
+         * @return the time the frame ended, in nanoseconds
+         */
+        public long getTime() {
+            return mTime;
+        }
+
+        /**
+         * @param phase one of the PHASE_ constants
+         * @return the time spent in the phase, in nanoseconds
+         */
+        public long getPhaseTime(int phase) {
+            return mPhaseTime[phase];
+        }
+
+        /**
+         * @return the time spent by MotionLayout in the frame, in nanoseconds
+         */
+        public long getTotalTime() {
+            return mPhaseTime[PHASE_EVALUATE] + mPhaseTime[PHASE_LAYOUT] + mPhaseTime[PHASE_DRAW];
+        }
+
+        public int getViewsInterpolated() {
+            return mViewsInterpolated;
+        }
+
+        public int getCustomAttributesApplied() {
+            return mCustomAttributes;
+        }
+
+        public int getRelayouts() {
+            return mRelayouts;
+        }
+
+        public Frame copy() {
+            Frame frame = new Frame();
+            frame.set(this);
+            return frame;
+        }
+
+        void set(Frame frame) {
+            mStartId = frame.mStartId;
+            mEndId = frame.mEndId;
+            mProgress = frame.mProgress;
+            mTime = frame.mTime;
+            System.arraycopy(frame.mPhaseTime, 0, mPhaseTime, 0, PHASE_COUNT);
+            mViewsInterpolated = frame.mViewsInterpolated;
+            mCustomAttributes = frame.mCustomAttributes;
+            mRelayouts = frame.mRelayouts;
+        }
+
+        void clear() {
+            for (int i = 0; i < PHASE_COUNT; i++) {
+                mPhaseTime[i] = 0;
+            }
+            mViewsInterpolated = 0;
+            mCustomAttributes = 0;
+            mRelayouts = 0;
+        }
+    }
+
+    private final Frame[] mFrames;
+    private int mCount = 0;
+    private int mNext = 0;
+    private final Frame mCurrent = new Frame();
+    private FrameListener mListener;
+    private long mFrameBudget = 16666667;
+
+    /**
+     * @param capacity the number of frames kept
+     */
+    public MotionFrameStats(int capacity) {
+        mFrames = new Frame[Math.max(1, capacity)];
+        for (int i = 0; i < mFrames.length; i++) {
+            mFrames[i] = new Frame();
+        }
+    }
+
+    public void setFrameListener(FrameListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Set the time above which a frame is counted as janky in the summary
+     *
+     * @param nanos the frame budget in nanoseconds, 16.67ms by default
+     */
+    public void setFrameBudget(long nanos) {
+        mFrameBudget = nanos;
+    }
+
+    /**
+     * @return the number of frames recorded, up to the capacity
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @param i from 0 for the oldest frame to size() - 1 for the last one
+     */
+    public Frame getFrame(int i) {
+        return mFrames[(mNext - mCount + i + mFrames.length) % mFrames.length];
+    }
+
+    public void clear() {
+        mCount = 0;
+        mNext = 0;
+        mCurrent.clear();
+    }
+
+    void addPhaseTime(int phase, long nanos) {
+        mCurrent.mPhaseTime[phase] += nanos;
+    }
+
+    void addInterpolated(int views, int customAttributes) {
+        mCurrent.mViewsInterpolated += views;
+        mCurrent.mCustomAttributes += customAttributes;
+    }
+
+    void addRelayout(long nanos) {
+        mCurrent.mPhaseTime[PHASE_LAYOUT] += nanos;
+        mCurrent.mRelayouts++;
+    }
+
+    /**
+     * Close the current frame, it is only recorded if views were interpolated in it
+     */
+    void endFrame(MotionLayout motionLayout, int startId, int endId, float progress, long time) {
+        if (mCurrent.mViewsInterpolated == 0) {
+            mCurrent.clear();
+            return;
+        }
+        mCurrent.mStartId = startId;
+        mCurrent.mEndId = endId;
+        mCurrent.mProgress = progress;
+        mCurrent.mTime = time;
+        Frame frame = mFrames[mNext];
+        frame.set(mCurrent);
+        mCurrent.clear();
+        mNext = (mNext + 1) % mFrames.length;
+        mCount = Math.min(mCount + 1, mFrames.length);
+        if (mListener != null) {
+            mListener.onFrame(motionLayout, frame);
+        }
+    }
+
+    /**
+     * Summarize the recorded frames per transition: the number of frames, of janky frames,
+     * the average and maximum time of each phase and the average counts.
+     *
+     * @param context used to name the constraint sets, may be null
+     */
+    public String getSummary(Context context) {
+        LinkedHashMap<Long, long[]> transitions = new LinkedHashMap<>();
+        // frames, janky, total time, max total, phase times, phase max, views, custom, relayouts
+        final int stride = 4 + PHASE_COUNT * 2 + 3;
+        for (int i = 0; i < mCount; i++) {
+            Frame frame = getFrame(i);
+            Long key = ((long) frame.mStartId << 32) | (frame.mEndId & 0xFFFFFFFFL);
+            long[] s = transitions.get(key);
+            if (s == null) {
+                s = new long[stride];
+                transitions.put(key, s);
+            }
+            long total = frame.getTotalTime();
+            s[0]++;
+            if (total > mFrameBudget) {
+                s[1]++;
+            }
+            s[2] += total;
+            s[3] = Math.max(s[3], total);
+            for (int p = 0; p < PHASE_COUNT; p++) {
+                s[4 + p] += frame.mPhaseTime[p];
+                s[4 + PHASE_COUNT + p] = Math.max(s[4 + PHASE_COUNT + p], frame.mPhaseTime[p]);
+            }
+            s[stride - 3] += frame.mViewsInterpolated;
+            s[stride - 2] += frame.mCustomAttributes;
+            s[stride - 1] += frame.mRelayouts;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Long key : transitions.keySet()) {
+            long[] s = transitions.get(key);
+            long frames = s[0];
+            builder.append(name(context, (int) (key >> 32))).append(" -> ")
+                    .append(name(context, (int) (long) key)).append(": ")
+                    .append(frames).append(" frames, ")
+                    .append(s[1]).append(" janky, total avg ").append(ms(s[2] / frames))
+                    .append(" max ").append(ms(s[3]));
+            for (int p = 0; p < PHASE_COUNT; p++) {
+                builder.append(", ").append(PHASE_NAMES[p]).append(" avg ")
+                        .append(ms(s[4 + p] / frames)).append(" max ")
+                        .append(ms(s[4 + PHASE_COUNT + p]));
+            }
+            builder.append(", views ").append(s[stride - 3] / frames)
+                    .append(", custom attributes ").append(s[stride - 2] / frames)
+                    .append(", relayouts ").append(s[stride - 1]).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String name(Context context, int id) {
+        return context == null ? Integer.toString(id) : Debug.getName(context, id);
+    }
+
+    private static String ms(long nanos) {
+        return ((nanos / 10000) / 100f) + "ms";
+    }
+}
@@ -1029,6 +1029,7 @@ public class MotionLayout extends ConstraintLayout implements
     boolean mInTransition = false;
     boolean mIndirectTransition = false;
     private TransitionListener mTransitionListener;
+    private MotionFrameStats mFrameStats = null;
     private float lastPos;
     private float lastY;
     public static final int DEBUG_SHOW_NONE = 0;
@@ -2491,16 +2492,27 @@ public class MotionLayout extends ConstraintLayout implements
         ConstraintSet mEnd = null;
         int mStartId;
         int mEndId;
-
-        void copy(ConstraintWidgetContainer src, ConstraintWidgetContainer dest) {
+        // widgets of the previous copies, reused by the next ones, by view
+        HashMap<Object, ConstraintWidget> mStartWidgets = new HashMap<>();
+        HashMap<Object, ConstraintWidget> mEndWidgets = new HashMap<>();
+        HashMap<ConstraintWidget, ConstraintWidget> mCopyMap = new HashMap<>();
+        // solved start and end layouts, by constraint set
+        HashMap<ConstraintSet, SolvedLayout> mSolvedLayouts = new HashMap<>();
+        boolean mCacheSolvedLayouts = false;
+
+        void copy(ConstraintWidgetContainer src, ConstraintWidgetContainer dest,
+                  HashMap<Object, ConstraintWidget> pool) {
             ArrayList<ConstraintWidget> children = src.getChildren();
-            HashMap<ConstraintWidget, ConstraintWidget> map = new HashMap<>();
+            HashMap<ConstraintWidget, ConstraintWidget> map = mCopyMap;
+            map.clear();
             map.put(src, dest);
-            dest.getChildren().clear();
+            dest.reset();
             dest.copy(src, map);
             for (ConstraintWidget child_s : children) {
-                ConstraintWidget child_d;
-                if (child_s instanceof androidx.constraintlayout.core.widgets.Barrier) {
+                ConstraintWidget child_d = pool.remove(child_s.getCompanionWidget());
+                if (child_d != null) {
+                    child_d.reset();
+                } else if (child_s instanceof androidx.constraintlayout.core.widgets.Barrier) {
                     child_d = new androidx.constraintlayout.core.widgets.Barrier();
                 } else if (child_s instanceof androidx.constraintlayout.core.widgets.Guideline) {
                     child_d = new androidx.constraintlayout.core.widgets.Guideline();
@@ -2514,22 +2526,63 @@ public class MotionLayout extends ConstraintLayout implements
                 dest.add(child_d);
                 map.put(child_s, child_d);
             }
+            pool.clear();
             for (ConstraintWidget child_s : children) {
-                map.get(child_s).copy(child_s, map);
+                ConstraintWidget child_d = map.get(child_s);
+                child_d.copy(child_s, map);
+                if (child_s.getCompanionWidget() != null) {
+                    pool.put(child_s.getCompanionWidget(), child_d);
+                }
             }
+            map.clear();
+            dest.invalidateGraph();
+            dest.invalidateMeasures();
+        }
+
+        /**
+         * @return true if a child changed since the last layout pass
+         */
+        private boolean isChildLayoutRequested() {
+            final int count = getChildCount();
+            for (int i = 0; i < count; i++) {
+                if (getChildAt(i).isLayoutRequested()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Solve the layout for the given constraint set, or reuse its previous solution
+         *
+         * @return true if the layout was taken from the cache
+         */
+        private boolean resolve(ConstraintWidgetContainer layout, ConstraintSet set,
+                                int optimisationLevel, int widthMeasureSpec, int heightMeasureSpec) {
+            boolean cacheable = mCacheSolvedLayouts && set != null && set.mRotate == 0;
+            SolvedLayout solved = cacheable ? mSolvedLayouts.get(set) : null;
+            if (solved != null && solved.applyTo(layout, optimisationLevel,
+                    widthMeasureSpec, heightMeasureSpec)) {
+                return true;
+            }
+            resolveSystem(layout, optimisationLevel, widthMeasureSpec, heightMeasureSpec);
+            if (cacheable) {
+                if (solved == null) {
+                    solved = new SolvedLayout();
+                    mSolvedLayouts.put(set, solved);
+                }
+                solved.capture(layout, optimisationLevel, widthMeasureSpec, heightMeasureSpec);
+            }
+            return false;
         }
 
         void initFrom(ConstraintWidgetContainer baseLayout, ConstraintSet start, ConstraintSet end) {
             mStart = start;
             mEnd = end;
-            mLayoutStart =  new ConstraintWidgetContainer();
-            mLayoutEnd =  new ConstraintWidgetContainer();
             mLayoutStart.setMeasurer(mLayoutWidget.getMeasurer());
             mLayoutEnd.setMeasurer(mLayoutWidget.getMeasurer());
-            mLayoutStart.removeAllChildren();
-            mLayoutEnd.removeAllChildren();
-            copy(mLayoutWidget, mLayoutStart);
-            copy(mLayoutWidget, mLayoutEnd);
+            copy(mLayoutWidget, mLayoutStart, mStartWidgets);
+            copy(mLayoutWidget, mLayoutEnd, mEndWidgets);
             if (mTransitionLastPosition > 0.5) {
                 if (start != null) {
                     setupConstraintWidget(mLayoutStart, start);
@@ -2718,23 +2771,28 @@ public class MotionLayout extends ConstraintLayout implements
             mWidthMeasureMode = widthMode;
             mHeightMeasureMode = heightMode;
             int optimisationLevel = getOptimizationLevel();
+            if (!mSolvedLayouts.isEmpty() && isChildLayoutRequested()) {
+                mSolvedLayouts.clear();
+            }
 
+            boolean cached;
             if (mCurrentState == getStartState()) {
-                resolveSystem(mLayoutEnd, optimisationLevel,
+                cached = resolve(mLayoutEnd, mEnd, optimisationLevel,
                         (mEnd == null || mEnd.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                         (mEnd == null || mEnd.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                 if (mStart != null) {
-                    resolveSystem(mLayoutStart, optimisationLevel,
+                    cached &= resolve(mLayoutStart, mStart, optimisationLevel,
                             (mStart.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                             (mStart.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                 }
             } else {
+                cached = true;
                 if (mStart != null) {
-                    resolveSystem(mLayoutStart, optimisationLevel,
+                    cached = resolve(mLayoutStart, mStart, optimisationLevel,
                             (mStart.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                             (mStart.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                 }
-                resolveSystem(mLayoutEnd, optimisationLevel,
+                cached &= resolve(mLayoutEnd, mEnd, optimisationLevel,
                         (mEnd == null || mEnd.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                         (mEnd == null || mEnd.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
             }
@@ -2752,22 +2810,24 @@ public class MotionLayout extends ConstraintLayout implements
                 mWidthMeasureMode = widthMode;
                 mHeightMeasureMode = heightMode;
 
-                if (mCurrentState == getStartState()) {
-                    resolveSystem(mLayoutEnd, optimisationLevel,
+                if (cached) {
+                    // the cached layouts already went through this second pass
+                } else if (mCurrentState == getStartState()) {
+                    resolve(mLayoutEnd, mEnd, optimisationLevel,
                             (mEnd.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                             (mEnd.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                     if (mStart != null) {
-                        resolveSystem(mLayoutStart, optimisationLevel,
+                        resolve(mLayoutStart, mStart, optimisationLevel,
                                 (mStart.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                                 (mStart.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                     }
                 } else {
                     if (mStart != null) {
-                        resolveSystem(mLayoutStart, optimisationLevel,
+                        resolve(mLayoutStart, mStart, optimisationLevel,
                                 (mStart.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                                 (mStart.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                     }
-                    resolveSystem(mLayoutEnd, optimisationLevel,
+                    resolve(mLayoutEnd, mEnd, optimisationLevel,
                             (mEnd.mRotate == 0) ? widthMeasureSpec : heightMeasureSpec,
                             (mEnd.mRotate == 0) ? heightMeasureSpec : widthMeasureSpec);
                 }
@@ -2866,6 +2926,72 @@ public class MotionLayout extends ConstraintLayout implements
         }
     }
 
+    /**
+     * The frames of a solved start or end layout, reused while the hierarchy and
+     * the measure specs do not change
+     */
+    private static class SolvedLayout {
+        int mOptimizationLevel;
+        int mWidthMeasureSpec;
+        int mHeightMeasureSpec;
+        int mWidth;
+        int mHeight;
+        Object[] mViews = new Object[0];
+        int[] mFrames = new int[0];
+        boolean mValid;
+
+        void capture(ConstraintWidgetContainer layout, int optimizationLevel,
+                     int widthMeasureSpec, int heightMeasureSpec) {
+            mValid = !layout.isWidthMeasuredTooSmall() && !layout.isHeightMeasuredTooSmall();
+            if (!mValid) {
+                return;
+            }
+            mOptimizationLevel = optimizationLevel;
+            mWidthMeasureSpec = widthMeasureSpec;
+            mHeightMeasureSpec = heightMeasureSpec;
+            mWidth = layout.getWidth();
+            mHeight = layout.getHeight();
+            ArrayList<ConstraintWidget> children = layout.getChildren();
+            final int count = children.size();
+            if (mViews.length != count) {
+                mViews = new Object[count];
+                mFrames = new int[count * 4];
+            }
+            for (int i = 0; i < count; i++) {
+                ConstraintWidget child = children.get(i);
+                mViews[i] = child.getCompanionWidget();
+                mFrames[i * 4] = child.getX();
+                mFrames[i * 4 + 1] = child.getY();
+                mFrames[i * 4 + 2] = child.getWidth();
+                mFrames[i * 4 + 3] = child.getHeight();
+            }
+        }
+
+        boolean applyTo(ConstraintWidgetContainer layout, int optimizationLevel,
+                        int widthMeasureSpec, int heightMeasureSpec) {
+            ArrayList<ConstraintWidget> children = layout.getChildren();
+            final int count = children.size();
+            if (!mValid || mOptimizationLevel != optimizationLevel
+                    || mWidthMeasureSpec != widthMeasureSpec
+                    || mHeightMeasureSpec != heightMeasureSpec || mViews.length != count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (children.get(i).getCompanionWidget() != mViews[i]) {
+                    return false;
+                }
+            }
+            layout.setWidth(mWidth);
+            layout.setHeight(mHeight);
+            for (int i = 0; i < count; i++) {
+                int x = mFrames[i * 4];
+                int y = mFrames[i * 4 + 1];
+                children.get(i).setFrame(x, y, x + mFrames[i * 4 + 2], y + mFrames[i * 4 + 3]);
+            }
+            return true;
+        }
+    }
+
     private Rect toRect(ConstraintWidget cw) {
         mTempRect.top = cw.getY();
         mTempRect.left = cw.getX();
@@ -2876,6 +3002,20 @@ public class MotionLayout extends ConstraintLayout implements
 
     Model mModel = new Model();
 
+    /**
+     * Keep the solved layouts of the start and end ConstraintSets, so that setting up
+     * a transition between states already laid out does not solve them again.
+     * The cache is dropped when views are added or removed, when a child requests a layout
+     * or when the scene is updated; a ConstraintSet modified in place must be applied
+     * with {@link #updateState()}.
+     *
+     * @param cache true to cache the solved layouts
+     */
+    public void setCacheSolvedLayouts(boolean cache) {
+        mModel.mCacheSolvedLayouts = cache;
+        mModel.mSolvedLayouts.clear();
+    }
+
     @Override
     public void requestLayout() {
         if (!(mMeasureDuringTransition)) {
@@ -2897,6 +3037,16 @@ public class MotionLayout extends ConstraintLayout implements
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mFrameStats == null) {
+            measureMotion(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        long start = getNanoTime();
+        measureMotion(widthMeasureSpec, heightMeasureSpec);
+        mFrameStats.addRelayout(getNanoTime() - start);
+    }
+
+    private void measureMotion(int widthMeasureSpec, int heightMeasureSpec) {
         if (DEBUG) {
             Log.v(TAG, "onMeasure " + Debug.getLocation());
         }
@@ -3459,10 +3609,17 @@ public class MotionLayout extends ConstraintLayout implements
                 decor.onPreDraw(canvas);
             }
         }
+        final MotionFrameStats stats = mFrameStats;
+        long start = stats == null ? 0 : getNanoTime();
         evaluate(false);
         if (mScene != null && mScene.mViewTransitionController != null) {
             mScene.mViewTransitionController.animate();
         }
+        if (stats != null) {
+            long now = getNanoTime();
+            stats.addPhaseTime(MotionFrameStats.PHASE_EVALUATE, now - start);
+            start = now;
+        }
         if (DEBUG) {
             Log.v(TAG, " dispatchDraw" + Debug.getLocation() + " " + Debug.getName(this)
                     + " " + Debug.getName(getContext(), mCurrentState));
@@ -3470,6 +3627,9 @@ public class MotionLayout extends ConstraintLayout implements
         }
         super.dispatchDraw(canvas);
         if (mScene == null) {
+            if (stats != null) {
+                stats.clear();
+            }
             return;
         }
         if (DEBUG) {
@@ -3514,6 +3674,41 @@ public class MotionLayout extends ConstraintLayout implements
                 decor.onPostDraw(canvas);
             }
         }
+        if (stats != null) {
+            long now = getNanoTime();
+            stats.addPhaseTime(MotionFrameStats.PHASE_DRAW, now - start);
+            stats.endFrame(this, mBeginState, mEndState, mTransitionLastPosition, now);
+        }
+    }
+
+    /**
+     * Interpolate all the children to the given position
+     *
+     * @return true if a child needs to keep animating
+     */
+    private boolean interpolateChildren(float interPos, long time) {
+        final MotionFrameStats stats = mFrameStats;
+        long start = stats == null ? 0 : getNanoTime();
+        int views = 0;
+        int customAttributes = 0;
+        boolean keepAnimating = false;
+        int n = getChildCount();
+        for (int i = 0; i < n; i++) {
+            final View child = getChildAt(i);
+            final MotionController frame = mFrameArrayList.get(child);
+            if (frame != null) {
+                keepAnimating |= frame.interpolate(child, interPos, time, mKeyCache);
+                if (stats != null) {
+                    views++;
+                    customAttributes += frame.getCustomAttributeCount();
+                }
+            }
+        }
+        if (stats != null) {
+            stats.addPhaseTime(MotionFrameStats.PHASE_INTERPOLATE, getNanoTime() - start);
+            stats.addInterpolated(views, customAttributes);
+        }
+        return keepAnimating;
     }
 
     /**
@@ -3552,16 +3747,9 @@ public class MotionLayout extends ConstraintLayout implements
             position = mTransitionGoalPosition;
         }
         mPostInterpolationPosition = position;
-        int n = getChildCount();
         long time = getNanoTime();
         float interPos = mProgressInterpolator == null ? position : mProgressInterpolator.getInterpolation(position);
-        for (int i = 0; i < n; i++) {
-            final View child = getChildAt(i);
-            final MotionController frame = mFrameArrayList.get(child);
-            if (frame != null) {
-                frame.interpolate(child, interPos, time, mKeyCache);
-            }
-        }
+        interpolateChildren(interPos, time);
         if (mMeasureDuringTransition) {
             requestLayout();
         }
@@ -3682,7 +3870,6 @@ public class MotionLayout extends ConstraintLayout implements
                 }
             }
 
-            int n = getChildCount();
             mKeepAnimating = false;
             long time = getNanoTime();
             if (DEBUG) {
@@ -3694,13 +3881,7 @@ public class MotionLayout extends ConstraintLayout implements
                 mLastVelocity = mProgressInterpolator.getInterpolation(position + dir / mTransitionDuration);
                 mLastVelocity -= mProgressInterpolator.getInterpolation(position);
             }
-            for (int i = 0; i < n; i++) {
-                final View child = getChildAt(i);
-                final MotionController frame = mFrameArrayList.get(child);
-                if (frame != null) {
-                    mKeepAnimating |= frame.interpolate(child, interPos, time, mKeyCache);
-                }
-            }
+            mKeepAnimating |= interpolateChildren(interPos, time);
             if (DEBUG) {
                 Log.v(TAG, " interpolate " + Debug.getLocation() + " " + Debug.getName(this)
                         + " " + Debug.getName(getContext(), mBeginState) + " " + position);
@@ -3874,6 +4055,7 @@ public class MotionLayout extends ConstraintLayout implements
     public void setScene(MotionScene scene) {
         mScene = scene;
         mScene.setRtl(isRtl());
+        mModel.mSolvedLayouts.clear();
         rebuildScene();
     }
 
@@ -4070,7 +4252,7 @@ public class MotionLayout extends ConstraintLayout implements
             TouchResponse touchResponse = currentTransition.getTouchResponse();
             if (touchResponse != null) {
                 if (event.getAction() == MotionEvent.ACTION_DOWN) {
-                    RectF region = touchResponse.getTouchRegion(this, new RectF());
+                    RectF region = touchResponse.getTouchRegion(this, mBoundsCheck);
                     if (region != null &&
                             (!region.contains(event.getX(), event.getY()))) {
                         return false;
@@ -4252,6 +4434,20 @@ public class MotionLayout extends ConstraintLayout implements
         return (long) (mTransitionDuration * 1000);
     }
 
+    /**
+     * Record the time spent on each animated frame, null to stop recording
+     *
+     * @param stats where the frames are recorded
+     * @see MotionFrameStats
+     */
+    public void setFrameStats(MotionFrameStats stats) {
+        mFrameStats = stats;
+    }
+
+    public MotionFrameStats getFrameStats() {
+        return mFrameStats;
+    }
+
     /**
      * Set a listener to be notified of drawer events.
      *
@@ -4448,6 +4644,7 @@ public class MotionLayout extends ConstraintLayout implements
     @Override
     public void onViewAdded(View view) {
         super.onViewAdded(view);
+        mModel.mSolvedLayouts.clear();
         if (view instanceof MotionHelper) {
             MotionHelper helper = (MotionHelper) view;
             if (mTransitionListeners == null) {
@@ -4482,6 +4679,7 @@ public class MotionLayout extends ConstraintLayout implements
     @Override
     public void onViewRemoved(View view) {
         super.onViewRemoved(view);
+        mModel.mSolvedLayouts.clear();
         if (mOnShowHelpers != null) {
             mOnShowHelpers.remove(view);
         }
@@ -4640,6 +4838,7 @@ public class MotionLayout extends ConstraintLayout implements
      * @hide
      */
     public void updateState() {
+        mModel.mSolvedLayouts.clear();
         mModel.initFrom(mLayoutWidget, mScene.getConstraintSet(mBeginState), mScene.getConstraintSet(mEndState));
         rebuildScene();
     }
@@ -17,6 +17,7 @@
 package androidx.constraintlayout.motion.widget;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
@@ -39,6 +40,7 @@ import android.view.animation.Interpolator;
 import android.view.animation.OvershootInterpolator;
 
 import androidx.constraintlayout.core.motion.utils.Easing;
+import androidx.constraintlayout.widget.ConstraintAttribute;
 import androidx.constraintlayout.widget.ConstraintSet;
 import androidx.constraintlayout.widget.R;
 import androidx.constraintlayout.widget.StateSet;
@@ -48,7 +50,10 @@ import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -71,10 +76,22 @@ public class MotionScene {
     Transition mCurrentTransition = null;
     private boolean mDisableAutoTransition = false;
     private ArrayList<Transition> mTransitionList = new ArrayList<>();
+    // transitions starting or ending at a state, all of them, the ones with an OnSwipe and
+    // the ones with an autoTransition. Null when the transitions changed since they were built
+    private SparseArray<List<Transition>> mTransitionsByState = null;
+    private SparseArray<List<Transition>> mSwipeTransitionsByState = null;
+    private SparseArray<List<Transition>> mAutoTransitionsByState = null;
+    private final RectF mTouchRegion = new RectF();
     private Transition mDefaultTransition = null;
     private ArrayList<Transition> mAbstractTransitionList = new ArrayList<>();
 
     private SparseArray<ConstraintSet> mConstraintSetMap = new SparseArray<>();
+    // ConstraintSets as parsed from their resource, shared by all the scenes of the process.
+    // They are never modified, each scene works on its own copy. Access ordered so the least
+    // recently used resource is evicted first; sets referencing the theme are not cached.
+    private static final int MAX_PARSED_RESOURCES = 16;
+    private static final LinkedHashMap<ParsedResource, SparseArray<ConstraintSet>> sParsedConstraintSets =
+            new LinkedHashMap<>(16, 0.75f, true);
     private HashMap<String, Integer> mConstraintSetIdMap = new HashMap<>();
     private SparseIntArray mDeriveMap = new SparseIntArray();
     private boolean DEBUG_DESKTOP = false;
@@ -161,6 +178,7 @@ public class MotionScene {
         t.mConstraintSetEnd = end;
         if (start != UNSET) {
             mTransitionList.add(t);
+            invalidateTransitionIndex();
         }
         mCurrentTransition = t;
     }
@@ -178,6 +196,7 @@ public class MotionScene {
         } else {
             mTransitionList.set(index, transition);
         }
+        invalidateTransitionIndex();
     }
 
     /**
@@ -190,6 +209,7 @@ public class MotionScene {
         int index = getIndex(transition);
         if (index != -1) {
             mTransitionList.remove(index);
+            invalidateTransitionIndex();
         }
     }
 
@@ -243,16 +263,67 @@ public class MotionScene {
         return stateId;
     }
 
+    /**
+     * Get the transitions starting or ending at a state
+     *
+     * @param stateId
+     * @return an unmodifiable list, in the order the transitions were defined
+     */
     public List<Transition> getTransitionsWithState(int stateId) {
         stateId = getRealID(stateId);
-        ArrayList<Transition> ret = new ArrayList<>();
+        indexTransitions();
+        return mTransitionsByState.get(stateId, Collections.<Transition>emptyList());
+    }
+
+    void invalidateTransitionIndex() {
+        mTransitionsByState = null;
+    }
+
+    /**
+     * Build the indices of the transitions by state if the transitions changed
+     */
+    private void indexTransitions() {
+        if (mTransitionsByState != null) {
+            return;
+        }
+        SparseArray<List<Transition>> all = new SparseArray<>();
+        SparseArray<List<Transition>> swipe = new SparseArray<>();
+        SparseArray<List<Transition>> auto = new SparseArray<>();
         for (Transition transition : mTransitionList) {
-            if (transition.mConstraintSetStart == stateId || transition.mConstraintSetEnd == stateId) {
-                ret.add(transition);
+            addToIndex(all, transition.mConstraintSetStart, transition);
+            if (transition.mTouchResponse != null) {
+                addToIndex(swipe, transition.mConstraintSetStart, transition);
+            }
+            if (transition.mAutoTransition != Transition.AUTO_NONE) {
+                addToIndex(auto, transition.mConstraintSetStart, transition);
+            }
+            if (transition.mConstraintSetEnd == transition.mConstraintSetStart) {
+                continue;
+            }
+            addToIndex(all, transition.mConstraintSetEnd, transition);
+            if (transition.mTouchResponse != null) {
+                addToIndex(swipe, transition.mConstraintSetEnd, transition);
             }
+            if (transition.mAutoTransition != Transition.AUTO_NONE) {
+                addToIndex(auto, transition.mConstraintSetEnd, transition);
+            }
+        }
+        for (int i = 0; i < all.size(); i++) {
+            all.setValueAt(i, Collections.unmodifiableList(all.valueAt(i)));
+        }
+        mSwipeTransitionsByState = swipe;
+        mAutoTransitionsByState = auto;
+        mTransitionsByState = all;
+    }
 
+    private static void addToIndex(SparseArray<List<Transition>> index, int stateId,
+                                   Transition transition) {
+        List<Transition> list = index.get(stateId);
+        if (list == null) {
+            list = new ArrayList<>();
+            index.put(stateId, list);
         }
-        return ret;
+        list.add(transition);
     }
 
     public void addOnClickListeners(MotionLayout motionLayout, int currentState) {
@@ -291,11 +362,17 @@ public class MotionScene {
     public Transition bestTransitionFor(int currentState, float dx, float dy, MotionEvent lastTouchDown) {
         List<Transition> candidates = null;
         if (currentState != -1) {
-            candidates = getTransitionsWithState(currentState);
+            indexTransitions();
+            candidates = mSwipeTransitionsByState.get(getRealID(currentState));
+            if (candidates == null) {
+                return null;
+            }
             float max = 0;
             Transition best = null;
-            RectF cache = new RectF();
-            for (Transition transition : candidates) {
+            RectF cache = mTouchRegion;
+            final int count = candidates.size();
+            for (int i = 0; i < count; i++) {
+                Transition transition = candidates.get(i);
                 if (transition.mDisable) {
                     continue;
                 }
@@ -346,6 +423,8 @@ public class MotionScene {
     }
 
     public ArrayList<Transition> getDefinedTransitions() {
+        // the list can be modified by the caller
+        invalidateTransitionIndex();
         return mTransitionList;
     }
 
@@ -383,7 +462,14 @@ public class MotionScene {
             return false;
         }
 
-        for (Transition transition : mTransitionList) {
+        indexTransitions();
+        List<Transition> transitions = mAutoTransitionsByState.get(currentState);
+        if (transitions == null) {
+            return false;
+        }
+        final int count = transitions.size();
+        for (int i = 0; i < count; i++) {
+            Transition transition = transitions.get(i);
             if (transition.mAutoTransition == Transition.AUTO_NONE) {
                 continue;
             }
@@ -498,6 +584,7 @@ public class MotionScene {
 
         public void setOnSwipe(OnSwipe onSwipe) {
             mTouchResponse = (onSwipe == null) ? null : new TouchResponse(mMotionScene.mMotionLayout, onSwipe);
+            mMotionScene.invalidateTransitionIndex();
         }
 
         public void addOnClick(int id, int action) {
@@ -545,6 +632,7 @@ public class MotionScene {
          */
         public void setAutoTransition(int type) {
             mAutoTransition = type;
+            mMotionScene.invalidateTransitionIndex();
         }
 
         /**
@@ -1060,6 +1148,7 @@ public class MotionScene {
                                 break;
                             case TRANSITION_TAG:
                                 mTransitionList.add(transition = new Transition(this, context, parser));
+                                invalidateTransitionIndex();
                                 if (mCurrentTransition == null && !transition.mIsAbstract) {
                                     mCurrentTransition = transition;
                                     if (mCurrentTransition != null && mCurrentTransition.mTouchResponse != null) {
@@ -1083,6 +1172,7 @@ public class MotionScene {
                                 }
                                 if (transition != null) {
                                     transition.mTouchResponse = new TouchResponse(context, mMotionLayout, parser);
+                                    invalidateTransitionIndex();
                                 }
                                 break;
                             case ONCLICK_TAG:
@@ -1094,7 +1184,7 @@ public class MotionScene {
                                 mStateSet = new StateSet(context, parser);
                                 break;
                             case CONSTRAINTSET_TAG:
-                                parseConstraintSet(context, parser);
+                                parseConstraintSet(context, parser, resourceId);
                                 break;
                             case INCLUDE_TAG:
                             case INCLUDE_TAG_UC:
@@ -1198,7 +1288,7 @@ public class MotionScene {
                 String tagName = includeParser.getName();
                 if (XmlResourceParser.START_TAG == eventType
                         && CONSTRAINTSET_TAG.equals(tagName)) {
-                    return parseConstraintSet(context, includeParser);
+                    return parseConstraintSet(context, includeParser, resourceId);
                 }
             }
         } catch (XmlPullParserException e) {
@@ -1215,12 +1305,14 @@ public class MotionScene {
         return UNSET;
     }
 
-    private int parseConstraintSet(Context context, XmlPullParser parser) {
+    private int parseConstraintSet(Context context, XmlPullParser parser, int resourceId)
+            throws XmlPullParserException, IOException {
         ConstraintSet set = new ConstraintSet();
         set.setForceId(false);
         int count = parser.getAttributeCount();
         int id = UNSET;
         int derivedId = UNSET;
+        String idValue = null;
         for (int i = 0; i < count; i++) {
             String name = parser.getAttributeName(i);
             String value = parser.getAttributeValue(i);
@@ -1229,6 +1321,7 @@ public class MotionScene {
             }
             switch (name) {
                 case "id":
+                    idValue = value;
                     id = getId(context, value);
                     mConstraintSetIdMap.put(stripID(value), id);
                     set.mIdString = Debug.getName(context, id);
@@ -1244,8 +1337,39 @@ public class MotionScene {
         if (id != UNSET) {
             if (mMotionLayout.mDebugPath != 0) {
                 set.setValidateOnParse(true);
+                set.load(context, parser);
+            } else {
+                ParsedResource key = new ParsedResource(context, resourceId);
+                ConstraintSet parsed;
+                synchronized (sParsedConstraintSets) {
+                    SparseArray<ConstraintSet> sets = sParsedConstraintSets.get(key);
+                    parsed = sets == null ? null : sets.get(id);
+                }
+                if (parsed != null) {
+                    copyConstraints(parsed, set);
+                    skipTag(parser);
+                } else {
+                    set.load(context, parser);
+                    if (!usesTheme(context, resourceId, idValue)) {
+                        parsed = new ConstraintSet();
+                        copyConstraints(set, parsed);
+                        synchronized (sParsedConstraintSets) {
+                            SparseArray<ConstraintSet> sets = sParsedConstraintSets.get(key);
+                            if (sets == null) {
+                                sets = new SparseArray<>();
+                                sParsedConstraintSets.put(key, sets);
+                                if (sParsedConstraintSets.size() > MAX_PARSED_RESOURCES) {
+                                    Iterator<ParsedResource> eldest =
+                                            sParsedConstraintSets.keySet().iterator();
+                                    eldest.next();
+                                    eldest.remove();
+                                }
+                            }
+                            sets.put(id, parsed);
+                        }
+                    }
+                }
             }
-            set.load(context, parser);
             if (derivedId != UNSET) {
                 mDeriveMap.put(id, derivedId);
             }
@@ -1254,6 +1378,122 @@ public class MotionScene {
         return id;
     }
 
+    /**
+     * Deep copy the constraints of a set, including their custom attributes
+     */
+    private static void copyConstraints(ConstraintSet src, ConstraintSet dest) {
+        dest.clone(src);
+        for (int id : src.getKnownIds()) {
+            HashMap<String, ConstraintAttribute> custom = src.getConstraint(id).mCustomConstraints;
+            HashMap<String, ConstraintAttribute> copy = dest.getConstraint(id).mCustomConstraints;
+            for (Map.Entry<String, ConstraintAttribute> entry : custom.entrySet()) {
+                copy.put(entry.getKey(), new ConstraintAttribute(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Check if the ConstraintSet with the given id in a resource references theme attributes
+     * or styles, in which case it depends on the theme and not only on the configuration
+     */
+    private static boolean usesTheme(Context context, int resourceId, String idValue) {
+        XmlResourceParser parser = context.getResources().getXml(resourceId);
+        try {
+            int depth = 0;
+            for (int eventType = parser.getEventType();
+                 eventType != XmlResourceParser.END_DOCUMENT;
+                 eventType = parser.next()) {
+                if (eventType == XmlResourceParser.END_TAG) {
+                    if (depth > 0 && --depth == 0) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (eventType != XmlResourceParser.START_TAG) {
+                    continue;
+                }
+                final int count = parser.getAttributeCount();
+                if (depth == 0) {
+                    if (!CONSTRAINTSET_TAG.equals(parser.getName())) {
+                        continue;
+                    }
+                    boolean found = false;
+                    for (int i = 0; i < count; i++) {
+                        if ("id".equals(parser.getAttributeName(i))
+                                && idValue.equals(parser.getAttributeValue(i))) {
+                            found = true;
+                        }
+                    }
+                    if (!found) {
+                        continue;
+                    }
+                }
+                depth++;
+                for (int i = 0; i < count; i++) {
+                    String value = parser.getAttributeValue(i);
+                    if ((value != null && value.startsWith("?"))
+                            || "style".equals(parser.getAttributeName(i))) {
+                        return true;
+                    }
+                }
+            }
+        } catch (XmlPullParserException e) {
+            return true;
+        } catch (IOException e) {
+            return true;
+        } finally {
+            parser.close();
+        }
+        return true;
+    }
+
+    /**
+     * Move the parser from a start tag to its end tag
+     */
+    private static void skipTag(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    return;
+            }
+        }
+    }
+
+    /**
+     * A scene or include resource, in a given configuration
+     */
+    private static class ParsedResource {
+        final int mResourceId;
+        final Configuration mConfiguration;
+
+        ParsedResource(Context context, int resourceId) {
+            mResourceId = resourceId;
+            // copied, the configuration of the resources changes with them
+            mConfiguration = new Configuration(context.getResources().getConfiguration());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParsedResource)) {
+                return false;
+            }
+            ParsedResource other = (ParsedResource) o;
+            return mResourceId == other.mResourceId && mConfiguration.equals(other.mConfiguration);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mResourceId + mConfiguration.hashCode();
+        }
+    }
+
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
     }
 
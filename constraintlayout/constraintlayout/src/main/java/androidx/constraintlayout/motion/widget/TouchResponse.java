@@ -48,6 +48,9 @@ class TouchResponse {
     private int mTouchAnchorId = MotionScene.UNSET;
     private int mTouchRegionId = MotionScene.UNSET;
     private int mLimitBoundsTo = MotionScene.UNSET;
+    // the views last found for mTouchRegionId and mLimitBoundsTo
+    private View mTouchRegionView;
+    private View mLimitBoundsToView;
     private float mTouchAnchorY = 0.5f;
     private float mTouchAnchorX = 0.5f;
     float mRotateCenterX = 0.5f;
@@ -781,7 +784,7 @@ class TouchResponse {
         if (mTouchRegionId == MotionScene.UNSET) {
             return null;
         }
-        View view = layout.findViewById(mTouchRegionId);
+        View view = mTouchRegionView = findView(layout, mTouchRegionId, mTouchRegionView);
         if (view == null) {
             return null;
         }
@@ -805,7 +808,7 @@ class TouchResponse {
         if (mLimitBoundsTo == MotionScene.UNSET) {
             return null;
         }
-        View view = layout.findViewById(mLimitBoundsTo);
+        View view = mLimitBoundsToView = findView(layout, mLimitBoundsTo, mLimitBoundsToView);
         if (view == null) {
             return null;
         }
@@ -817,6 +820,17 @@ class TouchResponse {
         return mLimitBoundsTo;
     }
 
+    /**
+     * Reuse the view found previously while it is still a child of the layout with that id,
+     * instead of searching the hierarchy on every touch
+     */
+    private static View findView(ViewGroup layout, int id, View cached) {
+        if (cached != null && cached.getId() == id && cached.getParent() == layout) {
+            return cached;
+        }
+        return layout.findViewById(id);
+    }
+
     float dot(float dx, float dy) {
         return dx * mTouchDirectionX + dy * mTouchDirectionY;
     }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.utils.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.os.Build;
+import android.widget.ImageView;
+
+/**
+ * Keeps the two layers of an ImageFilterView or ImageFilterButton rendered in bitmaps, with
+ * their color filter, image matrix and rounded corners applied, so that drawing a crossfade is
+ * two bitmap draws. The bitmaps of all the views share a fixed memory budget, views that
+ * do not fit in it draw normally.
+ */
+class CrossfadeCache {
+    private static final int MAX_CACHED_BYTES = 16 * 1024 * 1024;
+    private static int sCachedBytes = 0;
+
+    private final Bitmap[] mBitmaps = new Bitmap[2];
+    private int mBytes = 0;
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix mImageMatrix = new Matrix();
+    private final RectF mRect = new RectF();
+    private Path mClip;
+    // what the bitmaps were rendered from
+    private LayerDrawable mLayer;
+    private ColorFilter mColorFilter;
+    private int mWidth;
+    private int mHeight;
+    private float mRadius;
+
+    /**
+     * Called when the color filter of the view changes
+     */
+    void setColorFilter(ColorFilter colorFilter) {
+        if (colorFilter != mColorFilter) {
+            mColorFilter = colorFilter;
+            invalidate();
+        }
+    }
+
+    /**
+     * Drop the bitmaps, they will be rendered again on the next draw
+     */
+    void invalidate() {
+        mBitmaps[0] = null;
+        mBitmaps[1] = null;
+        mLayer = null;
+        release(mBytes);
+        mBytes = 0;
+    }
+
+    /**
+     * Draw the crossfade from the bitmaps, rendering them first if needed
+     *
+     * @return false if the view has to draw the layers itself
+     */
+    boolean draw(ImageView view, LayerDrawable layer, Canvas canvas, float crossfade,
+                 boolean overlay, float radius) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        boolean hardware = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+        if (hardware && !canvas.isHardwareAccelerated()) {
+            // hardware bitmaps cannot be drawn in a software canvas
+            return false;
+        }
+        if (mLayer != layer || mWidth != width || mHeight != height || mRadius != radius
+                || !mImageMatrix.equals(view.getImageMatrix())) {
+            invalidate();
+            int bytes = width * height * 4 * 2;
+            if (!reserve(bytes)) {
+                return false;
+            }
+            mBytes = bytes;
+            mLayer = layer;
+            mWidth = width;
+            mHeight = height;
+            mRadius = radius;
+            mImageMatrix.set(view.getImageMatrix());
+            render(view, layer, crossfade, overlay, hardware);
+        }
+        int alpha = (int) (255 * crossfade);
+        mPaint.setAlpha(overlay ? 255 : 255 - alpha);
+        canvas.drawBitmap(mBitmaps[0], 0, 0, mPaint);
+        mPaint.setAlpha(alpha);
+        canvas.drawBitmap(mBitmaps[1], 0, 0, mPaint);
+        return true;
+    }
+
+    private void render(ImageView view, LayerDrawable layer, float crossfade, boolean overlay,
+                        boolean hardware) {
+        Drawable.Callback callback = layer.getCallback();
+        Drawable first = layer.getDrawable(0);
+        Drawable second = layer.getDrawable(1);
+        int secondAlpha = (int) (255 * crossfade);
+        int firstAlpha = overlay ? 255 : (int) (255 * (1 - crossfade));
+        // changing the alpha of the layers must not invalidate the view while it draws
+        layer.setCallback(null);
+        first.setAlpha(255);
+        second.setAlpha(0);
+        mBitmaps[0] = render(view, layer, hardware);
+        first.setAlpha(0);
+        second.setAlpha(255);
+        mBitmaps[1] = render(view, layer, hardware);
+        first.setAlpha(firstAlpha);
+        second.setAlpha(secondAlpha);
+        layer.setCallback(callback);
+    }
+
+    private Bitmap render(ImageView view, LayerDrawable layer, boolean hardware) {
+        Bitmap bitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        if (mRadius > 0) {
+            if (mClip == null) {
+                mClip = new Path();
+            }
+            mRect.set(0, 0, mWidth, mHeight);
+            mClip.reset();
+            mClip.addRoundRect(mRect, mRadius, mRadius, Path.Direction.CW);
+            canvas.clipPath(mClip);
+        }
+        // same as ImageView.onDraw
+        int left = view.getPaddingLeft();
+        int top = view.getPaddingTop();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && view.getCropToPadding()) {
+            canvas.clipRect(left, top, mWidth - view.getPaddingRight(),
+                    mHeight - view.getPaddingBottom());
+        }
+        canvas.translate(left, top);
+        canvas.concat(mImageMatrix);
+        layer.draw(canvas);
+        if (hardware && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Bitmap copy = bitmap.copy(Bitmap.Config.HARDWARE, false);
+            if (copy != null) {
+                bitmap.recycle();
+                return copy;
+            }
+        }
+        return bitmap;
+    }
+
+    private static synchronized boolean reserve(int bytes) {
+        if (sCachedBytes + bytes > MAX_CACHED_BYTES) {
+            return false;
+        }
+        sCachedBytes += bytes;
+        return true;
+    }
+
+    private static synchronized void release(int bytes) {
+        sCachedBytes -= bytes;
+    }
+}
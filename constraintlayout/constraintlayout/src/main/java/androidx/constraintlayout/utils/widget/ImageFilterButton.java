@@ -18,6 +18,7 @@ package androidx.constraintlayout.utils.widget;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.ColorFilter;
 import android.graphics.Matrix;
 import android.graphics.Outline;
 import android.graphics.Path;
@@ -94,6 +95,7 @@ public class ImageFilterButton extends androidx.appcompat.widget.AppCompatImageB
 
     Drawable[] mLayers = new Drawable[2];
     LayerDrawable mLayer;
+    private CrossfadeCache mCrossfadeCache;
     private boolean mOverlay = true;
     private Drawable mAltDrawable = null;
     private Drawable mDrawable = null;
@@ -382,6 +384,18 @@ public class ImageFilterButton extends androidx.appcompat.widget.AppCompatImageB
         mImageMatrix.updateMatrix(this);
     }
 
+    /**
+     * Round saturation, contrast, warmth and brightness to a multiple of a step before computing
+     * the color filter, so that animating them reuses the same filters. Filters are only
+     * cached and shared between views when a step is set.
+     * Takes effect the next time one of them is set.
+     *
+     * @param step for example 0.01, 0 (the default) to use the exact values
+     */
+    public void setFilterQuantization(float step) {
+        mImageMatrix.mQuantization = step;
+    }
+
     /**
      * Returns the currently applied saturation
      *
@@ -446,6 +460,28 @@ public class ImageFilterButton extends androidx.appcompat.widget.AppCompatImageB
         }
     }
 
+    /**
+     * Keep both images rendered in bitmaps, with their color filter, pan, zoom, rotation and
+     * rounded corners applied, so that changing the crossfade only blends two bitmaps.
+     * Useful to animate the crossfade of large static images. The bitmaps are rendered again
+     * when anything but the crossfade changes and share a fixed memory budget with the other
+     * views; views that do not fit in it are drawn normally.
+     *
+     * @param enable true to cache the images, false by default
+     */
+    public void setCrossfadeCacheEnabled(boolean enable) {
+        if (enable == (mCrossfadeCache != null)) {
+            return;
+        }
+        if (enable) {
+            mCrossfadeCache = new CrossfadeCache();
+        } else {
+            mCrossfadeCache.invalidate();
+            mCrossfadeCache = null;
+        }
+        invalidate();
+    }
+
     /**
      * Returns the currently applied crossfade.
      *
@@ -593,6 +629,42 @@ public class ImageFilterButton extends androidx.appcompat.widget.AppCompatImageB
         return mRound;
     }
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mCrossfadeCache != null && mLayer != null && getDrawable() == mLayer) {
+            float radius = Float.isNaN(mRound)
+                    ? Math.min(getWidth(), getHeight()) * mRoundPercent / 2 : mRound;
+            if (mCrossfadeCache.draw(this, mLayer, canvas, mCrossfade, mOverlay, radius)) {
+                return;
+            }
+        }
+        super.onDraw(canvas);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+        super.setColorFilter(cf);
+        if (mCrossfadeCache != null) {
+            mCrossfadeCache.setColorFilter(cf);
+        }
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (mCrossfadeCache != null && mLayer != null && mLayer.isStateful()) {
+            mCrossfadeCache.invalidate();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mCrossfadeCache != null) {
+            mCrossfadeCache.invalidate();
+        }
+    }
+
     @Override
     public void draw(Canvas canvas) {
         boolean clip = false;
@@ -18,7 +18,7 @@ package androidx.constraintlayout.utils.widget;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.ColorMatrix;
+import android.graphics.ColorFilter;
 import android.graphics.ColorMatrixColorFilter;
 import android.graphics.Matrix;
 import android.graphics.Outline;
@@ -36,6 +36,9 @@ import androidx.annotation.RequiresApi;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.constraintlayout.widget.R;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
 /**
  * An ImageView that can display, combine and filter images. <b>Added in 2.0</b>
  * <p>
@@ -87,13 +90,73 @@ import androidx.constraintlayout.widget.R;
  */
 public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageView {
     static class ImageMatrix {
+        private static final int MAX_CACHED_FILTERS = 64;
+        // filters shared by all the views, most recently used last
+        private static final FilterCache sFilters = new FilterCache();
         float[] m = new float[4 * 5];
-        ColorMatrix mColorMatrix = new ColorMatrix();
-        ColorMatrix mTmpColorMatrix = new ColorMatrix();
+        float[] mWarmthScale = new float[3];
         float mBrightness = 1;
         float mSaturation = 1;
         float mContrast = 1;
         float mWarmth = 1;
+        float mQuantization = 0;
+
+        static class FilterKey {
+            float mSaturation;
+            float mContrast;
+            float mWarmth;
+            float mBrightness;
+
+            FilterKey set(float saturation, float contrast, float warmth, float brightness) {
+                mSaturation = saturation;
+                mContrast = contrast;
+                mWarmth = warmth;
+                mBrightness = brightness;
+                return this;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof FilterKey)) {
+                    return false;
+                }
+                FilterKey key = (FilterKey) o;
+                return Float.compare(mSaturation, key.mSaturation) == 0
+                        && Float.compare(mContrast, key.mContrast) == 0
+                        && Float.compare(mWarmth, key.mWarmth) == 0
+                        && Float.compare(mBrightness, key.mBrightness) == 0;
+            }
+
+            @Override
+            public int hashCode() {
+                int hash = Float.floatToIntBits(mSaturation);
+                hash = 31 * hash + Float.floatToIntBits(mContrast);
+                hash = 31 * hash + Float.floatToIntBits(mWarmth);
+                return 31 * hash + Float.floatToIntBits(mBrightness);
+            }
+        }
+
+        static class FilterCache {
+            final FilterKey mLookup = new FilterKey();
+            // access ordered so the least recently used filter is evicted first
+            private final LinkedHashMap<FilterKey, ColorMatrixColorFilter> mFilters =
+                    new LinkedHashMap<>(MAX_CACHED_FILTERS, 0.75f, true);
+
+            ColorMatrixColorFilter get(float saturation, float contrast, float warmth,
+                                       float brightness) {
+                return mFilters.get(mLookup.set(saturation, contrast, warmth, brightness));
+            }
+
+            void put(float saturation, float contrast, float warmth, float brightness,
+                     ColorMatrixColorFilter filter) {
+                mFilters.put(new FilterKey().set(saturation, contrast, warmth, brightness), filter);
+                if (mFilters.size() > MAX_CACHED_FILTERS) {
+                    Iterator<FilterKey> eldest = mFilters.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
 
         private void saturation(float saturationStrength) {
             float Rf = 0.2999f;
@@ -195,92 +258,74 @@ public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageVie
                 tmpColor_b = Math.min(255, Math.max(colorB, 0));
             }
 
-            color_r /= tmpColor_r;
-            color_g /= tmpColor_g;
-            color_b /= tmpColor_b;
-            m[0] = color_r;
-            m[1] = 0;
-            m[2] = 0;
-            m[3] = 0;
-            m[4] = 0;
-
-            m[5] = 0;
-            m[6] = color_g;
-            m[7] = 0;
-            m[8] = 0;
-            m[9] = 0;
-
-            m[10] = 0;
-            m[11] = 0;
-            m[12] = color_b;
-            m[13] = 0;
-            m[14] = 0;
-
-            m[15] = 0;
-            m[16] = 0;
-            m[17] = 0;
-            m[18] = 1;
-            m[19] = 0;
+            mWarmthScale[0] = color_r / tmpColor_r;
+            mWarmthScale[1] = color_g / tmpColor_g;
+            mWarmthScale[2] = color_b / tmpColor_b;
         }
 
-        private void brightness(float brightness) {
-
-            m[0] = brightness;
-            m[1] = 0;
-            m[2] = 0;
-            m[3] = 0;
-            m[4] = 0;
-
-            m[5] = 0;
-            m[6] = brightness;
-            m[7] = 0;
-            m[8] = 0;
-            m[9] = 0;
-
-            m[10] = 0;
-            m[11] = 0;
-            m[12] = brightness;
-            m[13] = 0;
-            m[14] = 0;
-
-            m[15] = 0;
-            m[16] = 0;
-            m[17] = 0;
-            m[18] = 1;
-            m[19] = 0;
+        private float quantize(float value) {
+            if (mQuantization <= 0) {
+                return value;
+            }
+            return Math.round(value / mQuantization) * mQuantization;
         }
 
         void updateMatrix(ImageView view) {
-            mColorMatrix.reset();
-            boolean filter = false;
-            if (mSaturation != 1.0f) {
-                saturation(mSaturation);
-                mColorMatrix.set(m);
-                filter = true;
+            float saturation = quantize(mSaturation);
+            float contrast = quantize(mContrast);
+            float warmth = quantize(mWarmth);
+            float brightness = quantize(mBrightness);
+            if (saturation == 1.0f && contrast == 1.0f && warmth == 1.0f && brightness == 1.0f) {
+                view.clearColorFilter();
+                return;
             }
-            if (mContrast != 1.0f) {
-                mTmpColorMatrix.setScale(mContrast, mContrast, mContrast, 1);
-                mColorMatrix.postConcat(mTmpColorMatrix);
-                filter = true;
+            if (mQuantization <= 0) {
+                // exact values are unlikely to repeat, do not fill the cache with them
+                view.setColorFilter(new ColorMatrixColorFilter(
+                        computeMatrix(saturation, contrast, warmth, brightness)));
+                return;
             }
-            if (mWarmth != 1.0f) {
-                warmth(mWarmth);
-                mTmpColorMatrix.set(m);
-                mColorMatrix.postConcat(mTmpColorMatrix);
-                filter = true;
+            ColorMatrixColorFilter filter;
+            synchronized (sFilters) {
+                filter = sFilters.get(saturation, contrast, warmth, brightness);
             }
-            if (mBrightness != 1.0f) {
-                brightness(mBrightness);
-                mTmpColorMatrix.set(m);
-                mColorMatrix.postConcat(mTmpColorMatrix);
-                filter = true;
+            if (filter == null) {
+                filter = new ColorMatrixColorFilter(computeMatrix(saturation, contrast, warmth, brightness));
+                synchronized (sFilters) {
+                    sFilters.put(saturation, contrast, warmth, brightness, filter);
+                }
             }
+            view.setColorFilter(filter);
+        }
 
-            if (filter) {
-                view.setColorFilter(new ColorMatrixColorFilter(mColorMatrix));
+        /**
+         * Computes saturation, then contrast, warmth and brightness into m.
+         * The last three only scale the red, green and blue rows so they are applied directly
+         * instead of multiplying full color matrices.
+         */
+        float[] computeMatrix(float saturation, float contrast, float warmth, float brightness) {
+            if (saturation != 1.0f) {
+                saturation(saturation);
             } else {
-                view.clearColorFilter();
+                for (int i = 0; i < m.length; i++) {
+                    m[i] = (i % 6 == 0) ? 1 : 0;
+                }
+            }
+            float r = contrast * brightness;
+            float g = r;
+            float b = r;
+            if (warmth != 1.0f) {
+                warmth(warmth);
+                r *= mWarmthScale[0];
+                g *= mWarmthScale[1];
+                b *= mWarmthScale[2];
             }
+            for (int i = 0; i < 5; i++) {
+                m[i] *= r;
+                m[5 + i] *= g;
+                m[10 + i] *= b;
+            }
+            return m;
         }
     }
 
@@ -297,6 +342,7 @@ public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageVie
 
     Drawable[] mLayers = new Drawable[2];
     LayerDrawable mLayer;
+    private CrossfadeCache mCrossfadeCache;
 
     // ======================== support for pan/zoom/rotate =================
     // defined as 0 = center of screen
@@ -578,6 +624,18 @@ public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageVie
         mImageMatrix.updateMatrix(this);
     }
 
+    /**
+     * Round saturation, contrast, warmth and brightness to a multiple of a step before computing
+     * the color filter, so that animating them reuses the same filters. Filters are only
+     * cached and shared between views when a step is set.
+     * Takes effect the next time one of them is set.
+     *
+     * @param step for example 0.01, 0 (the default) to use the exact values
+     */
+    public void setFilterQuantization(float step) {
+        mImageMatrix.mQuantization = step;
+    }
+
     /**
      * Returns the currently applied saturation
      *
@@ -641,6 +699,28 @@ public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageVie
         }
     }
 
+    /**
+     * Keep both images rendered in bitmaps, with their color filter, pan, zoom, rotation and
+     * rounded corners applied, so that changing the crossfade only blends two bitmaps.
+     * Useful to animate the crossfade of large static images. The bitmaps are rendered again
+     * when anything but the crossfade changes and share a fixed memory budget with the other
+     * views; views that do not fit in it are drawn normally.
+     *
+     * @param enable true to cache the images, false by default
+     */
+    public void setCrossfadeCacheEnabled(boolean enable) {
+        if (enable == (mCrossfadeCache != null)) {
+            return;
+        }
+        if (enable) {
+            mCrossfadeCache = new CrossfadeCache();
+        } else {
+            mCrossfadeCache.invalidate();
+            mCrossfadeCache = null;
+        }
+        invalidate();
+    }
+
     /**
      * Returns the currently applied crossfade.
      *
@@ -797,6 +877,42 @@ public class ImageFilterView extends androidx.appcompat.widget.AppCompatImageVie
         return mRound;
     }
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mCrossfadeCache != null && mLayer != null && getDrawable() == mLayer) {
+            float radius = Float.isNaN(mRound)
+                    ? Math.min(getWidth(), getHeight()) * mRoundPercent / 2 : mRound;
+            if (mCrossfadeCache.draw(this, mLayer, canvas, mCrossfade, mOverlay, radius)) {
+                return;
+            }
+        }
+        super.onDraw(canvas);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+        super.setColorFilter(cf);
+        if (mCrossfadeCache != null) {
+            mCrossfadeCache.setColorFilter(cf);
+        }
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (mCrossfadeCache != null && mLayer != null && mLayer.isStateful()) {
+            mCrossfadeCache.invalidate();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mCrossfadeCache != null) {
+            mCrossfadeCache.invalidate();
+        }
+    }
+
     @Override
     public void draw(Canvas canvas) {
         boolean clip = false;
@@ -36,7 +36,6 @@ import android.os.Build;
 import android.text.Layout;
 import android.text.TextPaint;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
@@ -44,11 +43,13 @@ import android.view.ViewOutlineProvider;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
-import androidx.constraintlayout.motion.widget.Debug;
 import androidx.constraintlayout.motion.widget.FloatLayout;
 import androidx.constraintlayout.widget.R;
 import androidx.core.widget.TextViewCompat;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * This class is designed to create complex animated single line text in MotionLayout.
  * Its API are designed with animation in mine.
@@ -99,7 +100,6 @@ public class MotionLabel extends View implements FloatLayout {
     private float mDeltaLeft;
     private float mFloatWidth, mFloatHeight;
     private Drawable mTextBackground;
-    Matrix mOutlinePositionMatrix;
     private Bitmap mTextBackgroundBitmap;
     private BitmapShader mTextShader;
     private Matrix mTextShaderMatrix;
@@ -109,6 +109,51 @@ public class MotionLabel extends View implements FloatLayout {
     private float mTextPanY = 0;
     Paint paintCache = new Paint();
     private int mTextureEffect = 0;
+    // what mPath and mTextBounds were built from
+    private String mShapeText;
+    private Typeface mShapeTypeface;
+    private float mShapeTextSize = Float.NaN;
+    private int mTextureBitmapWidth;
+    private int mTextureBitmapHeight;
+    private Matrix mDrawShaderMatrix;
+    private static final int MAX_CACHED_TEXTURES = 4;
+    // texture bitmaps shared by the labels using the same drawable, most recently used last
+    private static final LinkedHashMap<TextureKey, Bitmap> sTextures =
+            new LinkedHashMap<TextureKey, Bitmap>(MAX_CACHED_TEXTURES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TextureKey, Bitmap> eldest) {
+                    return size() > MAX_CACHED_TEXTURES;
+                }
+            };
+
+    static class TextureKey {
+        final Drawable.ConstantState mState;
+        final int mWidth;
+        final int mHeight;
+        final int mEffect;
+
+        TextureKey(Drawable.ConstantState state, int width, int height, int effect) {
+            mState = state;
+            mWidth = width;
+            mHeight = height;
+            mEffect = effect;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TextureKey)) {
+                return false;
+            }
+            TextureKey key = (TextureKey) o;
+            return mState == key.mState && mWidth == key.mWidth && mHeight == key.mHeight
+                    && mEffect == key.mEffect;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((mState.hashCode() * 31 + mWidth) * 31 + mHeight) * 31 + mEffect;
+        }
+    }
 
     public MotionLabel(Context context) {
         super(context);
@@ -221,6 +266,10 @@ public class MotionLabel extends View implements FloatLayout {
         return ret;
     }
 
+    /**
+     * Computes the size of the texture, the bitmap and shader are only created when the text
+     * is first drawn with an outline
+     */
     private void setupTexture() {
         if (mTextBackground != null) {
             mTextShaderMatrix = new Matrix();
@@ -245,17 +294,46 @@ public class MotionLabel extends View implements FloatLayout {
                 iw /= 2;
                 ih /= 2;
             }
-            mTextBackgroundBitmap = Bitmap.createBitmap(iw, ih, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(mTextBackgroundBitmap);
+            mTextureBitmapWidth = iw;
+            mTextureBitmapHeight = ih;
+            mTextBackgroundBitmap = null;
+            mTextShader = null;
+        }
+    }
+
+    private void buildTexture() {
+        if (mTextBackground == null || mTextShader != null) {
+            return;
+        }
+        Drawable.ConstantState state = mTextBackground.getConstantState();
+        TextureKey key = (state == null) ? null
+                : new TextureKey(state, mTextureBitmapWidth, mTextureBitmapHeight, mTextureEffect);
+        Bitmap bitmap = null;
+        if (key != null) {
+            synchronized (sTextures) {
+                bitmap = sTextures.get(key);
+            }
+        }
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(mTextureBitmapWidth, mTextureBitmapHeight,
+                    Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
 
             mTextBackground.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
             mTextBackground.setFilterBitmap(true);
             mTextBackground.draw(canvas);
             if (mTextureEffect != 0) {
-                mTextBackgroundBitmap = blur(mTextBackgroundBitmap, 4);
+                bitmap = blur(bitmap, 4);
+            }
+            if (key != null) {
+                synchronized (sTextures) {
+                    sTextures.put(key, bitmap);
+                }
             }
-            mTextShader = new BitmapShader(mTextBackgroundBitmap, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
         }
+        mTextBackgroundBitmap = bitmap;
+        mTextShader = new BitmapShader(mTextBackgroundBitmap, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
+        updateShaderMatrix();
     }
 
     private void adjustTexture(float l, float t, float r, float b) {
@@ -369,33 +447,54 @@ public class MotionLabel extends View implements FloatLayout {
         //   mLayout = new StaticLayout(mText, mPaint, getWidth(), Layout.Alignment.ALIGN_CENTER, 1, 0, true);
     }
 
+    /**
+     * Builds the outline of the text at the base text size, the scale is applied when drawing.
+     * The path is only rebuilt when the text, typeface or base text size changed.
+     */
     void buildShape(float scale) {
         if (!mUseOutline && scale == 1.0f) {
             return;
         }
-        mPath.reset();
         String str = mText;
+        if (!mNotBuilt && str.equals(mShapeText) && mPaint.getTypeface() == mShapeTypeface
+                && mPaint.getTextSize() == mShapeTextSize) {
+            return;
+        }
+        mPath.reset();
         int len = str.length();
         mPaint.getTextBounds(str, 0, len, mTextBounds);
         mPaint.getTextPath(str, 0, len, 0, 0, mPath);
-        if (scale != 1.0f) {
-            Log.v(TAG, Debug.getLoc() + " scale " + scale);
-            Matrix matrix = new Matrix();
-            matrix.postScale(scale, scale);
-            mPath.transform(matrix);
-        }
         mTextBounds.right--;
         mTextBounds.left++;
         mTextBounds.bottom++;
         mTextBounds.top--;
 
-        RectF rect = new RectF();
-        rect.bottom = getHeight();
-        rect.right = getWidth();
+        mShapeText = str;
+        mShapeTypeface = mPaint.getTypeface();
+        mShapeTextSize = mPaint.getTextSize();
         mNotBuilt = false;
     }
 
+    /**
+     * The bounds of the text measured with the paint used for auto sizing,
+     * only measured again when the text changes
+     */
+    private Rect getAutoSizeTextBounds() {
+        if (mTempRect == null) {
+            mTempPaint = new Paint();
+            mTempRect = new Rect();
+            mTempPaint.set(mPaint);
+            paintTextSize = mTempPaint.getTextSize();
+        }
+        if (!mText.equals(mTempRectText)) {
+            mTempPaint.getTextBounds(mText, 0, mText.length(), mTempRect);
+            mTempRectText = mText;
+        }
+        return mTempRect;
+    }
+
     Rect mTempRect;
+    String mTempRectText;
     Paint mTempPaint;
     float paintTextSize;
 
@@ -407,15 +506,7 @@ public class MotionLabel extends View implements FloatLayout {
         mFloatWidth = r - l;
         mFloatHeight = b - t;
         if (mAutoSize) {
-
-            if (mTempRect == null) {
-                mTempPaint = new Paint();
-                mTempRect = new Rect();
-                mTempPaint.set(mPaint);
-                paintTextSize = mTempPaint.getTextSize();
-            }
-
-            mTempPaint.getTextBounds(mText, 0, mText.length(), mTempRect);
+            getAutoSizeTextBounds();
             int tw = mTempRect.width();
             int th = (int) (1.3f * mTempRect.height());
 
@@ -454,16 +545,10 @@ public class MotionLabel extends View implements FloatLayout {
             super.layout((int) (0.5f + l), (int) (0.5f + t), (int) (0.5f + r), (int) (0.5f + b));
         }
         if (mAutoSize) {
-            if (mTempRect == null) {
-                mTempPaint = new Paint();
-                mTempRect = new Rect();
-                mTempPaint.set(mPaint);
-                paintTextSize = mTempPaint.getTextSize();
-            }
             mFloatWidth = r - l;
             mFloatHeight = b - t;
 
-            mTempPaint.getTextBounds(mText, 0, mText.length(), mTempRect);
+            getAutoSizeTextBounds();
             int tw = mTempRect.width();
             float th = 1.3f * mTempRect.height();
             float vw = r - l - mPaddingRight - mPaddingLeft;
@@ -483,62 +568,58 @@ public class MotionLabel extends View implements FloatLayout {
     protected void onDraw(Canvas canvas) {
         float scale = Float.isNaN(mBaseTextSize) ? 1.0f : mTextSize / mBaseTextSize;
         super.onDraw(canvas);
+        float x = mPaddingLeft + getHorizontalOffset();
+        float y = mPaddingTop + getVerticalOffset();
         if (!mUseOutline && scale == 1.0f) {
-            float x = mPaddingLeft + getHorizontalOffset();
-            float y = mPaddingTop + getVerticalOffset();
             canvas.drawText(mText, mDeltaLeft + x, y, mPaint);
             return;
         }
-        if (mNotBuilt) {
-            buildShape(scale);
-        }
-        if (mOutlinePositionMatrix == null) {
-            mOutlinePositionMatrix = new Matrix();
+        if (scale == 0) {
+            return;
         }
+        buildShape(scale);
+        // the path is at the base text size, position and scale it with the canvas
+        int save = canvas.save();
+        canvas.translate(x, y);
+        canvas.scale(scale, scale);
+        float strokeWidth = mTextOutlineThickness / scale;
         if (mUseOutline) {
             paintCache.set(mPaint);
-            mOutlinePositionMatrix.reset();
-            float x = mPaddingLeft + getHorizontalOffset();
-            float y = mPaddingTop + getVerticalOffset();
-            mOutlinePositionMatrix.postTranslate(x, y);
-            mOutlinePositionMatrix.preScale(scale, scale);
-            mPath.transform(mOutlinePositionMatrix);
-
+            buildTexture();
             if (mTextShader != null) {
+                // keep the texture in the coordinates of the view
+                if (mDrawShaderMatrix == null) {
+                    mDrawShaderMatrix = new Matrix();
+                }
+                mDrawShaderMatrix.set(mTextShaderMatrix);
+                mDrawShaderMatrix.postTranslate(-x, -y);
+                mDrawShaderMatrix.postScale(1 / scale, 1 / scale);
+                mTextShader.setLocalMatrix(mDrawShaderMatrix);
                 mPaint.setFilterBitmap(true);
                 mPaint.setShader(mTextShader);
             } else {
                 mPaint.setColor(mTextFillColor);
             }
             mPaint.setStyle(Paint.Style.FILL);
-            mPaint.setStrokeWidth(mTextOutlineThickness);
+            mPaint.setStrokeWidth(strokeWidth);
             canvas.drawPath(mPath, mPaint);
             if (mTextShader != null) {
                 mPaint.setShader(null);
             }
             mPaint.setColor(mTextOutlineColor);
             mPaint.setStyle(Paint.Style.STROKE);
-            mPaint.setStrokeWidth(mTextOutlineThickness);
+            mPaint.setStrokeWidth(strokeWidth);
             canvas.drawPath(mPath, mPaint);
 
-            mOutlinePositionMatrix.reset();
-            mOutlinePositionMatrix.postTranslate(-x, -y);
-            mPath.transform(mOutlinePositionMatrix);
             mPaint.set(paintCache);
         } else {
-            float x = mPaddingLeft + getHorizontalOffset();
-            float y = mPaddingTop + getVerticalOffset();
-            mOutlinePositionMatrix.reset();
-            mOutlinePositionMatrix.preTranslate(x, y);
-            mPath.transform(mOutlinePositionMatrix);
             mPaint.setColor(mTextFillColor);
             mPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-            mPaint.setStrokeWidth(mTextOutlineThickness);
+            mPaint.setStrokeWidth(strokeWidth);
             canvas.drawPath(mPath, mPaint);
-            mOutlinePositionMatrix.reset();
-            mOutlinePositionMatrix.preTranslate(-x, -y);
-            mPath.transform(mOutlinePositionMatrix);
+            mPaint.setStrokeWidth(mTextOutlineThickness);
         }
+        canvas.restoreToCount(save);
     }
 
     public void setTextOutlineThickness(float width) {
@@ -714,6 +795,7 @@ public class MotionLabel extends View implements FloatLayout {
             mRect.set(0, 0, w, h);
             mPath.reset();
             mPath.addRoundRect(mRect, r, r, Path.Direction.CW);
+            mNotBuilt = true;
         } else {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                 setClipToOutline(false);
@@ -770,6 +852,7 @@ public class MotionLabel extends View implements FloatLayout {
             mRect.set(0, 0, w, h);
             mPath.reset();
             mPath.addRoundRect(mRect, mRound, mRound, Path.Direction.CW);
+            mNotBuilt = true;
         } else {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                 setClipToOutline(false);
@@ -810,7 +893,6 @@ public class MotionLabel extends View implements FloatLayout {
      */
     public void setTextSize(float size) {
         mTextSize = size;
-        Log.v(TAG, Debug.getLoc() + "  " + size + " / " + mBaseTextSize);
         mPaint.setTextSize(Float.isNaN(mBaseTextSize) ? size : mBaseTextSize);
         buildShape(Float.isNaN(mBaseTextSize) ? 1.0f : mTextSize / mBaseTextSize);
         requestLayout();
@@ -924,6 +1006,9 @@ public class MotionLabel extends View implements FloatLayout {
     }
 
     private void updateShaderMatrix() {
+        if (mTextShader == null) {
+            return;
+        }
         float panX = (Float.isNaN(mBackgroundPanX)) ? 0 : mBackgroundPanX;
         float panY = (Float.isNaN(mBackgroundPanY)) ? 0 : mBackgroundPanY;
         float zoom = (Float.isNaN(mZoom)) ? 1 : mZoom;
@@ -26,6 +26,7 @@ import android.util.TypedValue;
 import android.util.Xml;
 import android.view.View;
 
+import androidx.constraintlayout.core.motion.utils.ColorGamma;
 import androidx.constraintlayout.motion.widget.Debug;
 
 import org.xmlpull.v1.XmlPullParser;
@@ -49,6 +50,9 @@ public class ConstraintAttribute {
     private String mStringValue;
     boolean mBooleanValue;
     private int mColorValue;
+    private String mSetterName;
+    private Class<?> mSetterClass; // view class mSetter was resolved for
+    private CustomSetter mSetter;
 
     public enum AttributeType {
         INT_TYPE,
@@ -146,17 +150,7 @@ public class ConstraintAttribute {
                 break;
             case COLOR_DRAWABLE_TYPE:
             case COLOR_TYPE:
-                int a = 0xFF & (mColorValue >> 24);
-                int r = 0xFF & (mColorValue >> 16);
-                int g = 0xFF & (mColorValue >> 8);
-                int b = 0xFF & (mColorValue);
-                float f_r = (float) Math.pow(r / 255.0f, 2.2);
-                float f_g = (float) Math.pow(g / 255.0f, 2.2);
-                float f_b = (float) Math.pow(b / 255.0f, 2.2);
-                ret[0] = f_r;
-                ret[1] = f_g;
-                ret[2] = f_b;
-                ret[3] = a / 255f;
+                ColorGamma.colorToLinear(mColorValue, ret);
                 break;
             case STRING_TYPE:
                 throw new RuntimeException("Color does not have a single color to interpolate");
@@ -242,6 +236,20 @@ public class ConstraintAttribute {
 
     }
 
+    /**
+     * Copy an attribute, including its value
+     */
+    public ConstraintAttribute(ConstraintAttribute source) {
+        mMethod = source.mMethod;
+        mName = source.mName;
+        mType = source.mType;
+        mIntegerValue = source.mIntegerValue;
+        mFloatValue = source.mFloatValue;
+        mStringValue = source.mStringValue;
+        mBooleanValue = source.mBooleanValue;
+        mColorValue = source.mColorValue;
+    }
+
     public void setValue(Object value) {
         switch (mType) {
             case REFERENCE_TYPE:
@@ -267,6 +275,19 @@ public class ConstraintAttribute {
         }
     }
 
+    /**
+     * Returns true if the other attribute sets the same value through the same method
+     */
+    boolean hasSameValue(ConstraintAttribute other) {
+        return mMethod == other.mMethod && mType == other.mType
+                && ConstraintLayout.LayoutParams.equals(mName, other.mName)
+                && mIntegerValue == other.mIntegerValue
+                && Float.compare(mFloatValue, other.mFloatValue) == 0
+                && ConstraintLayout.LayoutParams.equals(mStringValue, other.mStringValue)
+                && mBooleanValue == other.mBooleanValue
+                && mColorValue == other.mColorValue;
+    }
+
     public static HashMap<String, ConstraintAttribute> extractAttributes(
             HashMap<String, ConstraintAttribute> base, View view) {
         HashMap<String, ConstraintAttribute> ret = new HashMap<>();
@@ -300,47 +321,9 @@ public class ConstraintAttribute {
         Class<? extends View> viewClass = view.getClass();
         for (String name : map.keySet()) {
             ConstraintAttribute constraintAttribute = map.get(name);
-            String methodName = name;
-            if (!constraintAttribute.mMethod) {
-                methodName = "set" + methodName;
-            }
+            String methodName = constraintAttribute.getCustomMethodName();
             try {
-                Method method;
-                switch (constraintAttribute.mType) {
-                    case INT_TYPE:
-                        method = viewClass.getMethod(methodName, Integer.TYPE);
-                        method.invoke(view, constraintAttribute.mIntegerValue);
-                        break;
-                    case FLOAT_TYPE:
-                        method = viewClass.getMethod(methodName, Float.TYPE);
-                        method.invoke(view, constraintAttribute.mFloatValue);
-                        break;
-                    case COLOR_DRAWABLE_TYPE:
-                        method = viewClass.getMethod(methodName, Drawable.class);
-                        ColorDrawable drawable = new ColorDrawable(); // TODO cache
-                        drawable.setColor(constraintAttribute.mColorValue);
-                        method.invoke(view, drawable);
-                        break;
-                    case COLOR_TYPE:
-                        method = viewClass.getMethod(methodName, Integer.TYPE);
-                        method.invoke(view, constraintAttribute.mColorValue);
-                        break;
-                    case STRING_TYPE:
-                        method = viewClass.getMethod(methodName, CharSequence.class);
-                        method.invoke(view, constraintAttribute.mStringValue);
-                        break;
-                    case BOOLEAN_TYPE:
-                        method = viewClass.getMethod(methodName, Boolean.TYPE);
-                        method.invoke(view, constraintAttribute.mBooleanValue);
-                        break;
-                    case DIMENSION_TYPE:
-                        method = viewClass.getMethod(methodName, Float.TYPE);
-                        method.invoke(view, constraintAttribute.mFloatValue);
-                        break;
-                    case REFERENCE_TYPE:
-                        method = viewClass.getMethod(methodName, Integer.TYPE);
-                        method.invoke(view, constraintAttribute.mIntegerValue);
-                }
+                constraintAttribute.applyCustom(view, viewClass, methodName);
             } catch (NoSuchMethodException e) {
                 Log.e(TAG, e.getMessage());
                 Log.e(TAG, " Custom Attribute \"" + name + "\" not found on " + viewClass.getName());
@@ -358,45 +341,9 @@ public class ConstraintAttribute {
     public void applyCustom(View view) {
         Class<? extends View> viewClass = view.getClass();
         String name = this.mName;
-        String methodName = name;
-        if (!mMethod) {
-            methodName = "set" + methodName;
-        }
+        String methodName = getCustomMethodName();
         try {
-            Method method;
-            switch (this.mType) {
-                case INT_TYPE:
-                case REFERENCE_TYPE:
-                    method = viewClass.getMethod(methodName, Integer.TYPE);
-                    method.invoke(view, this.mIntegerValue);
-                    break;
-                case FLOAT_TYPE:
-                    method = viewClass.getMethod(methodName, Float.TYPE);
-                    method.invoke(view, this.mFloatValue);
-                    break;
-                case COLOR_DRAWABLE_TYPE:
-                    method = viewClass.getMethod(methodName, Drawable.class);
-                    ColorDrawable drawable = new ColorDrawable(); // TODO cache
-                    drawable.setColor(this.mColorValue);
-                    method.invoke(view, drawable);
-                    break;
-                case COLOR_TYPE:
-                    method = viewClass.getMethod(methodName, Integer.TYPE);
-                    method.invoke(view, this.mColorValue);
-                    break;
-                case STRING_TYPE:
-                    method = viewClass.getMethod(methodName, CharSequence.class);
-                    method.invoke(view, this.mStringValue);
-                    break;
-                case BOOLEAN_TYPE:
-                    method = viewClass.getMethod(methodName, Boolean.TYPE);
-                    method.invoke(view, this.mBooleanValue);
-                    break;
-                case DIMENSION_TYPE:
-                    method = viewClass.getMethod(methodName, Float.TYPE);
-                    method.invoke(view, this.mFloatValue);
-                    break;
-            }
+            applyCustom(view, viewClass, methodName);
         } catch (NoSuchMethodException e) {
             Log.e(TAG, e.getMessage());
             Log.e(TAG, " Custom Attribute \"" + name + "\" not found on " + viewClass.getName());
@@ -411,6 +358,63 @@ public class ConstraintAttribute {
 
     }
 
+    private String getSetterName() {
+        if (mSetterName == null) {
+            mSetterName = "set" + mName;
+        }
+        return mSetterName;
+    }
+
+    private String getCustomMethodName() {
+        return mMethod ? mName : getSetterName();
+    }
+
+    private void applyCustom(View view, Class<? extends View> viewClass, String methodName)
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        switch (this.mType) {
+            case INT_TYPE:
+            case REFERENCE_TYPE:
+                CustomSetter.get(viewClass, methodName, CustomSetter.INT)
+                        .setInt(view, this.mIntegerValue);
+                break;
+            case FLOAT_TYPE:
+            case DIMENSION_TYPE:
+                CustomSetter.get(viewClass, methodName, CustomSetter.FLOAT)
+                        .setFloat(view, this.mFloatValue);
+                break;
+            case COLOR_DRAWABLE_TYPE:
+                CustomSetter setter = CustomSetter.get(viewClass, methodName, CustomSetter.DRAWABLE);
+                ColorDrawable drawable = new ColorDrawable(); // TODO cache
+                drawable.setColor(this.mColorValue);
+                setter.setObject(view, drawable);
+                break;
+            case COLOR_TYPE:
+                CustomSetter.get(viewClass, methodName, CustomSetter.INT)
+                        .setInt(view, this.mColorValue);
+                break;
+            case STRING_TYPE:
+                CustomSetter.get(viewClass, methodName, CustomSetter.CHAR_SEQUENCE)
+                        .setObject(view, this.mStringValue);
+                break;
+            case BOOLEAN_TYPE:
+                CustomSetter.get(viewClass, methodName, CustomSetter.BOOLEAN)
+                        .setBoolean(view, this.mBooleanValue);
+                break;
+        }
+    }
+
+    /**
+     * The setter used while interpolating, kept for the last view class it was applied to
+     */
+    private CustomSetter getInterpolationSetter(Class<?> viewClass, int type)
+            throws NoSuchMethodException {
+        if (mSetterClass != viewClass) {
+            mSetter = CustomSetter.get(viewClass, getSetterName(), type);
+            mSetterClass = viewClass;
+        }
+        return mSetter;
+    }
+
     private static int clamp(int c) {
         int N = 255;
         c &= ~(c >> 31);
@@ -423,56 +427,40 @@ public class ConstraintAttribute {
     public void setInterpolatedValue(View view, float[] value) {
         Class<? extends View> viewClass = view.getClass();
 
-        String methodName = "set" + mName;
         try {
-            Method method;
             switch (mType) {
                 case INT_TYPE:
-                    method = viewClass.getMethod(methodName, Integer.TYPE);
-                    method.invoke(view, (int) value[0]);
+                    getInterpolationSetter(viewClass, CustomSetter.INT).setInt(view, (int) value[0]);
                     break;
                 case FLOAT_TYPE:
-                    method = viewClass.getMethod(methodName, Float.TYPE);
-                    method.invoke(view, value[0]);
+                case DIMENSION_TYPE:
+                    getInterpolationSetter(viewClass, CustomSetter.FLOAT).setFloat(view, value[0]);
                     break;
                 case COLOR_DRAWABLE_TYPE: {
-                    method = viewClass.getMethod(methodName, Drawable.class);
-                    int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-                    int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-                    int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-                    int a = clamp((int) (value[3] * 255.0f));
-                    int color = a << 24 | (r << 16) | (g << 8) | b;
+                    CustomSetter setter = getInterpolationSetter(viewClass, CustomSetter.DRAWABLE);
+                    int color = ColorGamma.linearToColor(value);
                     ColorDrawable drawable = new ColorDrawable(); // TODO cache
                     drawable.setColor(color);
-                    method.invoke(view, drawable);
+                    setter.setObject(view, drawable);
                 }
                 break;
                 case COLOR_TYPE:
-                    method = viewClass.getMethod(methodName, Integer.TYPE);
-                    int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-                    int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-                    int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-                    int a = clamp((int) (value[3] * 255.0f));
-                    int color = a << 24 | (r << 16) | (g << 8) | b;
-                    method.invoke(view, color);
+                    int color = ColorGamma.linearToColor(value);
+                    getInterpolationSetter(viewClass, CustomSetter.INT).setInt(view, color);
                     break;
                 case STRING_TYPE:
                     throw new RuntimeException("unable to interpolate strings " + mName);
 
                 case BOOLEAN_TYPE:
-                    method = viewClass.getMethod(methodName, Boolean.TYPE);
-                    method.invoke(view, value[0] > 0.5f);
-                    break;
-                case DIMENSION_TYPE:
-                    method = viewClass.getMethod(methodName, Float.TYPE);
-                    method.invoke(view, value[0]);
+                    getInterpolationSetter(viewClass, CustomSetter.BOOLEAN)
+                            .setBoolean(view, value[0] > 0.5f);
                     break;
             }
         } catch (NoSuchMethodException e) {
-            Log.e(TAG, "no method " + methodName + " on View \"" + Debug.getName(view) + "\"");
+            Log.e(TAG, "no method " + getSetterName() + " on View \"" + Debug.getName(view) + "\"");
             e.printStackTrace();
         } catch (IllegalAccessException e) {
-            Log.e(TAG, "cannot access method " + methodName + " on View \"" + Debug.getName(view) + "\"");
+            Log.e(TAG, "cannot access method " + getSetterName() + " on View \"" + Debug.getName(view) + "\"");
             e.printStackTrace();
         } catch (InvocationTargetException e) {
             e.printStackTrace();
@@ -34,8 +34,10 @@ import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.Guideline;
+import androidx.constraintlayout.core.widgets.LayoutSnapshot;
 import androidx.constraintlayout.core.widgets.Optimizer;
 import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+import androidx.constraintlayout.core.widgets.analyzer.MeasureCache;
 import androidx.core.view.ViewCompat;
 
 import android.util.AttributeSet;
@@ -47,6 +49,7 @@ import android.view.ViewGroup;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Executor;
 
 import static androidx.constraintlayout.widget.ConstraintLayout.LayoutParams.*;
 import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
@@ -509,8 +512,16 @@ public class ConstraintLayout extends ViewGroup {
     private int mMaxHeight = Integer.MAX_VALUE;
 
     protected boolean mDirtyHierarchy = true;
+    // the constraints of the children (not only their content) may have changed
+    private boolean mDirtyConstraints = true;
+    private boolean mAppliedRtl = false;
+    // incremented each time the layout is invalidated, to discard stale precomputed layouts
+    private long mLayoutVersion = 0;
+    private PrecomputedLayout mPrecomputedLayout = null;
     private int mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD;
     private ConstraintSet mConstraintSet = null;
+    // incremented each time a constraint set is applied to the children
+    int mConstraintSetVersion = 0;
     protected ConstraintLayoutStates mConstraintLayoutSpec = null;
 
     private int mConstraintSetId = -1;
@@ -700,7 +711,7 @@ public class ConstraintLayout extends ViewGroup {
                         // a wrap, it can be incorrect if the other side was also variable.
                         // So in that case, we have to double-check the other side is stable (else we can't
                         // just assume the wrap value will be correct).
-                        boolean otherDimensionStable = child.getMeasuredHeight() == widget.getHeight();
+                        boolean otherDimensionStable = getChildMeasuredHeight(child) == widget.getHeight();
                         boolean useCurrent = measure.measureStrategy == BasicMeasure.Measure.USE_GIVEN_DIMENSIONS
                                             || !shouldDoWrap
                                             || (shouldDoWrap && otherDimensionStable)
@@ -740,7 +751,7 @@ public class ConstraintLayout extends ViewGroup {
                         // a wrap, it can be incorrect if the other side was also variable.
                         // So in that case, we have to double-check the other side is stable (else we can't
                         // just assume the wrap value will be correct).
-                        boolean otherDimensionStable = child.getMeasuredWidth() == widget.getWidth();
+                        boolean otherDimensionStable = getChildMeasuredWidth(child) == widget.getWidth();
                         boolean useCurrent = measure.measureStrategy == BasicMeasure.Measure.USE_GIVEN_DIMENSIONS
                                             || !shouldDoWrap
                                             || (shouldDoWrap && otherDimensionStable)
@@ -756,13 +767,13 @@ public class ConstraintLayout extends ViewGroup {
 
             ConstraintWidgetContainer container = (ConstraintWidgetContainer) widget.getParent();
             if (container != null && Optimizer.enabled(mOptimizationLevel, Optimizer.OPTIMIZATION_CACHE_MEASURES)) {
-                if (child.getMeasuredWidth() == widget.getWidth()
+                if (getChildMeasuredWidth(child) == widget.getWidth()
                         // note: the container check replicates legacy behavior, but we might want
                         // to not enforce that in 3.0
-                        && child.getMeasuredWidth() < container.getWidth()
-                        && child.getMeasuredHeight() == widget.getHeight()
-                        && child.getMeasuredHeight() < container.getHeight()
-                        && child.getBaseline() == widget.getBaselineDistance()
+                        && getChildMeasuredWidth(child) < container.getWidth()
+                        && getChildMeasuredHeight(child) == widget.getHeight()
+                        && getChildMeasuredHeight(child) < container.getHeight()
+                        && getChildBaseline(child) == widget.getBaselineDistance()
                         && !widget.isMeasureRequested()
                 ) {
                     boolean similar = isSimilarSpec(widget.getLastHorizontalMeasureSpec(), horizontalSpec, widget.getWidth())
@@ -804,18 +815,24 @@ public class ConstraintLayout extends ViewGroup {
                     !(horizontalMatchConstraints && widget.mMatchConstraintDefaultWidth == MATCH_CONSTRAINT_SPREAD
                             && verticalMatchConstraints && widget.mMatchConstraintDefaultHeight == MATCH_CONSTRAINT_SPREAD)) {
 
+                MeasureCache cache = null;
+                int w;
+                int h;
                 if (child instanceof VirtualLayout && widget instanceof androidx.constraintlayout.core.widgets.VirtualLayout) {
                     androidx.constraintlayout.core.widgets.VirtualLayout layout = (androidx.constraintlayout.core.widgets.VirtualLayout) widget;
                     ((VirtualLayout) child).onMeasure(layout, horizontalSpec, verticalSpec);
+                    w = child.getMeasuredWidth();
+                    h = child.getMeasuredHeight();
+                    baseline = child.getBaseline();
                 } else {
-                    child.measure(horizontalSpec, verticalSpec);
+                    cache = getMeasureCache(child, params);
+                    measureChild(child, cache, horizontalSpec, verticalSpec);
+                    w = cache != null ? cache.width : child.getMeasuredWidth();
+                    h = cache != null ? cache.height : child.getMeasuredHeight();
+                    baseline = cache != null ? cache.baseline : child.getBaseline();
                 }
                 widget.setLastMeasureSpec(horizontalSpec, verticalSpec);
 
-                int w = child.getMeasuredWidth();
-                int h = child.getMeasuredHeight();
-                baseline = child.getBaseline();
-
                 width = w;
                 height = h;
 
@@ -855,11 +872,11 @@ public class ConstraintLayout extends ViewGroup {
                     if (h != height) {
                         verticalSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
                     }
-                    child.measure(horizontalSpec, verticalSpec);
+                    measureChild(child, cache, horizontalSpec, verticalSpec);
                     widget.setLastMeasureSpec(horizontalSpec, verticalSpec);
-                    width = child.getMeasuredWidth();
-                    height = child.getMeasuredHeight();
-                    baseline = child.getBaseline();
+                    width = cache != null ? cache.width : child.getMeasuredWidth();
+                    height = cache != null ? cache.height : child.getMeasuredHeight();
+                    baseline = cache != null ? cache.baseline : child.getBaseline();
                     if (DEBUG) {
                         String measurement2 = MeasureSpec.toString(horizontalSpec) + " x " + MeasureSpec.toString(verticalSpec) + " => " + width + " x " + height;
                         System.out.println("measure (b) " + widget.getDebugName() + " : " + measurement2);
@@ -890,6 +907,60 @@ public class ConstraintLayout extends ViewGroup {
             }
         }
 
+        /**
+         * Returns the measure cache of the child, or null if its measures should not be cached.
+         * Helpers are excluded, as measuring them can have side effects on other widgets.
+         */
+        private MeasureCache getMeasureCache(View child, LayoutParams params) {
+            if (!Optimizer.enabled(mOptimizationLevel, Optimizer.OPTIMIZATION_CACHE_MEASURES)
+                    || child instanceof ConstraintHelper || child instanceof Placeholder) {
+                return null;
+            }
+            if (params.measureCache == null) {
+                params.measureCache = new MeasureCache();
+            }
+            return params.measureCache;
+        }
+
+        /**
+         * The size of the child from its last measure, which may have come from its measure cache
+         */
+        private int getChildMeasuredWidth(View child) {
+            MeasureCache cache = ((LayoutParams) child.getLayoutParams()).measureCache;
+            return cache != null && cache.hasResult() ? cache.width : child.getMeasuredWidth();
+        }
+
+        private int getChildMeasuredHeight(View child) {
+            MeasureCache cache = ((LayoutParams) child.getLayoutParams()).measureCache;
+            return cache != null && cache.hasResult() ? cache.height : child.getMeasuredHeight();
+        }
+
+        private int getChildBaseline(View child) {
+            MeasureCache cache = ((LayoutParams) child.getLayoutParams()).measureCache;
+            return cache != null && cache.hasResult() ? cache.baseline : child.getBaseline();
+        }
+
+        /**
+         * Measure the child, reusing the result of a previous measure with the same specs if
+         * the child has not requested a layout since.
+         */
+        private void measureChild(View child, MeasureCache cache, int horizontalSpec, int verticalSpec) {
+            if (cache != null && cache.get(horizontalSpec, verticalSpec)) {
+                if (mMetrics != null) {
+                    mMetrics.measureCacheHits++;
+                }
+                return;
+            }
+            child.measure(horizontalSpec, verticalSpec);
+            if (cache != null) {
+                cache.put(horizontalSpec, verticalSpec, child.getMeasuredWidth(),
+                        child.getMeasuredHeight(), child.getBaseline());
+                if (mMetrics != null) {
+                    mMetrics.measureCacheMisses++;
+                }
+            }
+        }
+
         /**
          * Returns true if the previous measure spec is equivalent to the new one.
          * - if it's the same...
@@ -920,6 +991,16 @@ public class ConstraintLayout extends ViewGroup {
         @Override
         public final void didMeasures() {
             final int widgetsCount = layout.getChildCount();
+            for (int i = 0; i < widgetsCount; i++) {
+                final View child = layout.getChildAt(i);
+                MeasureCache cache = ((LayoutParams) child.getLayoutParams()).measureCache;
+                if (cache != null && cache.needsRemeasure()) {
+                    // the last measure came from the cache, make sure the view holds it
+                    child.measure(cache.getLastHorizontalSpec(), cache.getLastVerticalSpec());
+                    cache.put(cache.getLastHorizontalSpec(), cache.getLastVerticalSpec(),
+                            child.getMeasuredWidth(), child.getMeasuredHeight(), child.getBaseline());
+                }
+            }
             for (int i = 0; i < widgetsCount; i++) {
                 final View child = layout.getChildAt(i);
                 if (child instanceof Placeholder) {
@@ -1019,6 +1100,7 @@ public class ConstraintLayout extends ViewGroup {
         }
         mChildrenByIds.put(view.getId(), view);
         mDirtyHierarchy = true;
+        mDirtyConstraints = true;
     }
 
     /**
@@ -1032,6 +1114,7 @@ public class ConstraintLayout extends ViewGroup {
         mLayoutWidget.remove(widget);
         mConstraintHelpers.remove(view);
         mDirtyHierarchy = true;
+        mDirtyConstraints = true;
     }
 
     /**
@@ -1139,11 +1222,63 @@ public class ConstraintLayout extends ViewGroup {
             }
         }
         if (recompute) {
+            if (updateContentOnly()) {
+                // the dependency graph keeps the resolved sizes of the children otherwise
+                mLayoutWidget.invalidateMeasures();
+                return false;
+            }
             setChildrenConstraints();
         }
         return recompute;
     }
 
+    /**
+     * Children often request a layout only because their content changed (e.g. the text of a
+     * TextView), which does not change their constraints. If every child requesting a layout
+     * still has the layout params, visibility and id its constraints were built from, keep the
+     * current widget hierarchy and only mark those children to be measured again.
+     *
+     * @return true if the widget hierarchy was kept
+     */
+    private boolean updateContentOnly() {
+        if (mDirtyConstraints || DEBUG || isInEditMode() || mAppliedRtl != isRtl()) {
+            return false;
+        }
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (!child.isLayoutRequested()) {
+                continue;
+            }
+            if (child instanceof ConstraintHelper || child instanceof Placeholder) {
+                return false;
+            }
+            LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+            if (!layoutParams.isApplied(child)) {
+                return false;
+            }
+        }
+        boolean inVirtualLayout = false;
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (child.isLayoutRequested()) {
+                ConstraintWidget widget = getViewWidget(child);
+                widget.setMeasureRequested(true);
+                inVirtualLayout |= widget.isInVirtualLayout();
+            }
+        }
+        if (inVirtualLayout) {
+            final int helperCount = mConstraintHelpers.size();
+            for (int i = 0; i < helperCount; i++) {
+                ConstraintHelper helper = mConstraintHelpers.get(i);
+                if (helper instanceof VirtualLayout) {
+                    getViewWidget(helper).setMeasureRequested(true);
+                }
+            }
+        }
+        return true;
+    }
+
     private void setChildrenConstraints() {
         final boolean isInEditMode = DEBUG || isInEditMode();
 
@@ -1245,6 +1380,13 @@ public class ConstraintLayout extends ViewGroup {
             mLayoutWidget.add(widget);
             applyConstraintsFromLayoutParams(isInEditMode, child, widget, layoutParams, mTempMapIdToWidget);
         }
+
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            ((LayoutParams) child.getLayoutParams()).setApplied(child);
+        }
+        mAppliedRtl = isRtl();
+        mDirtyConstraints = false;
     }
 
 
@@ -1563,6 +1705,23 @@ public class ConstraintLayout extends ViewGroup {
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
+        int paddingX = captureLayoutInfo(widthMeasureSpec, heightMeasureSpec);
+        int paddingY = mMeasurer.paddingTop;
+
+        widthSize -= mMeasurer.paddingWidth;
+        heightSize -= mMeasurer.paddingHeight;
+
+        setSelfDimensionBehaviour(layout, widthMode, widthSize, heightMode, heightSize);
+        layout.measure(optimizationLevel, widthMode, widthSize, heightMode, heightSize,
+                mLastMeasureWidth, mLastMeasureHeight, paddingX, paddingY);
+    }
+
+    /**
+     * Capture the measure specs and padding of the layout in the measurer
+     *
+     * @return the left padding, taking RTL in account
+     */
+    private int captureLayoutInfo(int widthMeasureSpec, int heightMeasureSpec) {
         int paddingY = Math.max(0, getPaddingTop());
         int paddingBottom = Math.max(0, getPaddingBottom());
         int paddingHeight = paddingY + paddingBottom;
@@ -1585,13 +1744,7 @@ public class ConstraintLayout extends ViewGroup {
         } else {
             paddingX = Math.max(0, getPaddingLeft());
         }
-
-        widthSize -= paddingWidth;
-        heightSize -= paddingHeight;
-
-        setSelfDimensionBehaviour(layout, widthMode, widthSize, heightMode, heightSize);
-        layout.measure(optimizationLevel, widthMode, widthSize, heightMode, heightSize,
-                mLastMeasureWidth, mLastMeasureHeight, paddingX, paddingY);
+        return paddingX;
     }
 
     /**
@@ -1642,7 +1795,10 @@ public class ConstraintLayout extends ViewGroup {
             time = System.currentTimeMillis();
         }
 
-        if (!mDirtyHierarchy) {
+        // the hierarchy was already updated by precomputeLayout
+        boolean precomputed = mPrecomputedLayout != null
+                && mPrecomputedLayout.layoutVersion == mLayoutVersion;
+        if (!mDirtyHierarchy && !precomputed) {
             // it's possible that, if we are already marked for a relayout, a view would not call to request a layout;
             // in that case we'd miss updating the hierarchy correctly.
             // We have to iterate on our children to verify that none set a request layout flag...
@@ -1656,7 +1812,7 @@ public class ConstraintLayout extends ViewGroup {
             }
         }
 
-        if (!mDirtyHierarchy) {
+        if (!mDirtyHierarchy && !precomputed) {
             if (mOnMeasureWidthMeasureSpec == widthMeasureSpec && mOnMeasureHeightMeasureSpec == heightMeasureSpec) {
                 resolveMeasuredDimension(widthMeasureSpec, heightMeasureSpec, mLayoutWidget.getWidth(), mLayoutWidget.getHeight(),
                         mLayoutWidget.isWidthMeasuredTooSmall(), mLayoutWidget.isHeightMeasuredTooSmall());
@@ -1683,6 +1839,16 @@ public class ConstraintLayout extends ViewGroup {
         mOnMeasureWidthMeasureSpec = widthMeasureSpec;
         mOnMeasureHeightMeasureSpec = heightMeasureSpec;
 
+        // cached child measures are only valid until the child requests a layout
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = getChildAt(i);
+            MeasureCache cache = ((LayoutParams) child.getLayoutParams()).measureCache;
+            if (cache != null && child.isLayoutRequested()) {
+                cache.clear();
+            }
+        }
+
         if (DEBUG) {
             System.out.println("### ON MEASURE " + mDirtyHierarchy + " of " + mLayoutWidget.getDebugName() + " onMeasure width: " + MeasureSpec.toString(widthMeasureSpec)
                     + " height: " + MeasureSpec.toString(heightMeasureSpec) + this);
@@ -1697,7 +1863,9 @@ public class ConstraintLayout extends ViewGroup {
             }
         }
 
-        resolveSystem(mLayoutWidget, mOptimizationLevel, widthMeasureSpec, heightMeasureSpec);
+        if (!applyPrecomputedLayout(widthMeasureSpec, heightMeasureSpec)) {
+            resolveSystem(mLayoutWidget, mOptimizationLevel, widthMeasureSpec, heightMeasureSpec);
+        }
         resolveMeasuredDimension(widthMeasureSpec, heightMeasureSpec, mLayoutWidget.getWidth(), mLayoutWidget.getHeight(),
                 mLayoutWidget.isWidthMeasuredTooSmall(), mLayoutWidget.isHeightMeasuredTooSmall());
 
@@ -1710,6 +1878,317 @@ public class ConstraintLayout extends ViewGroup {
         }
     }
 
+    /**
+     * Solve the layout for the given measure specs on another thread, ahead of its measure.
+     * <p>
+     * The constraints and the children are captured now, and the children are measured with
+     * the sizes the solver asks for first. The solve itself runs on the executor; if the
+     * layout is then measured with the same specs and nothing requested a layout in between,
+     * the result is used instead of solving again on the UI thread. Otherwise the result is
+     * discarded and the layout is measured as usual.
+     * <p>
+     * Layouts containing virtual layouts (e.g. Flow) or placeholders are not supported, as
+     * solving them measures views. A child that needs a measure not captured ahead of time
+     * (e.g. wrapping text at its solved width) also causes the layout to be measured as usual.
+     *
+     * @param widthMeasureSpec  the width spec the layout is expected to be measured with
+     * @param heightMeasureSpec the height spec the layout is expected to be measured with
+     * @param executor          where to solve the layout
+     * @return true if the layout will be solved on the executor
+     */
+    public boolean precomputeLayout(int widthMeasureSpec, int heightMeasureSpec, @NonNull Executor executor) {
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child instanceof VirtualLayout || child instanceof Placeholder) {
+                return false;
+            }
+        }
+        mPrecomputedLayout = null;
+        mLayoutWidget.setRtl(isRtl());
+        if (mDirtyHierarchy) {
+            mDirtyHierarchy = false;
+            if (updateHierarchy()) {
+                mLayoutWidget.updateHierarchy();
+            }
+        }
+        final LayoutSnapshot snapshot = LayoutSnapshot.create(mLayoutWidget, mLayoutVersion);
+        if (snapshot == null) {
+            return false;
+        }
+        final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        final int paddingX = captureLayoutInfo(widthMeasureSpec, heightMeasureSpec);
+        final int paddingY = mMeasurer.paddingTop;
+        final int widthSize = MeasureSpec.getSize(widthMeasureSpec) - mMeasurer.paddingWidth;
+        final int heightSize = MeasureSpec.getSize(heightMeasureSpec) - mMeasurer.paddingHeight;
+        setSelfDimensionBehaviour(snapshot.getContainer(), widthMode, widthSize, heightMode, heightSize);
+        snapshot.getContainer().setOptimizationLevel(mOptimizationLevel);
+
+        final SnapshotMeasurer measurer = new SnapshotMeasurer(snapshot, mMeasurer);
+        for (int i = 0; i < snapshot.size(); i++) {
+            measurer.premeasure(i, mMeasurer);
+        }
+        final PrecomputedLayout layout = new PrecomputedLayout(widthMeasureSpec, heightMeasureSpec,
+                mLayoutVersion);
+        mPrecomputedLayout = layout;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                layout.frames = snapshot.solve(measurer, widthMode, widthSize,
+                        heightMode, heightSize, paddingX, paddingY);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Use the result of {@link #precomputeLayout(int, int, Executor)} if it is ready and
+     * still valid for these specs
+     *
+     * @return true if the layout widget was updated
+     */
+    private boolean applyPrecomputedLayout(int widthMeasureSpec, int heightMeasureSpec) {
+        PrecomputedLayout layout = mPrecomputedLayout;
+        if (layout == null) {
+            return false;
+        }
+        mPrecomputedLayout = null;
+        LayoutSnapshot.Frames frames = layout.frames;
+        if (frames == null || frames.getVersion() != mLayoutVersion
+                || layout.widthMeasureSpec != widthMeasureSpec
+                || layout.heightMeasureSpec != heightMeasureSpec
+                || !frames.applyTo(mLayoutWidget)) {
+            return false;
+        }
+        captureLayoutInfo(widthMeasureSpec, heightMeasureSpec);
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            LayoutParams params = (LayoutParams) child.getLayoutParams();
+            if (child.getVisibility() == GONE || params.isGuideline || params.isHelper) {
+                continue;
+            }
+            ConstraintWidget widget = params.widget;
+            if (child.getMeasuredWidth() != widget.getWidth()
+                    || child.getMeasuredHeight() != widget.getHeight()) {
+                int horizontalSpec = MeasureSpec.makeMeasureSpec(widget.getWidth(), MeasureSpec.EXACTLY);
+                int verticalSpec = MeasureSpec.makeMeasureSpec(widget.getHeight(), MeasureSpec.EXACTLY);
+                MeasureCache cache = params.measureCache;
+                if (cache != null) {
+                    cache.clear();
+                }
+                child.measure(horizontalSpec, verticalSpec);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A layout being solved by {@link #precomputeLayout(int, int, Executor)}
+     */
+    private static class PrecomputedLayout {
+        final int widthMeasureSpec;
+        final int heightMeasureSpec;
+        final long layoutVersion;
+        // set from the executor once solved
+        volatile LayoutSnapshot.Frames frames;
+
+        PrecomputedLayout(int widthMeasureSpec, int heightMeasureSpec, long layoutVersion) {
+            this.widthMeasureSpec = widthMeasureSpec;
+            this.heightMeasureSpec = heightMeasureSpec;
+            this.layoutVersion = layoutVersion;
+        }
+    }
+
+    /**
+     * Measures the widgets of a {@link LayoutSnapshot} from the sizes their views were measured
+     * with on the UI thread before solving. Views are never touched, so it can run on any thread.
+     * A measure that was not captured ahead of time marks the snapshot as incomplete, except for
+     * exact specs on both sides, which a view is expected to honor.
+     */
+    private static class SnapshotMeasurer implements BasicMeasure.Measurer {
+        private final LayoutSnapshot mSnapshot;
+        private final boolean[] mNeedsBaseline;
+        private final int mLayoutWidthSpec;
+        private final int mLayoutHeightSpec;
+        private final int mWidthPadding;
+        private final int mHeightPadding;
+        private final boolean mOptimizeDirect;
+
+        SnapshotMeasurer(LayoutSnapshot snapshot, Measurer measurer) {
+            mSnapshot = snapshot;
+            mNeedsBaseline = new boolean[snapshot.size()];
+            mLayoutWidthSpec = measurer.layoutWidthSpec;
+            mLayoutHeightSpec = measurer.layoutHeightSpec;
+            mWidthPadding = measurer.paddingWidth;
+            mHeightPadding = measurer.paddingTop + measurer.paddingBottom;
+            mOptimizeDirect = Optimizer.enabled(snapshot.getContainer().getOptimizationLevel(),
+                    Optimizer.OPTIMIZATION_DIRECT);
+        }
+
+        private int getSpec(ConstraintWidget widget, ConstraintWidget.DimensionBehaviour behaviour,
+                            int dimension, boolean horizontal) {
+            int layoutSpec = horizontal ? mLayoutWidthSpec : mLayoutHeightSpec;
+            int padding = horizontal ? mWidthPadding : mHeightPadding;
+            switch (behaviour) {
+                case FIXED:
+                    return MeasureSpec.makeMeasureSpec(dimension, MeasureSpec.EXACTLY);
+                case MATCH_PARENT:
+                    int margin = horizontal ? widget.getHorizontalMargin() : widget.getVerticalMargin();
+                    return getChildMeasureSpec(layoutSpec, padding + margin, LayoutParams.MATCH_PARENT);
+                default:
+                    return getChildMeasureSpec(layoutSpec, padding, WRAP_CONTENT);
+            }
+        }
+
+        /**
+         * Measure the view of a child on the UI thread, with the specs it is measured with first
+         */
+        void premeasure(int index, Measurer measurer) {
+            ConstraintWidget widget = mSnapshot.getSource(index);
+            View child = (View) widget.getCompanionWidget();
+            if (child == null || child.getVisibility() == GONE) {
+                return;
+            }
+            LayoutParams params = (LayoutParams) child.getLayoutParams();
+            mNeedsBaseline[index] = params.needsBaseline;
+            int horizontalSpec = getSpec(widget, widget.getHorizontalDimensionBehaviour(), widget.getWidth(), true);
+            int verticalSpec = getSpec(widget, widget.getVerticalDimensionBehaviour(), widget.getHeight(), false);
+            MeasureCache cache = measurer.getMeasureCache(child, params);
+            measurer.measureChild(child, cache, horizontalSpec, verticalSpec);
+            mSnapshot.getMeasureCache(index).put(horizontalSpec, verticalSpec,
+                    cache != null ? cache.width : child.getMeasuredWidth(),
+                    cache != null ? cache.height : child.getMeasuredHeight(),
+                    cache != null ? cache.baseline : child.getBaseline());
+        }
+
+        private boolean lookup(MeasureCache cache, int index, int horizontalSpec, int verticalSpec) {
+            if (cache.get(horizontalSpec, verticalSpec)) {
+                return true;
+            }
+            if (MeasureSpec.getMode(horizontalSpec) == MeasureSpec.EXACTLY
+                    && MeasureSpec.getMode(verticalSpec) == MeasureSpec.EXACTLY
+                    && !mNeedsBaseline[index]) {
+                cache.put(horizontalSpec, verticalSpec, MeasureSpec.getSize(horizontalSpec),
+                        MeasureSpec.getSize(verticalSpec), -1);
+                return true;
+            }
+            mSnapshot.markIncomplete();
+            return false;
+        }
+
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            if (widget.getVisibility() == GONE && !widget.isInPlaceholder()) {
+                measure.measuredWidth = 0;
+                measure.measuredHeight = 0;
+                measure.measuredBaseline = 0;
+                return;
+            }
+            if (widget.getParent() == null) {
+                return;
+            }
+            int index = mSnapshot.indexOf(widget);
+            if (index == -1) {
+                mSnapshot.markIncomplete();
+                return;
+            }
+            MeasureCache cache = mSnapshot.getMeasureCache(index);
+            ConstraintWidget.DimensionBehaviour horizontalBehavior = measure.horizontalBehavior;
+            ConstraintWidget.DimensionBehaviour verticalBehavior = measure.verticalBehavior;
+            boolean horizontalMatchConstraints = horizontalBehavior == ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT;
+            boolean verticalMatchConstraints = verticalBehavior == ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT;
+            boolean useGiven = measure.measureStrategy == BasicMeasure.Measure.TRY_GIVEN_DIMENSIONS
+                    || measure.measureStrategy == BasicMeasure.Measure.USE_GIVEN_DIMENSIONS;
+
+            int width = 0;
+            int height = 0;
+            int baseline = 0;
+            if (useGiven || !(horizontalMatchConstraints && widget.mMatchConstraintDefaultWidth == MATCH_CONSTRAINT_SPREAD
+                    && verticalMatchConstraints && widget.mMatchConstraintDefaultHeight == MATCH_CONSTRAINT_SPREAD)) {
+                int horizontalSpec = getSpec(widget, horizontalBehavior, measure.horizontalDimension, true);
+                int verticalSpec = getSpec(widget, verticalBehavior, measure.verticalDimension, false);
+                if (horizontalMatchConstraints && useGiven) {
+                    boolean otherDimensionStable = cache.hasResult() && cache.height == widget.getHeight();
+                    if (measure.measureStrategy == BasicMeasure.Measure.USE_GIVEN_DIMENSIONS
+                            || widget.mMatchConstraintDefaultWidth != MATCH_CONSTRAINT_WRAP
+                            || otherDimensionStable || widget.isResolvedHorizontally()) {
+                        horizontalSpec = MeasureSpec.makeMeasureSpec(widget.getWidth(), MeasureSpec.EXACTLY);
+                    }
+                }
+                if (verticalMatchConstraints && useGiven) {
+                    boolean otherDimensionStable = cache.hasResult() && cache.width == widget.getWidth();
+                    if (measure.measureStrategy == BasicMeasure.Measure.USE_GIVEN_DIMENSIONS
+                            || widget.mMatchConstraintDefaultHeight != MATCH_CONSTRAINT_WRAP
+                            || otherDimensionStable || widget.isResolvedVertically()) {
+                        verticalSpec = MeasureSpec.makeMeasureSpec(widget.getHeight(), MeasureSpec.EXACTLY);
+                    }
+                }
+                if (!lookup(cache, index, horizontalSpec, verticalSpec)) {
+                    return;
+                }
+                int w = cache.width;
+                int h = cache.height;
+                width = w;
+                height = h;
+                baseline = cache.baseline;
+                if (widget.mMatchConstraintMinWidth > 0) {
+                    width = Math.max(widget.mMatchConstraintMinWidth, width);
+                }
+                if (widget.mMatchConstraintMaxWidth > 0) {
+                    width = Math.min(widget.mMatchConstraintMaxWidth, width);
+                }
+                if (widget.mMatchConstraintMinHeight > 0) {
+                    height = Math.max(widget.mMatchConstraintMinHeight, height);
+                }
+                if (widget.mMatchConstraintMaxHeight > 0) {
+                    height = Math.min(widget.mMatchConstraintMaxHeight, height);
+                }
+                if (!mOptimizeDirect) {
+                    boolean verticalDimensionKnown = verticalBehavior == ConstraintWidget.DimensionBehaviour.MATCH_PARENT
+                            || verticalBehavior == ConstraintWidget.DimensionBehaviour.FIXED;
+                    boolean horizontalDimensionKnown = horizontalBehavior == ConstraintWidget.DimensionBehaviour.MATCH_PARENT
+                            || horizontalBehavior == ConstraintWidget.DimensionBehaviour.FIXED;
+                    if (horizontalMatchConstraints && widget.mDimensionRatio > 0 && verticalDimensionKnown) {
+                        width = (int) (0.5f + height * widget.mDimensionRatio);
+                    } else if (verticalMatchConstraints && widget.mDimensionRatio > 0 && horizontalDimensionKnown) {
+                        height = (int) (0.5f + width / widget.mDimensionRatio);
+                    }
+                }
+                if (w != width || h != height) {
+                    if (w != width) {
+                        horizontalSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+                    }
+                    if (h != height) {
+                        verticalSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+                    }
+                    if (!lookup(cache, index, horizontalSpec, verticalSpec)) {
+                        return;
+                    }
+                    width = cache.width;
+                    height = cache.height;
+                    baseline = cache.baseline;
+                }
+            }
+
+            boolean hasBaseline = baseline != -1 || mNeedsBaseline[index];
+            measure.measuredNeedsSolverPass = (width != measure.horizontalDimension)
+                    || (height != measure.verticalDimension);
+            if (hasBaseline && baseline != -1 && widget.getBaselineDistance() != baseline) {
+                measure.measuredNeedsSolverPass = true;
+            }
+            measure.measuredWidth = width;
+            measure.measuredHeight = height;
+            measure.measuredHasBaseline = hasBaseline;
+            measure.measuredBaseline = baseline;
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    }
+
     protected boolean isRtl() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
             boolean isRtlSupported = (getContext().getApplicationInfo().flags & ApplicationInfo.FLAG_SUPPORTS_RTL) != 0;
@@ -1957,6 +2436,8 @@ public class ConstraintLayout extends ViewGroup {
      */
     public void setConstraintSet(ConstraintSet set) {
         mConstraintSet = set;
+        mConstraintSetVersion++;
+        mDirtyConstraints = true;
     }
 
     /**
@@ -2599,6 +3080,100 @@ public class ConstraintLayout extends ViewGroup {
         float resolvedGuidePercent;
 
         ConstraintWidget widget = new ConstraintWidget();
+        MeasureCache measureCache;
+
+        // copy of the params the widget constraints were last built from
+        LayoutParams appliedParams;
+        int appliedVisibility;
+        int appliedId;
+
+        void setApplied(View view) {
+            appliedParams = new LayoutParams(this);
+            appliedVisibility = view.getVisibility();
+            appliedId = view.getId();
+        }
+
+        /**
+         * Returns true if the view and these params are unchanged since the constraints
+         * of the widget were built from them.
+         */
+        boolean isApplied(View view) {
+            LayoutParams p = appliedParams;
+            if (p == null || view.getVisibility() != appliedVisibility || view.getId() != appliedId) {
+                return false;
+            }
+            return widget == p.widget && hasSameConstraints(p);
+        }
+
+        /**
+         * Returns true if the given params define the same size, margins and constraints
+         */
+        boolean hasSameConstraints(LayoutParams p) {
+            return leftMargin == p.leftMargin && rightMargin == p.rightMargin
+                    && hasSameDeclaredConstraints(p)
+                    && resolvedLeftToLeft == p.resolvedLeftToLeft
+                    && resolvedLeftToRight == p.resolvedLeftToRight
+                    && resolvedRightToLeft == p.resolvedRightToLeft
+                    && resolvedRightToRight == p.resolvedRightToRight
+                    && resolveGoneLeftMargin == p.resolveGoneLeftMargin
+                    && resolveGoneRightMargin == p.resolveGoneRightMargin
+                    && resolvedHorizontalBias == p.resolvedHorizontalBias;
+        }
+
+        /**
+         * Returns true if the given params declare the same size, margins and constraints,
+         * ignoring the values resolved for the layout direction
+         */
+        boolean hasSameDeclaredConstraints(LayoutParams p) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                if (getMarginStart() != p.getMarginStart() || getMarginEnd() != p.getMarginEnd()) {
+                    return false;
+                }
+            } else if (leftMargin != p.leftMargin || rightMargin != p.rightMargin) {
+                return false;
+            }
+            return width == p.width && height == p.height
+                    && topMargin == p.topMargin && bottomMargin == p.bottomMargin
+                    && guideBegin == p.guideBegin && guideEnd == p.guideEnd
+                    && guidePercent == p.guidePercent
+                    && leftToLeft == p.leftToLeft && leftToRight == p.leftToRight
+                    && rightToLeft == p.rightToLeft && rightToRight == p.rightToRight
+                    && topToTop == p.topToTop && topToBottom == p.topToBottom
+                    && bottomToTop == p.bottomToTop && bottomToBottom == p.bottomToBottom
+                    && baselineToBaseline == p.baselineToBaseline
+                    && baselineToTop == p.baselineToTop && baselineToBottom == p.baselineToBottom
+                    && circleConstraint == p.circleConstraint && circleRadius == p.circleRadius
+                    && circleAngle == p.circleAngle
+                    && startToEnd == p.startToEnd && startToStart == p.startToStart
+                    && endToStart == p.endToStart && endToEnd == p.endToEnd
+                    && goneLeftMargin == p.goneLeftMargin && goneTopMargin == p.goneTopMargin
+                    && goneRightMargin == p.goneRightMargin && goneBottomMargin == p.goneBottomMargin
+                    && goneStartMargin == p.goneStartMargin && goneEndMargin == p.goneEndMargin
+                    && goneBaselineMargin == p.goneBaselineMargin && baselineMargin == p.baselineMargin
+                    && horizontalBias == p.horizontalBias && verticalBias == p.verticalBias
+                    && equals(dimensionRatio, p.dimensionRatio)
+                    && horizontalWeight == p.horizontalWeight && verticalWeight == p.verticalWeight
+                    && horizontalChainStyle == p.horizontalChainStyle
+                    && verticalChainStyle == p.verticalChainStyle
+                    && constrainedWidth == p.constrainedWidth
+                    && constrainedHeight == p.constrainedHeight
+                    && matchConstraintDefaultWidth == p.matchConstraintDefaultWidth
+                    && matchConstraintDefaultHeight == p.matchConstraintDefaultHeight
+                    && matchConstraintMinWidth == p.matchConstraintMinWidth
+                    && matchConstraintMaxWidth == p.matchConstraintMaxWidth
+                    && matchConstraintMinHeight == p.matchConstraintMinHeight
+                    && matchConstraintMaxHeight == p.matchConstraintMaxHeight
+                    && matchConstraintPercentWidth == p.matchConstraintPercentWidth
+                    && matchConstraintPercentHeight == p.matchConstraintPercentHeight
+                    && editorAbsoluteX == p.editorAbsoluteX && editorAbsoluteY == p.editorAbsoluteY
+                    && orientation == p.orientation
+                    && equals(constraintTag, p.constraintTag)
+                    && wrapBehaviorInParent == p.wrapBehaviorInParent;
+        }
+
+        static boolean equals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
 
         /**
          * @hide
@@ -3593,6 +4168,7 @@ public class ConstraintLayout extends ViewGroup {
 
     private void markHierarchyDirty() {
         mDirtyHierarchy = true;
+        mLayoutVersion++;
         // reset measured cache
         mLastMeasureWidth = -1;
         mLastMeasureHeight = -1;
@@ -30,6 +30,7 @@ import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * @hide
@@ -44,6 +45,11 @@ public class ConstraintLayoutStates {
     private SparseArray<State> mStateList = new SparseArray<>();
     private SparseArray<ConstraintSet> mConstraintSetMap = new SparseArray<>();
     private ConstraintsChangedListener mConstraintsChangedListener = null;
+    // the set last applied to the layout, and the views that differ between pairs of sets
+    private ConstraintSet mAppliedConstraintSet = null;
+    // the constraint set version of the layout after that apply, to detect other applies
+    private int mAppliedVersion = -1;
+    private HashMap<ConstraintSet, HashMap<ConstraintSet, int[]>> mChangedIds = new HashMap<>();
 
     ConstraintLayoutStates(Context context, ConstraintLayout layout, int resourceID) {
         mConstraintLayout = layout;
@@ -99,7 +105,7 @@ public class ConstraintLayoutStates {
             if (mConstraintsChangedListener != null) {
                 mConstraintsChangedListener.preLayoutChange(-1, cid);
             }
-            constraintSet.applyTo(mConstraintLayout);
+            applyConstraintSet(constraintSet);
             if (mConstraintsChangedListener != null) {
                 mConstraintsChangedListener.postLayoutChange(-1, cid);
             }
@@ -121,7 +127,7 @@ public class ConstraintLayoutStates {
             if (mConstraintsChangedListener != null) {
                 mConstraintsChangedListener.preLayoutChange(id, cid);
             }
-            constraintSet.applyTo(mConstraintLayout);
+            applyConstraintSet(constraintSet);
             if (mConstraintsChangedListener != null) {
                 mConstraintsChangedListener.postLayoutChange(id, cid);
             }
@@ -129,6 +135,37 @@ public class ConstraintLayoutStates {
 
     }
 
+    /**
+     * Apply the set, only updating the views that differ from the set applied before.
+     * Falls back to a full apply if the layout no longer reflects the set applied before.
+     */
+    private void applyConstraintSet(ConstraintSet constraintSet) {
+        ConstraintSet current = mAppliedConstraintSet;
+        mAppliedConstraintSet = constraintSet;
+        if (current == null || mAppliedVersion != mConstraintLayout.mConstraintSetVersion
+                || !current.isAppliedTo(mConstraintLayout)) {
+            // another set was applied, or the layout params were edited, since our last apply
+            constraintSet.applyTo(mConstraintLayout);
+            mAppliedVersion = mConstraintLayout.mConstraintSetVersion;
+            return;
+        }
+        HashMap<ConstraintSet, int[]> changes = mChangedIds.get(current);
+        if (changes == null) {
+            changes = new HashMap<>();
+            mChangedIds.put(current, changes);
+        }
+        int[] changedIds = changes.get(constraintSet);
+        if (changedIds == null) {
+            changedIds = constraintSet.getChangedIds(current);
+            changes.put(constraintSet, changedIds);
+        }
+        if (DEBUG) {
+            Log.v(TAG, "apply delta of " + changedIds.length + " views");
+        }
+        constraintSet.applyDeltaInternal(mConstraintLayout, changedIds);
+        mAppliedVersion = mConstraintLayout.mConstraintSetVersion;
+    }
+
     public void setOnConstraintsChanged(ConstraintsChangedListener constraintsChangedListener) {
         this.mConstraintsChangedListener = constraintsChangedListener;
     }
@@ -239,7 +239,7 @@ public class ConstraintSet {
 
     private static final boolean DEBUG = false;
     private static final int[] VISIBILITY_FLAGS = new int[]{VISIBLE, INVISIBLE, GONE};
-    private static final int BARRIER_TYPE = 1;
+    static final int BARRIER_TYPE = 1;
 
     private HashMap<Integer, Constraint> mConstraints = new HashMap<Integer, Constraint>();
 
@@ -1114,6 +1114,55 @@ public class ConstraintSet {
             mWrapBehavior = src.mWrapBehavior;
         }
 
+        /**
+         * Returns true if the other layout holds the same values
+         */
+        boolean hasSameValues(Layout l) {
+            return mIsGuideline == l.mIsGuideline
+                    && mWidth == l.mWidth && mHeight == l.mHeight
+                    && guideBegin == l.guideBegin && guideEnd == l.guideEnd
+                    && guidePercent == l.guidePercent
+                    && leftToLeft == l.leftToLeft && leftToRight == l.leftToRight
+                    && rightToLeft == l.rightToLeft && rightToRight == l.rightToRight
+                    && topToTop == l.topToTop && topToBottom == l.topToBottom
+                    && bottomToTop == l.bottomToTop && bottomToBottom == l.bottomToBottom
+                    && baselineToBaseline == l.baselineToBaseline
+                    && baselineToTop == l.baselineToTop && baselineToBottom == l.baselineToBottom
+                    && startToEnd == l.startToEnd && startToStart == l.startToStart
+                    && endToStart == l.endToStart && endToEnd == l.endToEnd
+                    && horizontalBias == l.horizontalBias && verticalBias == l.verticalBias
+                    && ConstraintLayout.LayoutParams.equals(dimensionRatio, l.dimensionRatio)
+                    && circleConstraint == l.circleConstraint && circleRadius == l.circleRadius
+                    && circleAngle == l.circleAngle
+                    && editorAbsoluteX == l.editorAbsoluteX && editorAbsoluteY == l.editorAbsoluteY
+                    && orientation == l.orientation
+                    && leftMargin == l.leftMargin && rightMargin == l.rightMargin
+                    && topMargin == l.topMargin && bottomMargin == l.bottomMargin
+                    && endMargin == l.endMargin && startMargin == l.startMargin
+                    && baselineMargin == l.baselineMargin
+                    && goneLeftMargin == l.goneLeftMargin && goneTopMargin == l.goneTopMargin
+                    && goneRightMargin == l.goneRightMargin && goneBottomMargin == l.goneBottomMargin
+                    && goneEndMargin == l.goneEndMargin && goneStartMargin == l.goneStartMargin
+                    && goneBaselineMargin == l.goneBaselineMargin
+                    && verticalWeight == l.verticalWeight && horizontalWeight == l.horizontalWeight
+                    && horizontalChainStyle == l.horizontalChainStyle
+                    && verticalChainStyle == l.verticalChainStyle
+                    && widthDefault == l.widthDefault && heightDefault == l.heightDefault
+                    && widthMax == l.widthMax && heightMax == l.heightMax
+                    && widthMin == l.widthMin && heightMin == l.heightMin
+                    && widthPercent == l.widthPercent && heightPercent == l.heightPercent
+                    && mBarrierDirection == l.mBarrierDirection
+                    && mBarrierMargin == l.mBarrierMargin
+                    && mHelperType == l.mHelperType
+                    && Arrays.equals(mReferenceIds, l.mReferenceIds)
+                    && ConstraintLayout.LayoutParams.equals(mReferenceIdString, l.mReferenceIdString)
+                    && ConstraintLayout.LayoutParams.equals(mConstraintTag, l.mConstraintTag)
+                    && constrainedWidth == l.constrainedWidth
+                    && constrainedHeight == l.constrainedHeight
+                    && mBarrierAllowsGoneWidgets == l.mBarrierAllowsGoneWidgets
+                    && mWrapBehavior == l.mWrapBehavior;
+        }
+
         private static SparseIntArray mapToConstant = new SparseIntArray();
         private static final int BASELINE_TO_BASELINE = 1;
         private static final int BOTTOM_MARGIN = 2;
@@ -1546,6 +1595,21 @@ public class ConstraintSet {
             elevation = src.elevation;
         }
 
+        /**
+         * Returns true if the other transform holds the same values
+         */
+        boolean hasSameValues(Transform t) {
+            return rotation == t.rotation
+                    && rotationX == t.rotationX && rotationY == t.rotationY
+                    && scaleX == t.scaleX && scaleY == t.scaleY
+                    && Float.compare(transformPivotX, t.transformPivotX) == 0
+                    && Float.compare(transformPivotY, t.transformPivotY) == 0
+                    && transformPivotTarget == t.transformPivotTarget
+                    && translationX == t.translationX && translationY == t.translationY
+                    && translationZ == t.translationZ
+                    && applyElevation == t.applyElevation && elevation == t.elevation;
+        }
+
         private static SparseIntArray mapToConstant = new SparseIntArray();
         private static final int ROTATION = 1;
         private static final int ROTATION_X = 2;
@@ -1650,6 +1714,14 @@ public class ConstraintSet {
             mVisibilityMode = src.mVisibilityMode;
         }
 
+        /**
+         * Returns true if the other property set holds the same values
+         */
+        boolean hasSameValues(PropertySet p) {
+            return visibility == p.visibility && mVisibilityMode == p.mVisibilityMode
+                    && alpha == p.alpha && Float.compare(mProgress, p.mProgress) == 0;
+        }
+
         void fillFromAttributeList(Context context, AttributeSet attrs) {
             TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PropertySet);
             mApply = true;
@@ -1706,6 +1778,25 @@ public class ConstraintSet {
             mPolarRelativeTo = src.mPolarRelativeTo;
         }
 
+        /**
+         * Returns true if the other motion holds the same values
+         */
+        boolean hasSameValues(Motion m) {
+            return mAnimateRelativeTo == m.mAnimateRelativeTo
+                    && mAnimateCircleAngleTo == m.mAnimateCircleAngleTo
+                    && ConstraintLayout.LayoutParams.equals(mTransitionEasing, m.mTransitionEasing)
+                    && mPathMotionArc == m.mPathMotionArc && mDrawPath == m.mDrawPath
+                    && Float.compare(mMotionStagger, m.mMotionStagger) == 0
+                    && mPolarRelativeTo == m.mPolarRelativeTo
+                    && Float.compare(mPathRotate, m.mPathRotate) == 0
+                    && Float.compare(mQuantizeMotionPhase, m.mQuantizeMotionPhase) == 0
+                    && mQuantizeMotionSteps == m.mQuantizeMotionSteps
+                    && ConstraintLayout.LayoutParams.equals(mQuantizeInterpolatorString,
+                            m.mQuantizeInterpolatorString)
+                    && mQuantizeInterpolatorType == m.mQuantizeInterpolatorType
+                    && mQuantizeInterpolatorID == m.mQuantizeInterpolatorID;
+        }
+
         private static SparseIntArray mapToConstant = new SparseIntArray();
         private static final int TRANSITION_PATH_ROTATE = 1;
         private static final int PATH_MOTION_ARC = 2;
@@ -2062,6 +2153,30 @@ public class ConstraintSet {
             }
         }
 
+        /**
+         * Returns true if applying the other constraint to a view would have the same effect
+         */
+        boolean hasSameValues(Constraint other) {
+            if (!layout.hasSameValues(other.layout)
+                    || !propertySet.hasSameValues(other.propertySet)
+                    || !transform.hasSameValues(other.transform)
+                    || !motion.hasSameValues(other.motion)) {
+                return false;
+            }
+            if (mCustomConstraints.size() != other.mCustomConstraints.size()) {
+                return false;
+            }
+            for (String name : mCustomConstraints.keySet()) {
+                ConstraintAttribute attribute = mCustomConstraints.get(name);
+                ConstraintAttribute otherAttribute = other.mCustomConstraints.get(name);
+                if (attribute == null || otherAttribute == null
+                        || !attribute.hasSameValue(otherAttribute)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public void applyTo(ConstraintLayout.LayoutParams param) {
             param.leftToLeft = layout.leftToLeft;
             param.leftToRight = layout.leftToRight;
@@ -2265,6 +2380,115 @@ public class ConstraintSet {
         constraintLayout.requestLayout();
     }
 
+    /**
+     * Apply the constraints to a ConstraintLayout whose children are currently in the state
+     * defined by {@code current}, typically because it was the last set applied to it.
+     * Only the views whose constraints differ between the two sets are updated, and nothing
+     * is laid out again if the sets are identical.
+     *
+     * @param current          the set the layout is currently in
+     * @param constraintLayout to be modified
+     */
+    public void applyDeltaFrom(ConstraintSet current, ConstraintLayout constraintLayout) {
+        applyDeltaInternal(constraintLayout, getChangedIds(current));
+    }
+
+    /**
+     * Get the ids of the views whose constraints differ between this set and another one,
+     * including ids defined in only one of them.
+     *
+     * @param other the set to compare to
+     * @return the sorted ids
+     */
+    public int[] getChangedIds(ConstraintSet other) {
+        HashSet<Integer> ids = new HashSet<>(mConstraints.keySet());
+        ids.addAll(other.mConstraints.keySet());
+        int[] changed = new int[ids.size()];
+        int count = 0;
+        for (Integer id : ids) {
+            Constraint constraint = mConstraints.get(id);
+            Constraint otherConstraint = other.mConstraints.get(id);
+            if (constraint == null || otherConstraint == null
+                    || !constraint.hasSameValues(otherConstraint)) {
+                changed[count++] = id;
+            }
+        }
+        changed = Arrays.copyOf(changed, count);
+        Arrays.sort(changed);
+        return changed;
+    }
+
+    /**
+     * Returns true if the children of the layout still have the layout params this set
+     * gives them, so that it can be used as the base of a delta apply
+     */
+    boolean isAppliedTo(ConstraintLayout constraintLayout) {
+        ConstraintLayout.LayoutParams expected = new ConstraintLayout.LayoutParams(0, 0);
+        int count = constraintLayout.getChildCount();
+        for (int i = 0; i < count; i++) {
+            View view = constraintLayout.getChildAt(i);
+            Constraint constraint = mConstraints.get(view.getId());
+            if (constraint == null) {
+                continue;
+            }
+            ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) view
+                    .getLayoutParams();
+            // the values a constraint does not set are kept from the view
+            expected.constraintTag = params.constraintTag;
+            expected.baselineMargin = params.baselineMargin;
+            expected.goneLeftMargin = params.goneLeftMargin;
+            expected.goneRightMargin = params.goneRightMargin;
+            expected.goneBaselineMargin = params.goneBaselineMargin;
+            constraint.applyTo(expected);
+            if (!expected.hasSameDeclaredConstraints(params)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply the constraints of the given (sorted) ids only
+     */
+    void applyDeltaInternal(ConstraintLayout constraintLayout, int[] changedIds) {
+        for (Integer id : mConstraints.keySet()) {
+            Constraint constraint = mConstraints.get(id);
+            if (constraint != null && constraintLayout.getViewById(id) == null
+                    && (constraint.layout.mHelperType == BARRIER_TYPE || constraint.layout.mIsGuideline)) {
+                // the views this set creates are only added by a full apply
+                applyTo(constraintLayout);
+                return;
+            }
+        }
+        int count = constraintLayout.getChildCount();
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            View view = constraintLayout.getChildAt(i);
+            int id = view.getId();
+            if (id == -1 || Arrays.binarySearch(changedIds, id) < 0) {
+                continue;
+            }
+            Constraint constraint = mConstraints.get(id);
+            if (constraint == null) {
+                continue;
+            }
+            applyToView(view, constraint, true);
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            View view = constraintLayout.getChildAt(i);
+            if (view instanceof ConstraintHelper) {
+                ConstraintHelper constraintHelper = (ConstraintHelper) view;
+                constraintHelper.applyLayoutFeaturesInConstraintSet(constraintLayout);
+            }
+        }
+        constraintLayout.setConstraintSet(null);
+        constraintLayout.requestLayout();
+    }
+
 
     /**
      * Apply the constraints to a ConstraintLayout.
@@ -2342,6 +2566,7 @@ public class ConstraintSet {
      * Used to set constraints when used by constraint layout
      */
     void applyToInternal(ConstraintLayout constraintLayout, boolean applyPostLayout) {
+        constraintLayout.mConstraintSetVersion++;
         int count = constraintLayout.getChildCount();
         HashSet<Integer> used = new HashSet<Integer>(mConstraints.keySet());
         for (int i = 0; i < count; i++) {
@@ -2365,71 +2590,7 @@ public class ConstraintSet {
                 if (constraint == null) {
                     continue;
                 }
-                if (view instanceof Barrier) {
-                    constraint.layout.mHelperType = BARRIER_TYPE;
-                    Barrier barrier = (Barrier) view;
-                    barrier.setId(id);
-                    barrier.setType(constraint.layout.mBarrierDirection);
-                    barrier.setMargin(constraint.layout.mBarrierMargin);
-
-                    barrier.setAllowsGoneWidget(constraint.layout.mBarrierAllowsGoneWidgets);
-                    if (constraint.layout.mReferenceIds != null) {
-                        barrier.setReferencedIds(constraint.layout.mReferenceIds);
-                    } else if (constraint.layout.mReferenceIdString != null) {
-                        constraint.layout.mReferenceIds = convertReferenceString(barrier,
-                                constraint.layout.mReferenceIdString);
-                        barrier.setReferencedIds(constraint.layout.mReferenceIds);
-                    }
-                }
-                ConstraintLayout.LayoutParams param = (ConstraintLayout.LayoutParams) view
-                        .getLayoutParams();
-                param.validate();
-                constraint.applyTo(param);
-
-                if (applyPostLayout) {
-                    ConstraintAttribute.setAttributes(view, constraint.mCustomConstraints);
-                }
-                view.setLayoutParams(param);
-                if (constraint.propertySet.mVisibilityMode == VISIBILITY_MODE_NORMAL) {
-                    view.setVisibility(constraint.propertySet.visibility);
-                }
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                    view.setAlpha(constraint.propertySet.alpha);
-                    view.setRotation(constraint.transform.rotation);
-                    view.setRotationX(constraint.transform.rotationX);
-                    view.setRotationY(constraint.transform.rotationY);
-                    view.setScaleX(constraint.transform.scaleX);
-                    view.setScaleY(constraint.transform.scaleY);
-                    if (constraint.transform.transformPivotTarget != UNSET) {
-                        View layout = (View) view.getParent();
-                        View center = layout.findViewById(constraint.transform.transformPivotTarget);
-                        if (center != null) {
-                            float cy = (center.getTop() + center.getBottom()) / 2.0f;
-                            float cx = (center.getLeft() + center.getRight()) / 2.0f;
-                            if (view.getRight() - view.getLeft() > 0 && view.getBottom() - view.getTop() > 0) {
-                                float px = (cx - view.getLeft());
-                                float py = (cy - view.getTop());
-                                view.setPivotX(px);
-                                view.setPivotY(py);
-                            }
-                        }
-                    } else {
-                        if (!Float.isNaN(constraint.transform.transformPivotX)) {
-                            view.setPivotX(constraint.transform.transformPivotX);
-                        }
-                        if (!Float.isNaN(constraint.transform.transformPivotY)) {
-                            view.setPivotY(constraint.transform.transformPivotY);
-                        }
-                    }
-                    view.setTranslationX(constraint.transform.translationX);
-                    view.setTranslationY(constraint.transform.translationY);
-                    if (Build.VERSION.SDK_INT >= VERSION_CODES.LOLLIPOP) {
-                        view.setTranslationZ(constraint.transform.translationZ);
-                        if (constraint.transform.applyElevation) {
-                            view.setElevation(constraint.transform.elevation);
-                        }
-                    }
-                }
+                applyToView(view, constraint, applyPostLayout);
             } else {
                 Log.v(TAG, "WARNING NO CONSTRAINTS for view " + id);
             }
@@ -2474,6 +2635,97 @@ public class ConstraintSet {
         }
     }
 
+    /**
+     * Apply a constraint to one child view of the layout
+     */
+    void applyToView(View view, Constraint constraint, boolean applyPostLayout) {
+        if (view instanceof Barrier) {
+            constraint.layout.mHelperType = BARRIER_TYPE;
+            if (constraint.layout.mReferenceIds == null
+                    && constraint.layout.mReferenceIdString != null) {
+                constraint.layout.mReferenceIds = convertReferenceString(view,
+                        constraint.layout.mReferenceIdString);
+            }
+        }
+        applyLayoutToView(view, constraint, constraint.layout.mReferenceIds);
+        if (applyPostLayout) {
+            ConstraintAttribute.setAttributes(view, constraint.mCustomConstraints);
+        }
+        applyPropertiesToView(view, constraint);
+    }
+
+    /**
+     * Update the layout params of a view from a constraint, without changing the constraint.
+     * The params still have to be set on the view with {@link #applyPropertiesToView}.
+     *
+     * @param referenceIds the views referenced if the view is a barrier
+     */
+    static void applyLayoutToView(View view, Constraint constraint, int[] referenceIds) {
+        if (view instanceof Barrier) {
+            Barrier barrier = (Barrier) view;
+            barrier.setId(view.getId());
+            barrier.setType(constraint.layout.mBarrierDirection);
+            barrier.setMargin(constraint.layout.mBarrierMargin);
+
+            barrier.setAllowsGoneWidget(constraint.layout.mBarrierAllowsGoneWidgets);
+            if (referenceIds != null) {
+                barrier.setReferencedIds(referenceIds);
+            }
+        }
+        ConstraintLayout.LayoutParams param = (ConstraintLayout.LayoutParams) view
+                .getLayoutParams();
+        param.validate();
+        constraint.applyTo(param);
+    }
+
+    /**
+     * Set the layout params updated by {@link #applyLayoutToView} and apply the visibility and
+     * transform of the constraint to the view
+     */
+    static void applyPropertiesToView(View view, Constraint constraint) {
+        view.setLayoutParams(view.getLayoutParams());
+        if (constraint.propertySet.mVisibilityMode == VISIBILITY_MODE_NORMAL) {
+            view.setVisibility(constraint.propertySet.visibility);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            view.setAlpha(constraint.propertySet.alpha);
+            view.setRotation(constraint.transform.rotation);
+            view.setRotationX(constraint.transform.rotationX);
+            view.setRotationY(constraint.transform.rotationY);
+            view.setScaleX(constraint.transform.scaleX);
+            view.setScaleY(constraint.transform.scaleY);
+            if (constraint.transform.transformPivotTarget != UNSET) {
+                View layout = (View) view.getParent();
+                View center = layout.findViewById(constraint.transform.transformPivotTarget);
+                if (center != null) {
+                    float cy = (center.getTop() + center.getBottom()) / 2.0f;
+                    float cx = (center.getLeft() + center.getRight()) / 2.0f;
+                    if (view.getRight() - view.getLeft() > 0 && view.getBottom() - view.getTop() > 0) {
+                        float px = (cx - view.getLeft());
+                        float py = (cy - view.getTop());
+                        view.setPivotX(px);
+                        view.setPivotY(py);
+                    }
+                }
+            } else {
+                if (!Float.isNaN(constraint.transform.transformPivotX)) {
+                    view.setPivotX(constraint.transform.transformPivotX);
+                }
+                if (!Float.isNaN(constraint.transform.transformPivotY)) {
+                    view.setPivotY(constraint.transform.transformPivotY);
+                }
+            }
+            view.setTranslationX(constraint.transform.translationX);
+            view.setTranslationY(constraint.transform.translationY);
+            if (Build.VERSION.SDK_INT >= VERSION_CODES.LOLLIPOP) {
+                view.setTranslationZ(constraint.transform.translationZ);
+                if (constraint.transform.applyElevation) {
+                    view.setElevation(constraint.transform.elevation);
+                }
+            }
+        }
+    }
+
     /**
      * Center widget between the other two widgets.
      * (for sides see: {@link #TOP, {@link #BOTTOM}, {@link #START, {@link #END}, {@link #LEFT, {@link #RIGHT})
@@ -5228,18 +5480,7 @@ public class ConstraintSet {
         for (int i = 0; i < split.length; i++) {
             String idString = split[i];
             idString = idString.trim();
-            int tag = 0;
-            try {
-                Class res = R.id.class;
-                Field field = res.getField(idString);
-                tag = field.getInt(null);
-            } catch (Exception e) {
-                // Do nothing
-            }
-            if (tag == 0) {
-                tag = context.getResources().getIdentifier(idString, "id",
-                        context.getPackageName());
-            }
+            int tag = findId(context, idString);
 
             if (tag == 0 && view.isInEditMode() && view.getParent() instanceof ConstraintLayout) {
                 ConstraintLayout constraintLayout = (ConstraintLayout) view.getParent();
@@ -5256,6 +5497,27 @@ public class ConstraintSet {
         return tags;
     }
 
+    /**
+     * Resolve the id of a view from its name
+     *
+     * @return the id or 0 if it is not found
+     */
+    static int findId(Context context, String idString) {
+        int tag = 0;
+        try {
+            Class res = R.id.class;
+            Field field = res.getField(idString);
+            tag = field.getInt(null);
+        } catch (Exception e) {
+            // Do nothing
+        }
+        if (tag == 0) {
+            tag = context.getResources().getIdentifier(idString, "id",
+                    context.getPackageName());
+        }
+        return tag;
+    }
+
     /**
      * @hide
      */
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.widget;
+
+import android.content.Context;
+import android.view.View;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An immutable, compiled copy of a {@link ConstraintSet} that can be shared by many
+ * ConstraintLayouts with the same children, such as the items of a RecyclerView.
+ * Everything applyTo needs is resolved once, when the template is built, into arrays
+ * sorted by id: applying the template does not go through the HashMaps of the
+ * ConstraintSet and never modifies the template, so it can be used on several
+ * hierarchies and from several threads.
+ *
+ * @hide
+ */
+public class ConstraintSetTemplate {
+    private static final ConstraintAttribute[] NO_CUSTOM = new ConstraintAttribute[0];
+    private final boolean mForceId;
+    private final int[] mIds;
+    // private copies, only read once the template is built
+    private final ConstraintSet.Constraint[] mConstraints;
+    private final ConstraintAttribute[][] mCustom;
+    private final int[][] mReferenceIds;
+    private final boolean[] mCreated; // barriers and guidelines added if missing
+    private final int mCreatedViews;
+
+    /**
+     * Compile a ConstraintSet. Later changes to the set are not seen by the template.
+     *
+     * @param context used to resolve the views referenced by name
+     * @param set     the ConstraintSet to copy
+     */
+    public ConstraintSetTemplate(Context context, ConstraintSet set) {
+        mForceId = set.isForceId();
+        int[] keys = set.getKnownIds();
+        Arrays.sort(keys);
+        int count = keys.length;
+        mIds = keys;
+        mConstraints = new ConstraintSet.Constraint[count];
+        mCustom = new ConstraintAttribute[count][];
+        mReferenceIds = new int[count][];
+        mCreated = new boolean[count];
+        int created = 0;
+        for (int i = 0; i < count; i++) {
+            ConstraintSet.Constraint source = set.getConstraint(keys[i]);
+            ConstraintSet.Constraint constraint = source.clone();
+            mConstraints[i] = constraint;
+            // clone() does not copy the custom attributes
+            HashMap<String, ConstraintAttribute> custom = source.mCustomConstraints;
+            if (custom.isEmpty()) {
+                mCustom[i] = NO_CUSTOM;
+            } else {
+                ConstraintAttribute[] copy = new ConstraintAttribute[custom.size()];
+                int j = 0;
+                for (ConstraintAttribute attribute : custom.values()) {
+                    copy[j++] = new ConstraintAttribute(attribute);
+                }
+                mCustom[i] = copy;
+            }
+            int[] referenceIds = constraint.layout.mReferenceIds;
+            if (referenceIds == null && constraint.layout.mReferenceIdString != null) {
+                String[] names = constraint.layout.mReferenceIdString.split(",");
+                referenceIds = new int[names.length];
+                for (int j = 0; j < names.length; j++) {
+                    referenceIds[j] = ConstraintSet.findId(context, names[j].trim());
+                }
+            }
+            mReferenceIds[i] = referenceIds;
+            mCreated[i] = constraint.layout.mHelperType == ConstraintSet.BARRIER_TYPE
+                    || constraint.layout.mIsGuideline;
+            if (mCreated[i]) {
+                created++;
+            }
+        }
+        mCreatedViews = created;
+    }
+
+    /**
+     * @return the number of constraints in the template
+     */
+    public int size() {
+        return mIds.length;
+    }
+
+    /**
+     * Apply the template to a ConstraintLayout, equivalent to
+     * {@link ConstraintSet#applyTo(ConstraintLayout)} on the original set.
+     * Children with an id unknown to the template are left unchanged.
+     *
+     * @param constraintLayout to be modified
+     */
+    public void applyTo(ConstraintLayout constraintLayout) {
+        int count = constraintLayout.getChildCount();
+        int created = 0;
+        for (int i = 0; i < count; i++) {
+            View view = constraintLayout.getChildAt(i);
+            int id = view.getId();
+            int index = Arrays.binarySearch(mIds, id);
+            if (index < 0) {
+                continue;
+            }
+            if (mForceId && id == View.NO_ID) {
+                throw new RuntimeException("All children of ConstraintLayout must have ids to use ConstraintSet");
+            }
+            if (id == View.NO_ID) {
+                continue;
+            }
+            if (mCreated[index]) {
+                created++;
+            }
+            ConstraintSet.Constraint constraint = mConstraints[index];
+            ConstraintSet.applyLayoutToView(view, constraint, mReferenceIds[index]);
+            ConstraintAttribute[] custom = mCustom[index];
+            for (int j = 0; j < custom.length; j++) {
+                custom[j].applyCustom(view);
+            }
+            ConstraintSet.applyPropertiesToView(view, constraint);
+        }
+        if (created < mCreatedViews) {
+            addMissingViews(constraintLayout, count);
+        }
+        for (int i = 0; i < count; i++) {
+            View view = constraintLayout.getChildAt(i);
+            if (view instanceof ConstraintHelper) {
+                ((ConstraintHelper) view).applyLayoutFeaturesInConstraintSet(constraintLayout);
+            }
+        }
+        constraintLayout.setConstraintSet(null);
+        constraintLayout.requestLayout();
+    }
+
+    /**
+     * Add the barriers and guidelines of the template that are not among the children
+     *
+     * @param count the number of children before any was added
+     */
+    private void addMissingViews(ConstraintLayout constraintLayout, int count) {
+        boolean[] used = new boolean[mIds.length];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(mIds, constraintLayout.getChildAt(i).getId());
+            if (index >= 0) {
+                used[index] = true;
+            }
+        }
+        for (int i = 0; i < mIds.length; i++) {
+            if (used[i] || !mCreated[i]) {
+                continue;
+            }
+            ConstraintSet.Constraint constraint = mConstraints[i];
+            if (constraint.layout.mHelperType == ConstraintSet.BARRIER_TYPE) {
+                Barrier barrier = new Barrier(constraintLayout.getContext());
+                barrier.setId(mIds[i]);
+                if (mReferenceIds[i] != null) {
+                    barrier.setReferencedIds(mReferenceIds[i]);
+                }
+                barrier.setType(constraint.layout.mBarrierDirection);
+                barrier.setMargin(constraint.layout.mBarrierMargin);
+                ConstraintLayout.LayoutParams param = constraintLayout.generateDefaultLayoutParams();
+                barrier.validateParams();
+                constraint.applyTo(param);
+                constraintLayout.addView(barrier, param);
+            }
+            if (constraint.layout.mIsGuideline) {
+                Guideline guideline = new Guideline(constraintLayout.getContext());
+                guideline.setId(mIds[i]);
+                ConstraintLayout.LayoutParams param = constraintLayout.generateDefaultLayoutParams();
+                constraint.applyTo(param);
+                constraintLayout.addView(guideline, param);
+            }
+        }
+    }
+}
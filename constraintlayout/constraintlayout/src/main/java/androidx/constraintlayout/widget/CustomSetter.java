@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.widget;
+
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.widget.TextView;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Setter for a custom attribute, resolved once per (view class, method name, parameter type).
+ * Common setters (BackgroundColor, TextColor) are called directly; anything else goes
+ * through a cached {@link Method} so applying an attribute every frame does not repeat the lookup.
+ * The setters of the most recently used view classes are kept.
+ *
+ * @hide
+ */
+public class CustomSetter {
+    public static final int INT = 0;
+    public static final int FLOAT = 1;
+    public static final int BOOLEAN = 2;
+    public static final int DRAWABLE = 3;
+    public static final int CHAR_SEQUENCE = 4;
+    private static final Class<?>[] PARAMETER_TYPES = {
+            Integer.TYPE, Float.TYPE, Boolean.TYPE, Drawable.class, CharSequence.class};
+    private static final CustomSetter MISSING = new CustomSetter(null);
+    private static final int MAX_CACHED_CLASSES = 64;
+    // access ordered so the least recently used class is evicted first
+    private static final LinkedHashMap<Class<?>, HashMap<String, CustomSetter[]>> sCache =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Method mMethod;
+
+    private CustomSetter(Method method) {
+        mMethod = method;
+    }
+
+    /**
+     * Get the setter for methodName taking a parameter of the given type on viewClass
+     *
+     * @param viewClass  class of the view
+     * @param methodName full method name e.g. "setBackgroundColor"
+     * @param type       one of INT, FLOAT, BOOLEAN, DRAWABLE, CHAR_SEQUENCE
+     * @throws NoSuchMethodException if the view has no such public method
+     */
+    public static CustomSetter get(Class<?> viewClass, String methodName, int type)
+            throws NoSuchMethodException {
+        CustomSetter setter;
+        synchronized (sCache) {
+            HashMap<String, CustomSetter[]> methods = sCache.get(viewClass);
+            if (methods == null) {
+                methods = new HashMap<>();
+                sCache.put(viewClass, methods);
+                if (sCache.size() > MAX_CACHED_CLASSES) {
+                    Iterator<Class<?>> eldest = sCache.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            CustomSetter[] setters = methods.get(methodName);
+            if (setters == null) {
+                setters = new CustomSetter[PARAMETER_TYPES.length];
+                methods.put(methodName, setters);
+            }
+            setter = setters[type];
+            if (setter == null) {
+                setter = resolve(viewClass, methodName, type);
+                setters[type] = setter;
+            }
+        }
+        if (setter == MISSING) {
+            throw new NoSuchMethodException(viewClass.getName() + "." + methodName + " ["
+                    + PARAMETER_TYPES[type].getName() + "]");
+        }
+        return setter;
+    }
+
+    private static CustomSetter resolve(Class<?> viewClass, String methodName, int type) {
+        switch (type) {
+            case INT:
+                if ("setBackgroundColor".equals(methodName)) {
+                    return new BackgroundColor();
+                }
+                if ("setTextColor".equals(methodName) && TextView.class.isAssignableFrom(viewClass)) {
+                    return new TextColor();
+                }
+                break;
+        }
+        try {
+            return new CustomSetter(viewClass.getMethod(methodName, PARAMETER_TYPES[type]));
+        } catch (NoSuchMethodException e) {
+            return MISSING;
+        }
+    }
+
+    public void setInt(View view, int value)
+            throws IllegalAccessException, InvocationTargetException {
+        mMethod.invoke(view, value);
+    }
+
+    public void setFloat(View view, float value)
+            throws IllegalAccessException, InvocationTargetException {
+        mMethod.invoke(view, value);
+    }
+
+    public void setBoolean(View view, boolean value)
+            throws IllegalAccessException, InvocationTargetException {
+        mMethod.invoke(view, value);
+    }
+
+    public void setObject(View view, Object value)
+            throws IllegalAccessException, InvocationTargetException {
+        mMethod.invoke(view, value);
+    }
+
+    static class BackgroundColor extends CustomSetter {
+        BackgroundColor() {
+            super(null);
+        }
+
+        @Override
+        public void setInt(View view, int value) {
+            view.setBackgroundColor(value);
+        }
+    }
+
+    static class TextColor extends CustomSetter {
+        TextColor() {
+            super(null);
+        }
+
+        @Override
+        public void setInt(View view, int value) {
+            ((TextView) view).setTextColor(value);
+        }
+    }
+}
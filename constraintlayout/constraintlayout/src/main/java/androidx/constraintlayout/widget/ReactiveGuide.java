@@ -21,10 +21,16 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.View;
 
 import androidx.constraintlayout.motion.widget.MotionLayout;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
 /**
  * Utility class representing a reactive Guideline helper object for {@link ConstraintLayout}.
  */
@@ -33,6 +39,9 @@ public class ReactiveGuide extends View implements SharedValues.SharedValuesList
     private boolean mAnimateChange = false;
     private int mApplyToConstraintSetId = 0;
     private boolean mApplyToAllConstraintSets = true;
+    private int mValue;
+    // guides changed by the batch of shared values being delivered, per MotionLayout
+    private static final HashMap<MotionLayout, ArrayList<ReactiveGuide>> sPendingGuides = new HashMap<>();
 
     public ReactiveGuide(Context context) {
         super(context);
@@ -172,41 +181,89 @@ public class ReactiveGuide extends View implements SharedValues.SharedValuesList
             return;
         }
         if (getParent() instanceof MotionLayout) {
-            MotionLayout motionLayout = (MotionLayout) getParent();
+            final MotionLayout motionLayout = (MotionLayout) getParent();
+            mValue = newValue;
+            SharedValues sharedValues = ConstraintLayout.getSharedValues();
+            if (!sharedValues.isDeliveringBatch()) {
+                applyValues(motionLayout, Collections.singletonList(this));
+                return;
+            }
+            // apply the values of all the guides of the batch in one update
+            ArrayList<ReactiveGuide> guides = sPendingGuides.get(motionLayout);
+            if (guides == null) {
+                guides = new ArrayList<>();
+                sPendingGuides.put(motionLayout, guides);
+                sharedValues.runAfterBatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyValues(motionLayout, sPendingGuides.remove(motionLayout));
+                    }
+                });
+            }
+            if (!guides.contains(this)) {
+                guides.add(this);
+            }
+        }
+    }
+
+    /**
+     * Update the constraint sets of the MotionLayout with the value of each guide,
+     * each constraint set is only updated once
+     */
+    private static void applyValues(MotionLayout motionLayout, List<ReactiveGuide> guides) {
+        int[] ids = motionLayout.getConstraintSetIds();
+        SparseArray<ConstraintSet> updated = new SparseArray<>();
+        SparseArray<List<ReactiveGuide>> animated = new SparseArray<>();
+        for (ReactiveGuide guide : guides) {
             int currentState = motionLayout.getCurrentState();
-            if (mApplyToConstraintSetId != 0) {
-                currentState = mApplyToConstraintSetId;
+            if (guide.mApplyToConstraintSetId != 0) {
+                currentState = guide.mApplyToConstraintSetId;
             }
-            if (mAnimateChange) {
-                if (mApplyToAllConstraintSets) {
-                    int ids[] = motionLayout.getConstraintSetIds();
+            if (guide.mAnimateChange) {
+                if (guide.mApplyToAllConstraintSets) {
                     for (int i = 0; i < ids.length; i++) {
                         int cs = ids[i];
                         if (cs != currentState) {
-                            changeValue(newValue, id, motionLayout, cs);
+                            changeValue(updated, motionLayout, cs, guide);
                         }
                     }
                 }
-                ConstraintSet constraintSet = motionLayout.cloneConstraintSet(currentState);
-                constraintSet.setGuidelineEnd(id, newValue);
-                motionLayout.updateStateAnimate(currentState, constraintSet, 1000);
+                List<ReactiveGuide> list = animated.get(currentState);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    animated.put(currentState, list);
+                }
+                list.add(guide);
             } else {
-                if (mApplyToAllConstraintSets) {
-                    int ids[] = motionLayout.getConstraintSetIds();
+                if (guide.mApplyToAllConstraintSets) {
                     for (int i = 0; i < ids.length; i++) {
-                        int cs = ids[i];
-                        changeValue(newValue, id, motionLayout, cs);
+                        changeValue(updated, motionLayout, ids[i], guide);
                     }
                 } else {
-                    changeValue(newValue, id, motionLayout, currentState);
+                    changeValue(updated, motionLayout, currentState, guide);
                 }
             }
         }
+        for (int i = 0; i < updated.size(); i++) {
+            motionLayout.updateState(updated.keyAt(i), updated.valueAt(i));
+        }
+        for (int i = 0; i < animated.size(); i++) {
+            int state = animated.keyAt(i);
+            ConstraintSet constraintSet = motionLayout.cloneConstraintSet(state);
+            for (ReactiveGuide guide : animated.valueAt(i)) {
+                constraintSet.setGuidelineEnd(guide.getId(), guide.mValue);
+            }
+            motionLayout.updateStateAnimate(state, constraintSet, 1000);
+        }
     }
 
-    private void changeValue(int newValue, int id, MotionLayout motionLayout, int currentState) {
-        ConstraintSet constraintSet = motionLayout.getConstraintSet(currentState);
-        constraintSet.setGuidelineEnd(id, newValue);
-        motionLayout.updateState(currentState, constraintSet);
+    private static void changeValue(SparseArray<ConstraintSet> updated, MotionLayout motionLayout,
+                                    int state, ReactiveGuide guide) {
+        ConstraintSet constraintSet = updated.get(state);
+        if (constraintSet == null) {
+            constraintSet = motionLayout.getConstraintSet(state);
+            updated.put(state, constraintSet);
+        }
+        constraintSet.setGuidelineEnd(guide.getId(), guide.mValue);
     }
 }
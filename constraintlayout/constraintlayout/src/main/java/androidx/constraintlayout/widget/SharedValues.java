@@ -16,7 +16,11 @@
 
 package androidx.constraintlayout.widget;
 
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.SparseIntArray;
+import android.view.Choreographer;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -32,11 +36,114 @@ public class SharedValues {
 
     private SparseIntArray mValues = new SparseIntArray();
     private HashMap<Integer, HashSet<WeakReference<SharedValuesListener>>> mValuesListeners = new HashMap<>();
+    private boolean mCoalesce = false;
+    // the keys changed since the last batch, with their value before the batch
+    private SparseIntArray mPendingValues = new SparseIntArray();
+    private boolean mBatchScheduled = false;
+    private boolean mDeliveringBatch = false;
+    private ArrayList<Runnable> mAfterBatch = new ArrayList<>();
+    private Handler mHandler;
+    private Object mFrameCallback;
+    private final Runnable mDeliverBatch = new Runnable() {
+        @Override
+        public void run() {
+            deliverBatch();
+        }
+    };
 
     public interface SharedValuesListener {
         void onNewValue(int key, int newValue, int oldValue);
     }
 
+    /**
+     * When coalescing, the values fired during a frame are delivered once, just before the
+     * next layout pass: each listener is notified of the last value of a key and of its value
+     * before the batch. Useful for producers firing many values per frame, such as inset or
+     * keyboard animations.
+     *
+     * @param coalesce false by default, turning it off delivers the pending values
+     */
+    public void setCoalesceValues(boolean coalesce) {
+        mCoalesce = coalesce;
+        if (!coalesce) {
+            deliverBatch();
+        }
+    }
+
+    public boolean isCoalescingValues() {
+        return mCoalesce;
+    }
+
+    /**
+     * @return true while the listeners are notified of a batch of coalesced values
+     */
+    public boolean isDeliveringBatch() {
+        return mDeliveringBatch;
+    }
+
+    /**
+     * Run once the listeners were notified of the current batch, or now if no batch is
+     * being delivered. Lets listeners apply the changes of several keys together.
+     */
+    public void runAfterBatch(Runnable runnable) {
+        if (mDeliveringBatch) {
+            mAfterBatch.add(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    private void scheduleBatch() {
+        if (mBatchScheduled) {
+            return;
+        }
+        mBatchScheduled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                && Looper.myLooper() == Looper.getMainLooper()) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        deliverBatch();
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        } else {
+            if (mHandler == null) {
+                mHandler = new Handler(Looper.getMainLooper());
+            }
+            mHandler.post(mDeliverBatch);
+        }
+    }
+
+    private void deliverBatch() {
+        mBatchScheduled = false;
+        if (mPendingValues.size() == 0) {
+            return;
+        }
+        SparseIntArray pending = mPendingValues;
+        mPendingValues = new SparseIntArray();
+        mDeliveringBatch = true;
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                int key = pending.keyAt(i);
+                int previousValue = pending.valueAt(i);
+                int value = mValues.get(key, UNSET);
+                if (value != previousValue) {
+                    notifyListeners(key, value, previousValue);
+                }
+            }
+        } finally {
+            mDeliveringBatch = false;
+        }
+        ArrayList<Runnable> afterBatch = mAfterBatch;
+        mAfterBatch = new ArrayList<>();
+        for (Runnable runnable : afterBatch) {
+            runnable.run();
+        }
+    }
+
     public void addListener(int key, SharedValuesListener listener) {
         HashSet<WeakReference<SharedValuesListener>> listeners = mValuesListeners.get(key);
         if (listeners == null) {
@@ -76,13 +183,24 @@ public class SharedValues {
     }
 
     public void fireNewValue(int key, int value) {
-        boolean needsCleanup = false;
         int previousValue = mValues.get(key, UNSET);
         if (previousValue == value) {
             // don't send the value to listeners if it's the same one.
             return;
         }
         mValues.put(key, value);
+        if (mCoalesce) {
+            if (mPendingValues.indexOfKey(key) < 0) {
+                mPendingValues.put(key, previousValue);
+            }
+            scheduleBatch();
+            return;
+        }
+        notifyListeners(key, value, previousValue);
+    }
+
+    private void notifyListeners(int key, int value, int previousValue) {
+        boolean needsCleanup = false;
         HashSet<WeakReference<SharedValuesListener>> listeners = mValuesListeners.get(key);
         if (listeners == null) {
             return;
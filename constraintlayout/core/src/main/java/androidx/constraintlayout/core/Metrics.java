@@ -66,6 +66,8 @@ public class Metrics {
     public long determineGroups;
     public long layouts;
     public long grouping;
+    public long measureCacheHits;
+    public long measureCacheMisses;
 
     public String toString() {
         return "\n*** Metrics ***\n"
@@ -78,6 +80,8 @@ public class Metrics {
                 + "widgets: " + widgets + "\n"
                 + "graphSolved: " + graphSolved + "\n"
                 + "linearSolved: " + linearSolved + "\n"
+                + "measureCacheHits: " + measureCacheHits + "\n"
+                + "measureCacheMisses: " + measureCacheMisses + "\n"
 /*
                 + "measures: " + measures + "\n"
                 + "additionalMeasures: " + additionalMeasures + "\n"
@@ -143,6 +147,8 @@ public class Metrics {
         matchConnectionResolved = 0;
         chainConnectionResolved = 0;
         barrierConnectionResolved = 0;
+        measureCacheHits = 0;
+        measureCacheMisses = 0;
         problematicLayouts.clear();
     }
 }
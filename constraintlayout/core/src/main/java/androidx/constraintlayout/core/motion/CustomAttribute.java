@@ -15,6 +15,7 @@ package androidx.constraintlayout.core.motion;
  * limitations under the License.
  */
 
+import androidx.constraintlayout.core.motion.utils.ColorGamma;
 import androidx.constraintlayout.core.motion.utils.Utils;
 
 import java.lang.reflect.InvocationTargetException;
@@ -134,17 +135,7 @@ public class CustomAttribute {
                 break;
             case COLOR_DRAWABLE_TYPE:
             case COLOR_TYPE:
-                int a = 0xFF & (mColorValue >> 24);
-                int r = 0xFF & (mColorValue >> 16);
-                int g = 0xFF & (mColorValue >> 8);
-                int b = 0xFF & (mColorValue);
-                float f_r = (float) Math.pow(r / 255.0f, 2.2);
-                float f_g = (float) Math.pow(g / 255.0f, 2.2);
-                float f_b = (float) Math.pow(b / 255.0f, 2.2);
-                ret[0] = f_r;
-                ret[1] = f_g;
-                ret[2] = f_b;
-                ret[3] = a / 255f;
+                ColorGamma.colorToLinear(mColorValue, ret);
                 break;
             case STRING_TYPE:
                 throw new RuntimeException("Color does not have a single color to interpolate");
@@ -433,11 +424,7 @@ public class CustomAttribute {
                     break;
                 case COLOR_TYPE:
                     method = viewClass.getMethod(methodName, Integer.TYPE);
-                    int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-                    int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-                    int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-                    int a = clamp((int) (value[3] * 255.0f));
-                    int color = a << 24 | (r << 16) | (g << 8) | b;
+                    int color = ColorGamma.linearToColor(value);
                     method.invoke(view, color);
                     break;
                 case STRING_TYPE:
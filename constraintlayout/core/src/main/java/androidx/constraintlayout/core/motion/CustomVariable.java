@@ -15,6 +15,7 @@
  */
 package androidx.constraintlayout.core.motion;
 
+import androidx.constraintlayout.core.motion.utils.ColorGamma;
 import androidx.constraintlayout.core.motion.utils.TypedValues;
 
 /**
@@ -199,17 +200,7 @@ public class CustomVariable {
                 ret[0] = mFloatValue;
                 break;
             case TypedValues.Custom.TYPE_COLOR:
-                int a = 0xFF & (mIntegerValue >> 24);
-                int r = 0xFF & (mIntegerValue >> 16);
-                int g = 0xFF & (mIntegerValue >> 8);
-                int b = 0xFF & (mIntegerValue);
-                float f_r = (float) Math.pow(r / 255.0f, 2.2);
-                float f_g = (float) Math.pow(g / 255.0f, 2.2);
-                float f_b = (float) Math.pow(b / 255.0f, 2.2);
-                ret[0] = f_r;
-                ret[1] = f_g;
-                ret[2] = f_b;
-                ret[3] = a / 255f;
+                ColorGamma.colorToLinear(mIntegerValue, ret);
                 break;
             case TypedValues.Custom.TYPE_STRING:
                 throw new RuntimeException("Color does not have a single color to interpolate");
@@ -349,11 +340,7 @@ public class CustomVariable {
     }
    
    public int getInterpolatedColor(float[] value) {
-        int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-        int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-        int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-        int a = clamp((int) (value[3] * 255.0f));
-        int color = (a << 24) | (r << 16) | (g << 8) | b;
+        int color = ColorGamma.linearToColor(value);
         return color;
     }
 
@@ -364,11 +351,7 @@ public class CustomVariable {
                 view.setCustomAttribute(mName, mType, (int) value[0]);
                 break;
             case TypedValues.Custom.TYPE_COLOR:
-                int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-                int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-                int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-                int a = clamp((int) (value[3] * 255.0f));
-                int color = (a << 24) | (r << 16) | (g << 8) | b;
+                int color = ColorGamma.linearToColor(value);
                 view.setCustomAttribute(mName, mType, color);
                 break;
             case TypedValues.Custom.TYPE_REFERENCE:
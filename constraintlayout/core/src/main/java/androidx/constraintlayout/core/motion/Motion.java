@@ -31,6 +31,8 @@ import androidx.constraintlayout.core.motion.utils.FloatRect;
 import androidx.constraintlayout.core.motion.utils.KeyCache;
 import androidx.constraintlayout.core.motion.utils.KeyCycleOscillator;
 import androidx.constraintlayout.core.motion.utils.KeyFrameArray;
+import androidx.constraintlayout.core.motion.utils.LinearCurveFit;
+import androidx.constraintlayout.core.motion.utils.MonotonicCurveFit;
 import androidx.constraintlayout.core.motion.utils.Rect;
 import androidx.constraintlayout.core.motion.utils.SplineSet;
 import androidx.constraintlayout.core.motion.utils.TimeCycleSplineSet;
@@ -1308,15 +1310,7 @@ public class Motion {
                 //interpolated here
                 mStartMotionPath.customAttributes.get(mAttributeNames[i - 1]).setInterpolatedValue(child, mValuesBuff);
             }
-            if (mStartPoint.mVisibilityMode == MotionWidget.VISIBILITY_MODE_NORMAL) {
-                if (position <= 0.0f) {
-                    child.setVisibility(mStartPoint.visibility);
-                } else if (position >= 1.0f) {
-                    child.setVisibility(mEndPoint.visibility);
-                } else if (mEndPoint.visibility != mStartPoint.visibility) {
-                    child.setVisibility(MotionWidget.VISIBLE);
-                }
-            }
+            applyVisibility(child, position);
 
             if (mKeyTriggers != null) {
                 for (int i = 0; i < mKeyTriggers.length; i++) {
@@ -1365,6 +1359,64 @@ public class Motion {
         return false;
     }
 
+    /**
+     * Apply the start / end visibility for the given (adjusted) position
+     */
+    void applyVisibility(MotionWidget child, float position) {
+        if (mStartPoint.mVisibilityMode == MotionWidget.VISIBILITY_MODE_NORMAL) {
+            if (position <= 0.0f) {
+                child.setVisibility(mStartPoint.visibility);
+            } else if (position >= 1.0f) {
+                child.setVisibility(mEndPoint.visibility);
+            } else if (mEndPoint.visibility != mStartPoint.visibility) {
+                child.setVisibility(MotionWidget.VISIBLE);
+            }
+        }
+    }
+
+    /**
+     * Only true if interpolate() does nothing more than lay out the widget from the position
+     * spline (and set its visibility). Such motions can be evaluated by {@link MotionBatch}.
+     * Must be called after setup().
+     */
+    boolean isPositionOnly() {
+        if (mSpline == null || mSpline.length != 1 || mArcSpline != null || mNoMovement) {
+            return false;
+        }
+        if (!(mSpline[0] instanceof MonotonicCurveFit || mSpline[0] instanceof LinearCurveFit)) {
+            return false;
+        }
+        if (mStartMotionPath.mRelativeToController != null
+                || mQuantizeMotionSteps != UNSET
+                || mTransformPivotTarget != UNSET
+                || mKeyTriggers != null) {
+            return false;
+        }
+        if (mAttributesMap != null && !mAttributesMap.isEmpty()) {
+            return false;
+        }
+        return mCycleMap == null || mCycleMap.isEmpty();
+    }
+
+    CurveFit getPositionSpline() {
+        return mSpline[0];
+    }
+
+    int[] getInterpolateVariables() {
+        return mInterpolateVariables;
+    }
+
+    MotionPaths getStartPath() {
+        return mStartMotionPath;
+    }
+
+    /**
+     * @return the position after easing and staggering
+     */
+    float adjustPosition(float position) {
+        return getAdjustedPosition(position, null);
+    }
+
     /**
      * This returns the differential with respect to the animation layout position (Progress)
      * of a point on the view (post layout effects are not computed)
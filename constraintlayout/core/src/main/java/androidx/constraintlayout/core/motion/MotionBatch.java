@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import androidx.constraintlayout.core.motion.utils.CurveFit;
+import androidx.constraintlayout.core.motion.utils.KeyCache;
+import androidx.constraintlayout.core.motion.utils.LinearCurveFit;
+import androidx.constraintlayout.core.motion.utils.MonotonicCurveFit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Evaluates the position splines of all the {@link Motion}s of a transition in one pass.
+ * <p>
+ * At setup the position splines of every motion that only moves its widget are packed into
+ * shared struct-of-arrays buffers (one contiguous array per channel for x, y, width and height).
+ * {@link #evaluate(float)} then walks those buffers in a single loop, optionally split across
+ * an {@link Executor} for large scenes, and writes the bounds into a packed frame buffer of
+ * {@link #FRAME_SIZE} ints (left, top, right, bottom) per motion which the caller applies.
+ * Motions that need more than their position spline (arc paths, custom attributes, cycles,
+ * triggers...) are not packed and are interpolated individually by
+ * {@link #interpolate(MotionWidget[], float, long, KeyCache)}.
+ *
+ * @hide
+ */
+public class MotionBatch {
+    public static final int FRAME_SIZE = 4;
+    private static final int CHANNELS = 4; // x, y, width, height
+    private static final int MIN_TASK_SIZE = 64;
+
+    private Motion[] mMotions = new Motion[0];
+    private int mCount;
+    private boolean[] mBatched = new boolean[0];
+    private int[] mFrames = new int[0];
+    private float[] mPositions = new float[0];
+
+    // per packed slot
+    private int mSlotCount;
+    private int[] mSlotMotion = new int[0];
+    private int[] mKnotStart = new int[0];
+    private int[] mKnotCount = new int[0];
+    private int[] mChannelMask = new int[0];
+    private boolean[] mLinear = new boolean[0];
+    private float[] mBase = new float[0];
+
+    // per packed knot, one array per channel
+    private double[] mTime = new double[0];
+    private double[][] mValues = new double[CHANNELS][0];
+    private double[][] mTangents = new double[CHANNELS][0];
+
+    private Executor mExecutor;
+    private int mParallelThreshold = Integer.MAX_VALUE;
+    private Range[] mRanges = new Range[0];
+    private float mProgress;
+    private CountDownLatch mLatch;
+
+    /**
+     * Split evaluation across the executor once more than parallelThreshold motions are packed.
+     *
+     * @param executor          executor used to evaluate chunks of the packed splines (null to disable)
+     * @param parallelThreshold minimum number of packed motions before work is split
+     */
+    public void setExecutor(Executor executor, int parallelThreshold) {
+        mExecutor = executor;
+        mParallelThreshold = parallelThreshold;
+        mRanges = new Range[0];
+    }
+
+    /**
+     * Pack the position splines of the motions. Must be called after every
+     * {@link Motion#setup(int, int, float, long)} of the given motions.
+     *
+     * @param motions the motions of the transition
+     * @param count   number of motions to use
+     */
+    public void setup(Motion[] motions, int count) {
+        mMotions = motions;
+        mCount = count;
+        mBatched = new boolean[count];
+        mFrames = new int[count * FRAME_SIZE];
+        mPositions = new float[count];
+        mRanges = new Range[0];
+
+        int slots = 0;
+        int knots = 0;
+        for (int i = 0; i < count; i++) {
+            if (motions[i].isPositionOnly()) {
+                mBatched[i] = true;
+                slots++;
+                knots += motions[i].getPositionSpline().getTimePoints().length;
+            }
+        }
+        mSlotCount = slots;
+        mSlotMotion = new int[slots];
+        mKnotStart = new int[slots];
+        mKnotCount = new int[slots];
+        mChannelMask = new int[slots];
+        mLinear = new boolean[slots];
+        mBase = new float[slots * CHANNELS];
+        mTime = new double[knots];
+        for (int c = 0; c < CHANNELS; c++) {
+            mValues[c] = new double[knots];
+            mTangents[c] = new double[knots];
+        }
+
+        int slot = 0;
+        int knot = 0;
+        for (int i = 0; i < count; i++) {
+            if (!mBatched[i]) {
+                continue;
+            }
+            Motion motion = motions[i];
+            CurveFit spline = motion.getPositionSpline();
+            double[] time = spline.getTimePoints();
+            double[][] values;
+            double[][] tangents = null;
+            if (spline instanceof MonotonicCurveFit) {
+                values = ((MonotonicCurveFit) spline).getValues();
+                tangents = ((MonotonicCurveFit) spline).getTangents();
+            } else {
+                values = ((LinearCurveFit) spline).getValues();
+            }
+            MotionPaths start = motion.getStartPath();
+            mBase[slot * CHANNELS] = start.x;
+            mBase[slot * CHANNELS + 1] = start.y;
+            mBase[slot * CHANNELS + 2] = start.width;
+            mBase[slot * CHANNELS + 3] = start.height;
+
+            int[] variables = motion.getInterpolateVariables();
+            int mask = 0;
+            for (int j = 0; j < variables.length; j++) {
+                int c = variables[j] - MotionPaths.OFF_X;
+                if (c < 0 || c >= CHANNELS) {
+                    continue;
+                }
+                mask |= 1 << c;
+                for (int k = 0; k < time.length; k++) {
+                    mValues[c][knot + k] = values[k][j];
+                    if (tangents != null) {
+                        mTangents[c][knot + k] = tangents[k][j];
+                    }
+                }
+            }
+            System.arraycopy(time, 0, mTime, knot, time.length);
+            mSlotMotion[slot] = i;
+            mKnotStart[slot] = knot;
+            mKnotCount[slot] = time.length;
+            mChannelMask[slot] = mask;
+            mLinear[slot] = tangents == null;
+            knot += time.length;
+            slot++;
+        }
+    }
+
+    /**
+     * @return true if the motion at index is evaluated from the packed buffers
+     */
+    public boolean isBatched(int index) {
+        return mBatched[index];
+    }
+
+    /**
+     * @return the number of motions evaluated from the packed buffers
+     */
+    public int getBatchedCount() {
+        return mSlotCount;
+    }
+
+    /**
+     * The packed frame buffer, {@link #FRAME_SIZE} ints per motion (left, top, right, bottom).
+     * Only the entries of batched motions are written by {@link #evaluate(float)}.
+     */
+    public int[] getFrames() {
+        return mFrames;
+    }
+
+    /**
+     * @return the eased position used for the motion at index during the last evaluate
+     */
+    public float getPosition(int index) {
+        return mPositions[index];
+    }
+
+    /**
+     * Evaluate every packed position spline at the given progress into the frame buffer
+     *
+     * @param progress the progress of the transition
+     */
+    public void evaluate(float progress) {
+        if (mExecutor == null || mSlotCount < mParallelThreshold) {
+            evaluate(progress, 0, mSlotCount);
+            return;
+        }
+        if (mRanges.length == 0) {
+            int tasks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                    mSlotCount / MIN_TASK_SIZE));
+            mRanges = new Range[tasks];
+            int chunk = (mSlotCount + tasks - 1) / tasks;
+            for (int i = 0; i < tasks; i++) {
+                mRanges[i] = new Range(i * chunk, Math.min(mSlotCount, (i + 1) * chunk));
+            }
+        }
+        mProgress = progress;
+        mLatch = new CountDownLatch(mRanges.length - 1);
+        for (int i = 1; i < mRanges.length; i++) {
+            mExecutor.execute(mRanges[i]);
+        }
+        evaluate(progress, mRanges[0].mStart, mRanges[0].mEnd);
+        try {
+            mLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Evaluate the motions and apply the results to the widgets.
+     * Packed motions are laid out from the frame buffer, the others are interpolated normally.
+     *
+     * @param widgets  the widget for each motion
+     * @param progress the progress of the transition
+     * @param time     the current time in nanoseconds
+     * @param keyCache the cache used by time dependent keys
+     * @return true if any of the motions need to keep animating
+     */
+    public boolean interpolate(MotionWidget[] widgets, float progress, long time, KeyCache keyCache) {
+        evaluate(progress);
+        boolean keepAnimating = false;
+        for (int i = 0; i < mCount; i++) {
+            MotionWidget widget = widgets[i];
+            if (mBatched[i]) {
+                int offset = i * FRAME_SIZE;
+                widget.layout(mFrames[offset], mFrames[offset + 1],
+                        mFrames[offset + 2], mFrames[offset + 3]);
+                mMotions[i].applyVisibility(widget, mPositions[i]);
+            } else {
+                keepAnimating |= mMotions[i].interpolate(widget, progress, time, keyCache);
+            }
+        }
+        return keepAnimating;
+    }
+
+    private void evaluate(float progress, int from, int to) {
+        final double[] time = mTime;
+        final double[][] values = mValues;
+        final double[][] tangents = mTangents;
+        for (int slot = from; slot < to; slot++) {
+            int index = mSlotMotion[slot];
+            float position = mMotions[index].adjustPosition(progress);
+            mPositions[index] = position;
+            double t = position;
+            int first = mKnotStart[slot];
+            int last = first + mKnotCount[slot] - 1;
+            int mask = mChannelMask[slot];
+            boolean linear = mLinear[slot];
+            int base = slot * CHANNELS;
+            float v_x = mBase[base];
+            float v_y = mBase[base + 1];
+            float v_width = mBase[base + 2];
+            float v_height = mBase[base + 3];
+
+            int segment;
+            double anchor; // the knot we extrapolate from, NaN when inside the spline
+            if (t <= time[first]) {
+                segment = first;
+                anchor = time[first];
+            } else if (t >= time[last]) {
+                segment = last - 1;
+                anchor = time[last];
+            } else {
+                segment = first;
+                while (t >= time[segment + 1]) {
+                    segment++;
+                }
+                anchor = Double.NaN;
+            }
+            double h = time[segment + 1] - time[segment];
+            double x = (Double.isNaN(anchor) ? t - time[segment] : anchor - time[segment]) / h;
+
+            for (int c = 0; c < CHANNELS; c++) {
+                if ((mask & (1 << c)) == 0) {
+                    continue;
+                }
+                double y1 = values[c][segment];
+                double y2 = values[c][segment + 1];
+                double value;
+                if (Double.isNaN(anchor)) {
+                    value = linear ? y1 * (1 - x) + y2 * x
+                            : hermite(h, x, y1, y2, tangents[c][segment], tangents[c][segment + 1]);
+                } else {
+                    double slope = linear ? (y2 - y1) / h
+                            : diff(h, x, y1, y2, tangents[c][segment], tangents[c][segment + 1]) / h;
+                    double y = anchor == time[first] ? y1 : y2;
+                    value = y + (t - anchor) * slope;
+                }
+                switch (c) {
+                    case 0:
+                        v_x = (float) value;
+                        break;
+                    case 1:
+                        v_y = (float) value;
+                        break;
+                    case 2:
+                        v_width = (float) value;
+                        break;
+                    default:
+                        v_height = (float) value;
+                }
+            }
+            // same rounding as MotionPaths.setView()
+            int offset = index * FRAME_SIZE;
+            mFrames[offset] = (int) (0.5f + v_x);
+            mFrames[offset + 1] = (int) (0.5f + v_y);
+            mFrames[offset + 2] = (int) (0.5f + v_x + v_width);
+            mFrames[offset + 3] = (int) (0.5f + v_y + v_height);
+        }
+    }
+
+    /**
+     * Cubic Hermite spline (same form as MonotonicCurveFit)
+     */
+    private static double hermite(double h, double x, double y1, double y2, double t1, double t2) {
+        double x2 = x * x;
+        double x3 = x2 * x;
+        return -2 * x3 * y2 + 3 * x2 * y2 + 2 * x3 * y1 - 3 * x2 * y1 + y1
+                + h * t2 * x3 + h * t1 * x3 - h * t2 * x2 - 2 * h * t1 * x2
+                + h * t1 * x;
+    }
+
+    /**
+     * Cubic Hermite spline slope differentiated (same form as MonotonicCurveFit)
+     */
+    private static double diff(double h, double x, double y1, double y2, double t1, double t2) {
+        double x2 = x * x;
+        return -6 * x2 * y2 + 6 * x * y2 + 6 * x2 * y1 - 6 * x * y1 + 3 * h * t2 * x2 +
+                3 * h * t1 * x2 - 2 * h * t2 * x - 4 * h * t1 * x + h * t1;
+    }
+
+    private class Range implements Runnable {
+        final int mStart;
+        final int mEnd;
+
+        Range(int start, int end) {
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        public void run() {
+            try {
+                evaluate(mProgress, mStart, mEnd);
+            } finally {
+                mLatch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion.utils;
+
+/**
+ * Conversion of color channels between gamma (2.2) encoded 0-255 values and linear 0-1 values,
+ * used to interpolate colors in linear space without calling Math.pow per channel per frame.
+ * <p>
+ * Encoded to linear is a 256 entry table. Linear to encoded uses a bucket table to find a
+ * starting channel value and a short walk over the thresholds (k / 255) ^ 2.2, so it returns the
+ * same channel as clamp((int) (pow(v, 1 / 2.2) * 255)) to within one level at exact boundaries.
+ *
+ * @hide
+ */
+public final class ColorGamma {
+    private static final double GAMMA = 2.2;
+    private static final int BUCKETS = 4096;
+    private static final float[] TO_LINEAR = new float[256];
+    private static final float[] THRESHOLD = new float[257];
+    private static final short[] BUCKET_START = new short[BUCKETS + 1];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            TO_LINEAR[i] = (float) Math.pow(i / 255.0f, GAMMA);
+            THRESHOLD[i] = TO_LINEAR[i];
+        }
+        THRESHOLD[256] = Float.POSITIVE_INFINITY;
+        int k = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            float v = i / (float) BUCKETS;
+            while (THRESHOLD[k + 1] <= v) {
+                k++;
+            }
+            BUCKET_START[i] = (short) k;
+        }
+    }
+
+    private ColorGamma() {
+    }
+
+    /**
+     * @param channel gamma encoded channel 0-255
+     * @return the linear value 0-1
+     */
+    public static float toLinear(int channel) {
+        return TO_LINEAR[channel & 0xFF];
+    }
+
+    /**
+     * @param linear linear value (clamped to 0-1)
+     * @return the gamma encoded channel 0-255
+     */
+    public static int toGamma(float linear) {
+        if (!(linear > 0)) { // also catches NaN
+            return 0;
+        }
+        if (linear >= 1) {
+            return 255;
+        }
+        int k = BUCKET_START[(int) (linear * BUCKETS)];
+        while (THRESHOLD[k + 1] <= linear) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Convert a color into linear red, green, blue and alpha
+     *
+     * @param color argb color
+     * @param ret   array of at least 4 to receive the values
+     */
+    public static void colorToLinear(int color, float[] ret) {
+        ret[0] = TO_LINEAR[0xFF & (color >> 16)];
+        ret[1] = TO_LINEAR[0xFF & (color >> 8)];
+        ret[2] = TO_LINEAR[0xFF & color];
+        ret[3] = (0xFF & (color >> 24)) / 255f;
+    }
+
+    /**
+     * Convert linear red, green, blue and alpha back into a color
+     *
+     * @param value array of linear red, green, blue and alpha
+     * @return argb color
+     */
+    public static int linearToColor(float[] value) {
+        int r = toGamma(value[0]);
+        int g = toGamma(value[1]);
+        int b = toGamma(value[2]);
+        int a = (int) (value[3] * 255.0f);
+        a = a < 0 ? 0 : (a > 255 ? 255 : a);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
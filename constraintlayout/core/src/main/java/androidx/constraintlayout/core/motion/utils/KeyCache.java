@@ -18,63 +18,131 @@ package androidx.constraintlayout.core.motion.utils;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 /**
  * Used by KeyTimeCycles (and any future time dependent behaviour) to cache its current parameters
  * to maintain consistency across requestLayout type rebuilds.
+ * <p>
+ * Views are mapped to stable integer slots and attribute names to integer ids. Values are stored
+ * in a single flat float array (one row per slot, one column per attribute element) that grows
+ * geometrically. Callers that resolve {@link #getSlot(Object)} and
+ * {@link #getAttributeId(String)} once can then read and write values with no hashing and
+ * no allocation.
  */
 public class KeyCache {
+    private static final int INITIAL_SLOTS = 8;
+    private static final int INITIAL_COLUMNS = 4;
 
-    HashMap<Object, HashMap<String, float[]>> map = new HashMap<>();
+    private final IdentityHashMap<Object, Integer> mSlots = new IdentityHashMap<>();
+    private final HashMap<String, Integer> mAttributeIds = new HashMap<>();
+    private int[][] mColumns = new int[INITIAL_COLUMNS][]; // [attribute id][element] -> column
+    private int mColumnCount;
+    private int mColumnCapacity = INITIAL_COLUMNS;
+    private int mSlotCapacity = INITIAL_SLOTS;
+    private float[] mValues = newValues(INITIAL_SLOTS * INITIAL_COLUMNS);
 
-    public void setFloatValue(Object view, String type, int element, float value) {
-        if (!map.containsKey(view)) {
-            HashMap<String, float[]> array = new HashMap<>();
-            float[] vArray = new float[element + 1];
-            vArray[element] = value;
-            array.put(type, vArray);
-            map.put(view, array);
-        } else {
-            HashMap<String, float[]> array = map.get(view);
-            if (array == null) {
-                array = new HashMap<>();
+    /**
+     * Get the stable slot of a view, allocating one the first time the view is seen
+     *
+     * @param view the view (compared by identity)
+     * @return slot for use with the integer accessors
+     */
+    public int getSlot(Object view) {
+        Integer slot = mSlots.get(view);
+        if (slot == null) {
+            slot = mSlots.size();
+            mSlots.put(view, slot);
+            if (slot >= mSlotCapacity) {
+                int capacity = mSlotCapacity * 2;
+                float[] values = newValues(capacity * mColumnCapacity);
+                System.arraycopy(mValues, 0, values, 0, mValues.length);
+                mValues = values;
+                mSlotCapacity = capacity;
             }
+        }
+        return slot;
+    }
 
-            if (!array.containsKey(type)) {
-                float[] vArray = new float[element + 1];
-                vArray[element] = value;
-                array.put(type, vArray);
-                map.put(view, array);
-            } else {
-                float[] vArray = array.get(type);
-                if (vArray == null) {
-                    vArray = new float[0];
-                }
-                if (vArray.length <= element) {
-                    vArray = Arrays.copyOf(vArray, element + 1);
-                }
-                vArray[element] = value;
-                array.put(type, vArray);
+    /**
+     * Get the id of an attribute name, allocating one the first time the name is seen
+     *
+     * @param type the attribute name
+     * @return id for use with the integer accessors
+     */
+    public int getAttributeId(String type) {
+        Integer id = mAttributeIds.get(type);
+        if (id == null) {
+            id = mAttributeIds.size();
+            mAttributeIds.put(type, id);
+            if (id >= mColumns.length) {
+                mColumns = Arrays.copyOf(mColumns, mColumns.length * 2);
             }
         }
+        return id;
+    }
+
+    public void setFloatValue(int slot, int attribute, int element, float value) {
+        int[] columns = mColumns[attribute];
+        if (columns == null || columns.length <= element) {
+            columns = addColumns(attribute, element);
+        }
+        mValues[slot * mColumnCapacity + columns[element]] = value;
+    }
+
+    public float getFloatValue(int slot, int attribute, int element) {
+        if (slot >= mSlots.size() || attribute >= mColumns.length) {
+            return Float.NaN;
+        }
+        int[] columns = mColumns[attribute];
+        if (columns == null || columns.length <= element) {
+            return Float.NaN;
+        }
+        return mValues[slot * mColumnCapacity + columns[element]];
+    }
+
+    public void setFloatValue(Object view, String type, int element, float value) {
+        setFloatValue(getSlot(view), getAttributeId(type), element, value);
     }
 
     public float getFloatValue(Object view, String type, int element) {
-        if (!map.containsKey(view)) {
+        Integer slot = mSlots.get(view);
+        Integer id = mAttributeIds.get(type);
+        if (slot == null || id == null) {
             return Float.NaN;
+        }
+        return getFloatValue(slot, id, element);
+    }
+
+    private int[] addColumns(int attribute, int element) {
+        int[] columns = mColumns[attribute];
+        int start = 0;
+        if (columns == null) {
+            columns = new int[element + 1];
         } else {
-            HashMap<String, float[]> array = map.get(view);
-            if (array == null || !array.containsKey(type)) {
-                return Float.NaN;
-            }
-            float[] vArray = array.get(type);
-            if (vArray == null) {
-                return Float.NaN;
-            }
-            if (vArray.length > element) {
-                return vArray[element];
+            start = columns.length;
+            columns = Arrays.copyOf(columns, element + 1);
+        }
+        for (int i = start; i <= element; i++) {
+            columns[i] = mColumnCount++;
+        }
+        mColumns[attribute] = columns;
+        if (mColumnCount > mColumnCapacity) {
+            int capacity = Math.max(mColumnCapacity * 2, mColumnCount);
+            float[] values = newValues(mSlotCapacity * capacity);
+            for (int row = 0; row < mSlotCapacity; row++) {
+                System.arraycopy(mValues, row * mColumnCapacity, values, row * capacity,
+                        mColumnCapacity);
             }
-            return Float.NaN;
+            mValues = values;
+            mColumnCapacity = capacity;
         }
+        return columns;
+    }
+
+    private static float[] newValues(int size) {
+        float[] values = new float[size];
+        Arrays.fill(values, Float.NaN);
+        return values;
     }
 }
@@ -17,19 +17,25 @@ package androidx.constraintlayout.core.motion.utils;
 
 import java.util.Arrays;
 
+/**
+ * Keyframe values sorted by frame position (0-100).
+ * Storage is proportional to the number of keyframes; append uses a binary search and inserts
+ * in place, replacing any value already at that position.
+ * {@link FloatArray} and {@link IntArray} hold primitive values without boxing.
+ *
+ * @hide
+ */
 public class KeyFrameArray<E> {
-    int[] keys = new int[101];
-    E[] values = (E[]) new Object[101];
+    private static final int INITIAL_CAPACITY = 4;
+    int[] keys = new int[INITIAL_CAPACITY];
+    Object[] values = new Object[INITIAL_CAPACITY];
     int count;
-    private static final int EMPTY = 999;
 
     public KeyFrameArray() {
-        clear();
     }
 
     public void clear() {
-        Arrays.fill(keys, EMPTY);
-        Arrays.fill(values, null);
+        Arrays.fill(values, 0, count, null);
         count = 0;
     }
 
@@ -46,36 +52,141 @@ public class KeyFrameArray<E> {
         return count;
     }
 
+    @SuppressWarnings("unchecked")
     public E valueAt(int i) {
-        return values[keys[i]];
+        return (E) values[i];
     }
 
     public int keyAt(int i) {
         return keys[i];
     }
 
+    /**
+     * @return the index of position, or -(insertion point) - 1 if there is no value at position
+     */
+    public int indexOfKey(int position) {
+        return Arrays.binarySearch(keys, 0, count, position);
+    }
+
     public void append(int position, E value) {
-        if (values[position] != null) {
-            remove(position);
+        int index = indexOfKey(position);
+        if (index >= 0) {
+            values[index] = value;
+            return;
         }
-        values[position] = value;
-        keys[count++] = position;
-        Arrays.sort(keys);
+        index = -index - 1;
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(values, index, values, index + 1, count - index);
+        keys[index] = position;
+        values[index] = value;
+        count++;
     }
 
     public void remove(int position) {
-        values[position] = null;
-        for (int j = 0, i = 0; i < count; i++) {
-            if (position == keys[i]) {
-                keys[i] = EMPTY;
-                j++;
+        int index = indexOfKey(position);
+        if (index < 0) {
+            return;
+        }
+        count--;
+        System.arraycopy(keys, index + 1, keys, index, count - index);
+        System.arraycopy(values, index + 1, values, index, count - index);
+        values[count] = null;
+    }
+
+    /**
+     * Keyframes with a fixed number of floats per frame position
+     */
+    public static class FloatArray {
+        int[] keys = new int[INITIAL_CAPACITY];
+        float[] values;
+        int stride;
+        int count;
+
+        public FloatArray(int stride) {
+            this.stride = stride;
+            values = new float[INITIAL_CAPACITY * stride];
+        }
+
+        public void clear() {
+            count = 0;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public int keyAt(int i) {
+            return keys[i];
+        }
+
+        public float valueAt(int i, int element) {
+            return values[i * stride + element];
+        }
+
+        public int indexOfKey(int position) {
+            return Arrays.binarySearch(keys, 0, count, position);
+        }
+
+        public void append(int position, float value) {
+            int start = insert(position);
+            values[start] = value;
+            Arrays.fill(values, start + 1, start + stride, 0);
+        }
+
+        public void append(int position, float value0, float value1) {
+            int start = insert(position);
+            values[start] = value0;
+            if (stride > 1) {
+                values[start + 1] = value1;
+                Arrays.fill(values, start + 2, start + stride, 0);
             }
-            if (i != j) {
-                keys[i] = keys[j];
+        }
+
+        /**
+         * @param value the floats of the frame, missing ones are set to 0
+         */
+        public void append(int position, float[] value) {
+            int start = insert(position);
+            for (int i = 0; i < stride; i++) {
+                values[start + i] = i < value.length ? value[i] : 0;
+            }
+        }
+
+        /**
+         * Find or make room for the frame
+         *
+         * @return the offset of its first value
+         */
+        private int insert(int position) {
+            int index = indexOfKey(position);
+            if (index < 0) {
+                index = -index - 1;
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                    values = Arrays.copyOf(values, count * 2 * stride);
+                }
+                System.arraycopy(keys, index, keys, index + 1, count - index);
+                System.arraycopy(values, index * stride, values, (index + 1) * stride,
+                        (count - index) * stride);
+                keys[index] = position;
+                count++;
             }
-            j++;
+            return index * stride;
+        }
 
+        public void remove(int position) {
+            int index = indexOfKey(position);
+            if (index < 0) {
+                return;
+            }
+            count--;
+            System.arraycopy(keys, index + 1, keys, index, count - index);
+            System.arraycopy(values, (index + 1) * stride, values, index * stride,
+                    (count - index) * stride);
         }
-        count--;
     }
 }
@@ -290,4 +290,11 @@ public class LinearCurveFit extends CurveFit {
     public double[] getTimePoints() {
         return mT;
     }
+
+    /**
+     * @return the values at each time point indexed as [point][dimension]
+     */
+    public double[][] getValues() {
+        return mY;
+    }
 }
\ No newline at end of file
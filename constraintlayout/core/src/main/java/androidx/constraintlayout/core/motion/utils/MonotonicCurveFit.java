@@ -274,6 +274,20 @@ public class MonotonicCurveFit extends CurveFit {
         return mT;
     }
 
+    /**
+     * @return the values at each time point indexed as [point][dimension]
+     */
+    public double[][] getValues() {
+        return mY;
+    }
+
+    /**
+     * @return the Hermite tangents at each time point indexed as [point][dimension]
+     */
+    public double[][] getTangents() {
+        return mTangent;
+    }
+
     /**
      * Cubic Hermite spline
      *
@@ -35,6 +35,20 @@ public class SpringStopEngine implements StopEngine {
     private float mMass;
     private float mStopThreshold;
     private int mBoundaryMode = 0;
+    private boolean mAnalytic = true;
+
+    // closed form solution of the current segment x(t) = pos - target, t = time - mSegmentTime
+    private static final int UNDERDAMPED = 0;
+    private static final int CRITICALLY_DAMPED = 1;
+    private static final int OVERDAMPED = 2;
+    private static final double CRITICAL_EPSILON = 1E-6;
+    private static final int CROSSING_SAMPLES_PER_PERIOD = 8;
+    private int mSolution;
+    private double mSegmentTime;
+    private double mA; // coefficients of the solution (meaning depends on mSolution)
+    private double mB;
+    private double mDecay; // zeta * omega0 (or r1 when overdamped)
+    private double mOmega; // damped frequency (or r2 when overdamped)
 
     @Override
     public String debug(String desc, float time) {
@@ -59,6 +73,24 @@ public class SpringStopEngine implements StopEngine {
         mStopThreshold = stopThreshold;
         mBoundaryMode = boundaryMode;
         mLastTime = 0;
+        if (useAnalytic()) {
+            startSegment(0, mPos - mTargetPos, mV);
+        }
+    }
+
+    /**
+     * Use the closed form solution of the damped spring (the default) rather than numerically
+     * integrating it. The integrator is always used for degenerate springs (zero mass or
+     * stiffness, negative damping).
+     *
+     * @param analytic true to use the closed form solution
+     */
+    public void setAnalytic(boolean analytic) {
+        mAnalytic = analytic;
+    }
+
+    private boolean useAnalytic() {
+        return mAnalytic && mMass > 0 && mStiffness > 0 && mDamping >= 0;
     }
 
     @Override
@@ -68,7 +100,11 @@ public class SpringStopEngine implements StopEngine {
 
     @Override
     public float getInterpolation(float time) {
-        compute(time - mLastTime);
+        if (useAnalytic()) {
+            solve(time);
+        } else {
+            compute(time - mLastTime);
+        }
         mLastTime = time;
         return (float) (mPos);
     }
@@ -128,5 +164,133 @@ public class SpringStopEngine implements StopEngine {
             }
         }
     }
-    
+
+    /**
+     * Set up the closed form solution of m x'' + c x' + k x = 0 starting at time
+     * with displacement x0 and velocity v0
+     */
+    private void startSegment(double time, double x0, double v0) {
+        double omega0 = Math.sqrt(mStiffness / mMass);
+        double zeta = mDamping / (2 * Math.sqrt(mStiffness * mMass));
+        mSegmentTime = time;
+        if (Math.abs(zeta - 1) < CRITICAL_EPSILON) {
+            // x = (A + B t) e^(-omega0 t)
+            mSolution = CRITICALLY_DAMPED;
+            mDecay = omega0;
+            mA = x0;
+            mB = v0 + omega0 * x0;
+        } else if (zeta < 1) {
+            // x = e^(-zeta omega0 t) (A cos(omegaD t) + B sin(omegaD t))
+            mSolution = UNDERDAMPED;
+            mDecay = zeta * omega0;
+            mOmega = omega0 * Math.sqrt(1 - zeta * zeta);
+            mA = x0;
+            mB = (v0 + mDecay * x0) / mOmega;
+        } else {
+            // x = A e^(r1 t) + B e^(r2 t)
+            mSolution = OVERDAMPED;
+            double root = omega0 * Math.sqrt(zeta * zeta - 1);
+            mDecay = -zeta * omega0 + root;
+            mOmega = -zeta * omega0 - root;
+            mA = (v0 - mOmega * x0) / (mDecay - mOmega);
+            mB = x0 - mA;
+        }
+    }
+
+    /**
+     * @return the displacement from the target t seconds into the current segment
+     */
+    private double displacement(double t) {
+        switch (mSolution) {
+            case CRITICALLY_DAMPED:
+                return (mA + mB * t) * Math.exp(-mDecay * t);
+            case UNDERDAMPED:
+                return Math.exp(-mDecay * t) * (mA * Math.cos(mOmega * t) + mB * Math.sin(mOmega * t));
+            default:
+                return mA * Math.exp(mDecay * t) + mB * Math.exp(mOmega * t);
+        }
+    }
+
+    /**
+     * @return the velocity t seconds into the current segment
+     */
+    private double velocity(double t) {
+        switch (mSolution) {
+            case CRITICALLY_DAMPED:
+                return (mB - mDecay * (mA + mB * t)) * Math.exp(-mDecay * t);
+            case UNDERDAMPED:
+                double cos = Math.cos(mOmega * t);
+                double sin = Math.sin(mOmega * t);
+                return Math.exp(-mDecay * t) * ((mB * mOmega - mDecay * mA) * cos
+                        - (mA * mOmega + mDecay * mB) * sin);
+            default:
+                return mA * mDecay * Math.exp(mDecay * t) + mB * mOmega * Math.exp(mOmega * t);
+        }
+    }
+
+    /**
+     * Evaluate the closed form solution at time, reflecting off the boundaries
+     * (0 and/or 1) at the exact crossing times when a bounce boundary mode is set.
+     */
+    private void solve(double time) {
+        if (mBoundaryMode > 0) {
+            double from = mLastTime;
+            while (true) {
+                double crossing = findCrossing(from - mSegmentTime, time - mSegmentTime);
+                if (Double.isNaN(crossing)) {
+                    break;
+                }
+                double v = velocity(crossing);
+                double boundary = mTargetPos + displacement(crossing) < 0.5 ? 0 : 1;
+                from = mSegmentTime + crossing;
+                startSegment(from, boundary - mTargetPos, -v);
+            }
+        }
+        double t = time - mSegmentTime;
+        mPos = (float) (mTargetPos + displacement(t));
+        mV = (float) velocity(t);
+    }
+
+    /**
+     * Find the first time in (start, end] where the position leaves [0, 1] through a bouncing
+     * boundary. The interval is sampled finely enough that the oscillation cannot cross and
+     * come back unnoticed, and the crossing is then refined by bisection.
+     *
+     * @return the crossing time relative to the segment, or NaN if there is none
+     */
+    private double findCrossing(double start, double end) {
+        if (end <= start) {
+            return Double.NaN;
+        }
+        double step = end - start;
+        if (mSolution == UNDERDAMPED) {
+            step = Math.min(step, 2 * Math.PI / (mOmega * CROSSING_SAMPLES_PER_PERIOD));
+        } else {
+            step = Math.min(step, 1 / (Math.sqrt(mStiffness / mMass) * CROSSING_SAMPLES_PER_PERIOD));
+        }
+        double t0 = start;
+        while (t0 < end) {
+            double t1 = Math.min(end, t0 + step);
+            double pos = mTargetPos + displacement(t1);
+            if (outside(pos)) {
+                double low = t0;
+                double high = t1;
+                for (int i = 0; i < 50 && high - low > 1E-9; i++) {
+                    double mid = (low + high) / 2;
+                    if (outside(mTargetPos + displacement(mid))) {
+                        high = mid;
+                    } else {
+                        low = mid;
+                    }
+                }
+                return high;
+            }
+            t0 = t1;
+        }
+        return Double.NaN;
+    }
+
+    private boolean outside(double pos) {
+        return (pos < 0 && (mBoundaryMode & 1) == 1) || (pos > 1 && (mBoundaryMode & 2) == 2);
+    }
 }
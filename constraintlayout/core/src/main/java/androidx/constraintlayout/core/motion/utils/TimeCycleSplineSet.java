@@ -42,6 +42,10 @@ public abstract class TimeCycleSplineSet {
     protected boolean mContinue = false;
     protected long last_time;
     protected float last_cycle = Float.NaN;
+    private KeyCache mKeyCache; // the cache mCacheSlot and mCacheAttribute were resolved in
+    private Object mCacheView;
+    private int mCacheSlot;
+    private int mCacheAttribute;
 
     @Override
     public String toString() {
@@ -83,6 +87,29 @@ public abstract class TimeCycleSplineSet {
         }
     }
 
+    /**
+     * Get the cycle stored for the view, resolving its cache slot only when the view or
+     * cache changes so that per frame access does no hashing
+     */
+    protected float getCachedCycle(KeyCache cache, Object view, String attribute) {
+        resolveCacheSlot(cache, view, attribute);
+        return cache.getFloatValue(mCacheSlot, mCacheAttribute, 0);
+    }
+
+    protected void setCachedCycle(KeyCache cache, Object view, String attribute, float cycle) {
+        resolveCacheSlot(cache, view, attribute);
+        cache.setFloatValue(mCacheSlot, mCacheAttribute, 0, cycle);
+    }
+
+    private void resolveCacheSlot(KeyCache cache, Object view, String attribute) {
+        if (cache != mKeyCache || view != mCacheView) {
+            mKeyCache = cache;
+            mCacheView = view;
+            mCacheSlot = cache.getSlot(view);
+            mCacheAttribute = cache.getAttributeId(attribute);
+        }
+    }
+
     public CurveFit getCurveFit() {
         return mCurveFit;
     }
@@ -103,7 +130,7 @@ public abstract class TimeCycleSplineSet {
     public static class CustomSet extends TimeCycleSplineSet {
         String mAttributeName;
         KeyFrameArray<CustomAttribute> mConstraintAttributeList;
-        KeyFrameArray<float[]> mWaveProperties = new KeyFrameArray<>();
+        KeyFrameArray.FloatArray mWaveProperties = new KeyFrameArray.FloatArray(2);
         float[] mTempValues;
         float[] mCache;
 
@@ -122,14 +149,13 @@ public abstract class TimeCycleSplineSet {
             for (int i = 0; i < size; i++) {
                 int key = mConstraintAttributeList.keyAt(i);
                 CustomAttribute ca = mConstraintAttributeList.valueAt(i);
-                float[] waveProp = mWaveProperties.valueAt(i);
                 time[i] = key * 1E-2;
                 ca.getValuesToInterpolate(mTempValues);
                 for (int k = 0; k < mTempValues.length; k++) {
                     values[i][k] = mTempValues[k];
                 }
-                values[i][dimensionality] = waveProp[0];
-                values[i][dimensionality + 1] = waveProp[1];
+                values[i][dimensionality] = mWaveProperties.valueAt(i, 0);
+                values[i][dimensionality + 1] = mWaveProperties.valueAt(i, 1);
             }
             mCurveFit = CurveFit.get(curveType, time, values);
         }
@@ -140,7 +166,7 @@ public abstract class TimeCycleSplineSet {
 
         public void setPoint(int position, CustomAttribute value, float period, int shape, float offset) {
             mConstraintAttributeList.append(position, value);
-            mWaveProperties.append(position, new float[]{period, offset});
+            mWaveProperties.append(position, period, offset);
             mWaveShape = Math.max(mWaveShape, shape); // the highest value shape is chosen
         }
 
@@ -152,7 +178,7 @@ public abstract class TimeCycleSplineSet {
             long delta_time = time - last_time;
 
             if (Float.isNaN(last_cycle)) { // it has not been set
-                last_cycle = cache.getFloatValue(view, mAttributeName, 0); // check the cache
+                last_cycle = getCachedCycle(cache, view, mAttributeName); // check the cache
                 if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                     last_cycle = 0;
                 }
@@ -254,7 +280,7 @@ public abstract class TimeCycleSplineSet {
     public static class CustomVarSet extends TimeCycleSplineSet {
         String mAttributeName;
         KeyFrameArray<CustomVariable> mConstraintAttributeList;
-        KeyFrameArray<float[]> mWaveProperties = new KeyFrameArray<>();
+        KeyFrameArray.FloatArray mWaveProperties = new KeyFrameArray.FloatArray(2);
         float[] mTempValues;
         float[] mCache;
 
@@ -273,14 +299,13 @@ public abstract class TimeCycleSplineSet {
             for (int i = 0; i < size; i++) {
                 int key = mConstraintAttributeList.keyAt(i);
                 CustomVariable ca = mConstraintAttributeList.valueAt(i);
-                float[] waveProp = mWaveProperties.valueAt(i);
                 time[i] = key * 1E-2;
                 ca.getValuesToInterpolate(mTempValues);
                 for (int k = 0; k < mTempValues.length; k++) {
                     values[i][k] = mTempValues[k];
                 }
-                values[i][dimensionality] = waveProp[0];
-                values[i][dimensionality + 1] = waveProp[1];
+                values[i][dimensionality] = mWaveProperties.valueAt(i, 0);
+                values[i][dimensionality + 1] = mWaveProperties.valueAt(i, 1);
             }
             mCurveFit = CurveFit.get(curveType, time, values);
         }
@@ -291,7 +316,7 @@ public abstract class TimeCycleSplineSet {
 
         public void setPoint(int position, CustomVariable value, float period, int shape, float offset) {
             mConstraintAttributeList.append(position, value);
-            mWaveProperties.append(position, new float[]{period, offset});
+            mWaveProperties.append(position, period, offset);
             mWaveShape = Math.max(mWaveShape, shape); // the highest value shape is chosen
         }
 
@@ -303,7 +328,7 @@ public abstract class TimeCycleSplineSet {
             long delta_time = time - last_time;
 
             if (Float.isNaN(last_cycle)) { // it has not been set
-                last_cycle = cache.getFloatValue(view, mAttributeName, 0); // check the cache
+                last_cycle = getCachedCycle(cache, view, mAttributeName); // check the cache
                 if (Float.isNaN(last_cycle)) {  // not in cache so set to 0 (start)
                     last_cycle = 0;
                 }
@@ -17,6 +17,13 @@ package androidx.constraintlayout.core.motion.utils;
 
 import java.util.Arrays;
 
+/**
+ * Attribute values keyed by their TypedValues id.
+ * Each value type keeps a lookup table indexed by (id - smallest id present), so get and
+ * add resolve an id with an array read instead of scanning the stored values.
+ *
+ * @hide
+ */
 public class TypedBundle {
 
     private static final int INITIAL_BOOLEAN = 4;
@@ -36,32 +43,59 @@ public class TypedBundle {
     int[] mTypeBoolean = new int[INITIAL_BOOLEAN];
     boolean[] mValueBoolean = new boolean[INITIAL_BOOLEAN];
     int mCountBoolean = 0;
+    private final TypeIndex mIndexInt = new TypeIndex();
+    private final TypeIndex mIndexFloat = new TypeIndex();
+    private final TypeIndex mIndexString = new TypeIndex();
+    private final TypeIndex mIndexBoolean = new TypeIndex();
 
     public int getInteger(int type) {
-        for (int i = 0; i < mCountInt; i++) {
-            if (mTypeInt[i] == type) {
-                return mValueInt[i];
-            }
-        }
-        return -1;
+        int slot = mIndexInt.find(mTypeInt, mCountInt, type);
+        return slot < 0 ? -1 : mValueInt[slot];
+    }
+
+    public float getFloat(int type) {
+        int slot = mIndexFloat.find(mTypeFloat, mCountFloat, type);
+        return slot < 0 ? Float.NaN : mValueFloat[slot];
+    }
+
+    public String getString(int type) {
+        int slot = mIndexString.find(mTypeString, mCountString, type);
+        return slot < 0 ? null : mValueString[slot];
+    }
+
+    public boolean getBoolean(int type, boolean defaultValue) {
+        int slot = mIndexBoolean.find(mTypeBoolean, mCountBoolean, type);
+        return slot < 0 ? defaultValue : mValueBoolean[slot];
     }
 
     public void add(int type, int value) {
+        int slot = mIndexInt.find(mTypeInt, mCountInt, type);
+        if (slot >= 0) {
+            mValueInt[slot] = value;
+            return;
+        }
         if (mCountInt >= mTypeInt.length) {
             mTypeInt = Arrays.copyOf(mTypeInt, mTypeInt.length * 2);
             mValueInt = Arrays.copyOf(mValueInt, mValueInt.length * 2);
         }
         mTypeInt[mCountInt] = type;
-        mValueInt[mCountInt++] = value;
+        mValueInt[mCountInt] = value;
+        mIndexInt.added(type, mCountInt++);
     }
 
     public void add(int type, float value) {
+        int slot = mIndexFloat.find(mTypeFloat, mCountFloat, type);
+        if (slot >= 0) {
+            mValueFloat[slot] = value;
+            return;
+        }
         if (mCountFloat >= mTypeFloat.length) {
             mTypeFloat = Arrays.copyOf(mTypeFloat, mTypeFloat.length * 2);
             mValueFloat = Arrays.copyOf(mValueFloat, mValueFloat.length * 2);
         }
         mTypeFloat[mCountFloat] = type;
-        mValueFloat[mCountFloat++] = value;
+        mValueFloat[mCountFloat] = value;
+        mIndexFloat.added(type, mCountFloat++);
     }
 
     public void addIfNotNull(int type, String value) {
@@ -71,21 +105,33 @@ public class TypedBundle {
     }
 
     public void add(int type, String value) {
+        int slot = mIndexString.find(mTypeString, mCountString, type);
+        if (slot >= 0) {
+            mValueString[slot] = value;
+            return;
+        }
         if (mCountString >= mTypeString.length) {
             mTypeString = Arrays.copyOf(mTypeString, mTypeString.length * 2);
             mValueString = Arrays.copyOf(mValueString, mValueString.length * 2);
         }
         mTypeString[mCountString] = type;
-        mValueString[mCountString++] = value;
+        mValueString[mCountString] = value;
+        mIndexString.added(type, mCountString++);
     }
 
     public void add(int type, boolean value) {
+        int slot = mIndexBoolean.find(mTypeBoolean, mCountBoolean, type);
+        if (slot >= 0) {
+            mValueBoolean[slot] = value;
+            return;
+        }
         if (mCountBoolean >= mTypeBoolean.length) {
             mTypeBoolean = Arrays.copyOf(mTypeBoolean, mTypeBoolean.length * 2);
             mValueBoolean = Arrays.copyOf(mValueBoolean, mValueBoolean.length * 2);
         }
         mTypeBoolean[mCountBoolean] = type;
-        mValueBoolean[mCountBoolean++] = value;
+        mValueBoolean[mCountBoolean] = value;
+        mIndexBoolean.added(type, mCountBoolean++);
     }
 
     public void applyDelta(TypedValues values) {
@@ -108,5 +154,86 @@ public class TypedBundle {
         mCountString = 0;
         mCountFloat = 0;
         mCountInt = 0;
+        mIndexInt.clear();
+        mIndexFloat.clear();
+        mIndexString.clear();
+        mIndexBoolean.clear();
+    }
+
+    /**
+     * Maps a type id to its slot in one of the parallel arrays.
+     * The table is rebuilt when an id falls outside the range it covers, which stays small
+     * because a bundle holds ids from one or two TypedValues groups.
+     */
+    private static class TypeIndex {
+        private static final int MAX_RANGE = 1024;
+        int mBase;
+        int[] mSlots; // slot + 1, 0 if the id is not present
+        int mIndexed; // number of entries the table covers
+        boolean mLinear; // ids span too wide a range to index
+
+        int find(int[] types, int count, int type) {
+            if (mIndexed != count) {
+                build(types, count);
+            }
+            if (mLinear) {
+                for (int i = 0; i < count; i++) {
+                    if (types[i] == type) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int i = type - mBase;
+            if (mSlots == null || i < 0 || i >= mSlots.length) {
+                return -1;
+            }
+            return mSlots[i] - 1;
+        }
+
+        void added(int type, int slot) {
+            if (mIndexed != slot) {
+                return;
+            }
+            int i = type - mBase;
+            if (mLinear) {
+                mIndexed++;
+            } else if (mSlots != null && i >= 0 && i < mSlots.length) {
+                mSlots[i] = slot + 1;
+                mIndexed++;
+            }
+        }
+
+        void clear() {
+            if (mSlots != null) {
+                Arrays.fill(mSlots, 0);
+            }
+            mIndexed = 0;
+            mLinear = false;
+        }
+
+        private void build(int[] types, int count) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, types[i]);
+                max = Math.max(max, types[i]);
+            }
+            mIndexed = count;
+            mLinear = (long) max - min >= MAX_RANGE;
+            if (mLinear) {
+                return;
+            }
+            int range = max - min + 1;
+            if (mSlots == null || mSlots.length < range) {
+                mSlots = new int[Math.max(range, 8)];
+            } else {
+                Arrays.fill(mSlots, 0);
+            }
+            mBase = min;
+            for (int i = count - 1; i >= 0; i--) {
+                mSlots[types[i] - min] = i + 1;
+            }
+        }
     }
 }
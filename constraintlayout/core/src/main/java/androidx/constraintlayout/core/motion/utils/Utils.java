@@ -48,11 +48,7 @@ public class Utils {
     }
 
     public int getInterpolatedColor(float[] value) {
-        int r = clamp((int) ((float) Math.pow(value[0], 1.0 / 2.2) * 255.0f));
-        int g = clamp((int) ((float) Math.pow(value[1], 1.0 / 2.2) * 255.0f));
-        int b = clamp((int) ((float) Math.pow(value[2], 1.0 / 2.2) * 255.0f));
-        int a = clamp((int) (value[3] * 255.0f));
-        int color = (a << 24) | (r << 16) | (g << 8) | b;
+        int color = ColorGamma.linearToColor(value);
         return color;
     }
 
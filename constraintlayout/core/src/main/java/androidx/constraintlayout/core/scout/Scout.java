@@ -20,6 +20,7 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 import androidx.constraintlayout.core.widgets.WidgetContainer;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Main entry for the Scout Inference engine.
@@ -28,6 +29,11 @@ import java.util.ArrayList;
  */
 public class Scout {
 
+    /**
+     * Number of nearest widgets scored as connection candidates of each widget, on top of the
+     * root and the guidelines. Smaller layouts compare every pair of widgets.
+     */
+    public static final int DEFAULT_MAX_CANDIDATES = 24;
 
     /**
      * Given a collection of widgets evaluates probability of a connection
@@ -42,6 +48,19 @@ public class Scout {
      * @param base
      */
     public static void inferConstraints(WidgetContainer base) {
+        inferConstraints(base, DEFAULT_MAX_CANDIDATES, null);
+    }
+
+    /**
+     * Recursive decent of widget tree inferring constraints on ConstraintWidgetContainer
+     *
+     * @param base
+     * @param maxCandidates number of nearest widgets each widget can be connected to besides
+     *                      the root and the guidelines, 0 considers all of them
+     * @param executor      used to score large layouts in parallel, may be null
+     */
+    public static void inferConstraints(WidgetContainer base, int maxCandidates,
+            Executor executor) {
         if (base == null) {
             return;
         }
@@ -56,7 +75,7 @@ public class Scout {
             if (constraintWidget instanceof ConstraintWidgetContainer) {
                 ConstraintWidgetContainer container = (ConstraintWidgetContainer)constraintWidget;
                 if (!container.getChildren().isEmpty()) {
-                    inferConstraints(container);
+                    inferConstraints(container, maxCandidates, executor);
                 }
             }
         }
@@ -65,7 +84,7 @@ public class Scout {
         list.add(0, base);
 
         ConstraintWidget[] widgets = list.toArray(new ConstraintWidget[list.size()]);
-        ScoutWidget.computeConstraints(ScoutWidget.create(widgets));
+        ScoutWidget.computeConstraints(ScoutWidget.create(widgets), maxCandidates, executor);
         base.setX(preX);
         base.setY(preY);
     }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.scout;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the widgets of a layout.
+ * Used to find the widgets closest to a given one without measuring the distance to all of them.
+ * The root and the guidelines are not in the grid, they are candidates of every widget.
+ */
+class ScoutGrid {
+    private static final int MAX_CELLS_PER_SIDE = 256;
+    private final ScoutWidget[] mList;
+    private final int[] mAlways; // root and guidelines
+    private final float mLeft;
+    private final float mTop;
+    private final float mCellSize;
+    private final int mColumns;
+    private final int mRows;
+    private final int[] mCellStart; // start of each cell in mCellWidgets
+    private final int[] mCellWidgets;
+
+    /**
+     * Per thread state of the queries
+     */
+    static class Query {
+        int[] mVisited;
+        int mGeneration;
+        int[] mFound;
+        float[] mDistance;
+        float[] mSorted;
+
+        Query(int size) {
+            mVisited = new int[size];
+            mFound = new int[size];
+            mDistance = new float[size];
+            mSorted = new float[size];
+        }
+    }
+
+    /**
+     * @param list ordered list of widgets root must be list[0]
+     */
+    ScoutGrid(ScoutWidget[] list) {
+        mList = list;
+        int always = 1;
+        int count = 0;
+        float left = list[0].getX();
+        float top = list[0].getY();
+        float right = left + list[0].getWidth();
+        float bottom = top + list[0].getHeight();
+        for (int i = 1; i < list.length; i++) {
+            ScoutWidget widget = list[i];
+            if (widget.isGuideline()) {
+                always++;
+                continue;
+            }
+            count++;
+            left = Math.min(left, widget.getX());
+            top = Math.min(top, widget.getY());
+            right = Math.max(right, widget.getX() + widget.getWidth());
+            bottom = Math.max(bottom, widget.getY() + widget.getHeight());
+        }
+        mAlways = new int[always];
+        always = 1;
+        for (int i = 1; i < list.length; i++) {
+            if (list[i].isGuideline()) {
+                mAlways[always++] = i;
+            }
+        }
+        mLeft = left;
+        mTop = top;
+        float width = Math.max(1, right - left);
+        float height = Math.max(1, bottom - top);
+        // about one widget per cell
+        float cellSize = (float) Math.sqrt(width * height / Math.max(1, count));
+        cellSize = Math.max(cellSize, Math.max(width, height) / MAX_CELLS_PER_SIDE);
+        mCellSize = Math.max(1, cellSize);
+        mColumns = Math.max(1, (int) Math.ceil(width / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(height / mCellSize));
+
+        // count the widgets in each cell then fill them
+        mCellStart = new int[mColumns * mRows + 1];
+        for (int i = 1; i < list.length; i++) {
+            if (!list[i].isGuideline()) {
+                addToCells(list[i], i, mCellStart, null);
+            }
+        }
+        for (int cell = 1; cell < mCellStart.length; cell++) {
+            mCellStart[cell] += mCellStart[cell - 1];
+        }
+        mCellWidgets = new int[mCellStart[mCellStart.length - 1]];
+        int[] next = mCellStart.clone();
+        for (int i = 1; i < list.length; i++) {
+            if (!list[i].isGuideline()) {
+                addToCells(list[i], i, next, mCellWidgets);
+            }
+        }
+    }
+
+    /**
+     * Count the widget in the cells it overlaps, or store it when cells is not null
+     */
+    private void addToCells(ScoutWidget widget, int index, int[] next, int[] cells) {
+        int col1 = column(widget.getX());
+        int col2 = column(widget.getX() + widget.getWidth());
+        int row1 = row(widget.getY());
+        int row2 = row(widget.getY() + widget.getHeight());
+        for (int row = row1; row <= row2; row++) {
+            for (int col = col1; col <= col2; col++) {
+                int cell = row * mColumns + col;
+                if (cells == null) {
+                    next[cell + 1]++;
+                } else {
+                    cells[next[cell]++] = index;
+                }
+            }
+        }
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(mColumns - 1, (int) ((x - mLeft) / mCellSize)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(mRows - 1, (int) ((y - mTop) / mCellSize)));
+    }
+
+    /**
+     * Find the candidates of a widget: the root, the guidelines and its closest widgets.
+     * Rings of cells are searched around the widget until the closest widgets found
+     * are nearer than anything in the cells not yet searched.
+     *
+     * @param index the widget in the list
+     * @param count the number of closest widgets to return
+     * @param query per thread state
+     * @return the indices of the candidates in increasing order
+     */
+    int[] nearest(int index, int count, Query query) {
+        ScoutWidget widget = mList[index];
+        int col1 = column(widget.getX());
+        int col2 = column(widget.getX() + widget.getWidth());
+        int row1 = row(widget.getY());
+        int row2 = row(widget.getY() + widget.getHeight());
+        int generation = ++query.mGeneration;
+        int[] visited = query.mVisited;
+        int found = 0;
+        for (int ring = 0; ; ring++) {
+            int top = row1 - ring;
+            int bottom = row2 + ring;
+            int left = col1 - ring;
+            int right = col2 + ring;
+            for (int row = Math.max(0, top); row <= Math.min(mRows - 1, bottom); row++) {
+                boolean edgeRow = row == top || row == bottom;
+                for (int col = Math.max(0, left); col <= Math.min(mColumns - 1, right); col++) {
+                    if (ring > 0 && !edgeRow && col != left && col != right) {
+                        continue; // inside the previous ring
+                    }
+                    int cell = row * mColumns + col;
+                    for (int k = mCellStart[cell]; k < mCellStart[cell + 1]; k++) {
+                        int other = mCellWidgets[k];
+                        if (other == index || visited[other] == generation) {
+                            continue;
+                        }
+                        visited[other] = generation;
+                        query.mFound[found] = other;
+                        query.mDistance[found] = ScoutWidget.distance(widget, mList[other]);
+                        found++;
+                    }
+                }
+            }
+            boolean searchedAll = top <= 0 && left <= 0
+                    && bottom >= mRows - 1 && right >= mColumns - 1;
+            if (searchedAll) {
+                break;
+            }
+            if (found >= count && kthDistance(query, found, count) <= ring * mCellSize) {
+                break;
+            }
+        }
+        int nearest = Math.min(count, found);
+        float maxDistance = (nearest > 0) ? kthDistance(query, found, nearest) : 0;
+        int[] candidates = new int[mAlways.length + nearest];
+        System.arraycopy(mAlways, 0, candidates, 0, mAlways.length);
+        int n = mAlways.length;
+        // keep the widgets closer than the k-th, then the ones at that distance in list order
+        for (int k = 0; k < found && n < candidates.length; k++) {
+            if (query.mDistance[k] < maxDistance) {
+                candidates[n++] = query.mFound[k];
+            }
+        }
+        if (n < candidates.length) {
+            int[] tied = Arrays.copyOf(query.mFound, found);
+            int ties = 0;
+            for (int k = 0; k < found; k++) {
+                if (query.mDistance[k] == maxDistance) {
+                    tied[ties++] = query.mFound[k];
+                }
+            }
+            Arrays.sort(tied, 0, ties);
+            for (int k = 0; k < ties && n < candidates.length; k++) {
+                candidates[n++] = tied[k];
+            }
+        }
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    private static float kthDistance(Query query, int found, int k) {
+        System.arraycopy(query.mDistance, 0, query.mSorted, 0, found);
+        Arrays.sort(query.mSorted, 0, found);
+        return query.mSorted[k - 1];
+    }
+}
@@ -16,10 +16,13 @@
 
 package androidx.constraintlayout.core.scout;
 
-import java.awt.*;
+import androidx.constraintlayout.core.widgets.Rectangle;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 /**
  * Inference Probability tables
@@ -43,12 +46,36 @@ public class ScoutProbabilities {
     private static final int ROOT_MARGIN_DISCOUNT = 16;
     private static final int MAX_ROOT_OVERHANG = 10;
     private static final boolean SKIP_SPARSE_COLUMNS = true;
+    private static final int MIN_WIDGETS_PER_TASK = 32;
+    private static final Direction[][] BINARY_DIRECTIONS =
+            { { Direction.NORTH, Direction.SOUTH }, { Direction.WEST, Direction.EAST } };
 
     float[][][] mProbability; // probability of a connection
     float[][][] mMargin; // margin needed for that connection
-    float[][][][] mBinaryBias; // Ratio needed for binary connections (should be .5 for now)
     float[][][][] mBinaryProbability; // probability of a left_right/up_down
+    int[][] mCandidates; // widgets each widget can connect to, indexes the tables
     int len;
+    private int mMaxCandidates = 0;
+    private Executor mExecutor;
+
+    /**
+     * Limit the connections of each widget to its closest widgets, the root and the guidelines.
+     * Without a limit the tables grow with the cube of the number of widgets.
+     *
+     * @param maxCandidates number of closest widgets, 0 to consider all widgets
+     */
+    public void setMaxCandidates(int maxCandidates) {
+        mMaxCandidates = maxCandidates;
+    }
+
+    /**
+     * Compute the tables of the widgets in parallel on this executor
+     *
+     * @param executor may be null to compute them on the calling thread
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
 
     /**
      * This calculates a constraint tables
@@ -67,54 +94,130 @@ public class ScoutProbabilities {
 
         mProbability = new float[len][][];
         mMargin = new float[len][][];
-
-        // calculate probability for normal connections
-        float[] result = new float[2]; // estimation function return 2 values probability & margin
-
-        for (int i = 1; i < len; i++) { // for all non root widgets
-            Direction[] all = Direction.getAllDirections();
-            if (list[i].isGuideline()) {
-                continue;
+        mBinaryProbability = new float[len][][][];
+        mCandidates = new int[len][];
+
+        ScoutGrid grid = null;
+        int[] everyWidget = null;
+        if (mMaxCandidates <= 0 || len - 1 <= mMaxCandidates) {
+            everyWidget = new int[len];
+            for (int i = 0; i < len; i++) {
+                everyWidget[i] = i;
             }
-            mProbability[i] = new float[all.length][];
-            mMargin[i] = new float[all.length][];
-            for (int dir = 0; dir < all.length; dir++) { // for all possible connections
-                Direction direction = Direction.get(dir);
-                int connectTypes = direction.connectTypes();
-
-                // create the multidimensional array on the fly
-                // to account for the variying size of the probability space
-                mProbability[i][dir] = new float[len * connectTypes];
-                mMargin[i][dir] = new float[len * connectTypes];
+        } else {
+            grid = new ScoutGrid(list);
+        }
 
-                // fill in all candidate connections
-                for (int candidate = 0; candidate < mMargin[i][dir].length; candidate++) {
-                    int widgetNumber = candidate / connectTypes;
-                    int opposite = candidate % connectTypes;
-                    Direction connectTo = (opposite == 0) ? direction : direction.getOpposite();
+        int tasks = 1;
+        if (mExecutor != null) {
+            tasks = Math.min(Runtime.getRuntime().availableProcessors(),
+                    (len - 1) / MIN_WIDGETS_PER_TASK);
+        }
+        if (tasks <= 1) {
+            computeWidgets(list, grid, everyWidget, 1, len);
+        } else {
+            computeInParallel(list, grid, everyWidget, tasks);
+        }
+        if (DEBUG) {
+            printTable(list);
+        }
+    }
 
-                    estimateProbability(list[i], direction, list[widgetNumber],
-                            connectTo, list, result);
-                    mProbability[i][dir][candidate] = result[RESULT_PROBABILITY];
-                    mMargin[i][dir][candidate] = result[RESULT_MARGIN];
+    /**
+     * Split the widgets in ranges, the first range is computed on the calling thread
+     */
+    private void computeInParallel(final ScoutWidget[] list, final ScoutGrid grid,
+            final int[] everyWidget, int tasks) {
+        int count = len - 1;
+        final CountDownLatch latch = new CountDownLatch(tasks - 1);
+        final RuntimeException[] failure = new RuntimeException[1];
+        for (int t = 1; t < tasks; t++) {
+            final int from = 1 + (int) ((long) count * t / tasks);
+            final int to = 1 + (int) ((long) count * (t + 1) / tasks);
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        computeWidgets(list, grid, everyWidget, from, to);
+                    } catch (RuntimeException e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
                 }
+            });
+        }
+        computeWidgets(list, grid, everyWidget, 1, 1 + count / tasks);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
             }
         }
+    }
 
-        // calculate probability for "centered" connections
-        mBinaryProbability = new float[len][2][len * 2][len * 2];
-        mBinaryBias = new float[len][2][len * 2][len * 2];
-        Direction[][] directions =
-                { { Direction.NORTH, Direction.SOUTH }, { Direction.WEST, Direction.EAST } };
-        for (int i = 1; i < len; i++) {
+    /**
+     * Fill the tables of the widgets in [from, to)
+     *
+     * @param grid        used to find the candidates, null when all widgets are candidates
+     * @param everyWidget the candidates when grid is null
+     */
+    private void computeWidgets(ScoutWidget[] list, ScoutGrid grid, int[] everyWidget,
+            int from, int to) {
+        // estimation function return 2 values probability & margin
+        float[] result = new float[2];
+        ScoutGrid.Query query = (grid == null) ? null : new ScoutGrid.Query(len);
+        Direction[] all = Direction.getAllDirections();
+
+        for (int i = from; i < to; i++) {
+            int[] candidates = (grid == null) ? everyWidget
+                    : grid.nearest(i, mMaxCandidates, query);
+            mCandidates[i] = candidates;
+            int count = candidates.length;
+
+            // calculate probability for normal connections
+            if (!list[i].isGuideline()) {
+                mProbability[i] = new float[all.length][];
+                mMargin[i] = new float[all.length][];
+                for (int dir = 0; dir < all.length; dir++) { // for all possible connections
+                    Direction direction = Direction.get(dir);
+                    int connectTypes = direction.connectTypes();
+
+                    // create the multidimensional array on the fly
+                    // to account for the variying size of the probability space
+                    mProbability[i][dir] = new float[count * connectTypes];
+                    mMargin[i][dir] = new float[count * connectTypes];
+
+                    // fill in all candidate connections
+                    for (int candidate = 0; candidate < mMargin[i][dir].length; candidate++) {
+                        int widgetNumber = candidates[candidate / connectTypes];
+                        int opposite = candidate % connectTypes;
+                        Direction connectTo = (opposite == 0) ? direction : direction.getOpposite();
+
+                        estimateProbability(list[i], direction, list[widgetNumber],
+                                connectTo, list, result);
+                        mProbability[i][dir][candidate] = result[RESULT_PROBABILITY];
+                        mMargin[i][dir][candidate] = result[RESULT_MARGIN];
+                    }
+                }
+            }
+
+            // calculate probability for "centered" connections
+            mBinaryProbability[i] = new float[2][count * 2][count * 2];
             for (int horizontal = 0; horizontal < 2; horizontal++) { // vert=0 or horizantal=1
-                Direction[] sides = directions[horizontal];
-                for (int candidate1 = 0; candidate1 < len * 2; candidate1++) {
-                    for (int candidate2 = 0; candidate2 < len * 2; candidate2++) {
+                Direction[] sides = BINARY_DIRECTIONS[horizontal];
+                for (int candidate1 = 0; candidate1 < count * 2; candidate1++) {
+                    for (int candidate2 = 0; candidate2 < count * 2; candidate2++) {
 
                         // candidates are 2 per widget (left/right or above/below)
-                        int widget1Number = candidate1 / 2;
-                        int widget2Number = candidate2 / 2;
+                        int widget1Number = candidates[candidate1 / 2];
+                        int widget2Number = candidates[candidate2 / 2];
 
                         // pick the sides to connect
                         Direction widget1Side = sides[candidate1 & 0x1];
@@ -126,15 +229,10 @@ public class ScoutProbabilities {
                                 list, result);
                         mBinaryProbability[i][horizontal][candidate1][candidate2] =
                                 result[RESULT_PROBABILITY];
-                        mBinaryBias[i][horizontal][candidate1][candidate2] =
-                                result[RESULT_MARGIN];
                     }
                 }
             }
         }
-        if (DEBUG) {
-            printTable(list);
-        }
     }
 
     /**
@@ -255,10 +353,11 @@ public class ScoutProbabilities {
                     Rectangle r = scoutWidget.getRectangle();
                     area += r.width * r.height;
                     if (union == null) {
-                        union = r;
+                        union = new Rectangle();
+                        union.setBounds(r.x, r.y, r.width, r.height);
                     }
                     else {
-                        union = union.union(r);
+                        Utils.union(union, r.x, r.y, r.width, r.height);
                     }
                 }
                 int unionArea = union.width * union.height;
@@ -267,7 +366,7 @@ public class ScoutProbabilities {
                 }
             }
 
-            ScoutWidget[] widgets = (ScoutWidget[])group.toArray(new ScoutWidget[group.size()]);
+            ScoutWidget[] widgets = group.toArray(new ScoutWidget[group.size()]);
             Arrays.sort(widgets, ScoutWidget.sSortY);
             boolean reverse = widgets[0].rootDistanceY() > widgets[widgets.length - 1].rootDistanceY();
             float[] max = new float[widgets.length];
@@ -282,13 +381,19 @@ public class ScoutProbabilities {
             }
             // zero out probabilities of connecting to each other we are going to take care of it here
             for (int i = 0; i < widgets.length; i++) {
+                int[] candidates = mCandidates[map[i]];
+                float[][] pmatrix = mBinaryProbability[map[i]][1];
                 for (int j = 0; j < widgets.length; j++) {
-                    int l = map[j] * 2;
-                    for (int k = 2; k < 2 * list.length; k++) {
-                        mBinaryProbability[map[i]][1][l][k] = -1;
-                        mBinaryProbability[map[i]][1][k][l] = -1;
-                        mBinaryProbability[map[i]][1][l + 1][k] = -1;
-                        mBinaryProbability[map[i]][1][k][l + 1] = -1;
+                    int c = Arrays.binarySearch(candidates, map[j]);
+                    if (c < 0) {
+                        continue;
+                    }
+                    int l = c * 2;
+                    for (int k = 2; k < 2 * candidates.length; k++) {
+                        pmatrix[l][k] = -1;
+                        pmatrix[k][l] = -1;
+                        pmatrix[l + 1][k] = -1;
+                        pmatrix[k][l + 1] = -1;
                     }
                 }
             }
@@ -322,8 +427,9 @@ public class ScoutProbabilities {
 
             if (bestToConnect >= 0) {
                 Utils.max(mBinaryProbability[map[bestToConnect]][1], dualIndex);
-                ScoutWidget w1 = list[dualIndex[0] / 2];
-                ScoutWidget w2 = list[dualIndex[1] / 2];
+                int[] candidates = mCandidates[map[bestToConnect]];
+                ScoutWidget w1 = list[candidates[dualIndex[0] / 2]];
+                ScoutWidget w2 = list[candidates[dualIndex[1] / 2]];
                 Direction dir1 = ((dualIndex[0] & 0x1) == 0) ? Direction.WEST : Direction.EAST;
                 Direction dir2 = ((dualIndex[1] & 0x1) == 0) ? Direction.WEST : Direction.EAST;
                 widgets[bestToConnect].setCentered(0, w1, w2, dir1, dir2, 0);
@@ -389,6 +495,7 @@ public class ScoutProbabilities {
 
             int maxIndex = Utils.max(widgetProbability[baseline]);
             float maxBaseline = widgetProbability[baseline][maxIndex];
+            ScoutWidget target = list[mCandidates[i][maxIndex]];
             if (maxBaseline < maxNorth || maxBaseline < maxSouth) {
                 continue;
             }
@@ -396,12 +503,12 @@ public class ScoutProbabilities {
             String s;
             if (DEBUG) {
                 System.out.println(" b check " + list[i] + " " + widgetProbability[4][maxIndex]);
-                s = list[i] + "(" + Direction.toString(baseline) + ") -> " + list[maxIndex] + " " +
+                s = list[i] + "(" + Direction.toString(baseline) + ") -> " + target + " " +
                         Direction.toString(baseline);
                 System.out.println("try " + s);
             }
 
-            if (list[i].setConstraint(baseline, list[maxIndex], baseline, 0)) {
+            if (list[i].setConstraint(baseline, target, baseline, 0)) {
                 Utils.zero(mBinaryProbability[i][Direction.ORIENTATION_VERTICAL]);
                 Arrays.fill(widgetProbability[baseline], 0.0f);
                 widgetProbability[north] = null;
@@ -421,17 +528,16 @@ public class ScoutProbabilities {
      * @param checkResizeable if true will attempt to make a stretchable widget
      */
     private void pickCenteredConnections(ScoutWidget[] list, boolean checkResizeable) {
-        Direction[][] side =
-                { { Direction.NORTH, Direction.SOUTH }, { Direction.WEST, Direction.EAST } };
+        Direction[][] side = BINARY_DIRECTIONS;
         int[] dualIndex = new int[2];
+        float[] result = new float[2];
         for (int i = 1; i < len; i++) {
             float[][][] widgetBinaryProbability = mBinaryProbability[i];
-            float[][][] widgetBinaryBias = mBinaryBias[i];
+            int[] candidates = mCandidates[i];
 
             for (int horizontal = 0; horizontal < widgetBinaryProbability.length;
                     horizontal++) { // vert=0 or horizontals=1
                 float[][] pmatrix = widgetBinaryProbability[horizontal];
-                float[][] bias = widgetBinaryBias[horizontal];
                 if (pmatrix == null) {
                     continue;
                 }
@@ -440,8 +546,8 @@ public class ScoutProbabilities {
                     Utils.max(pmatrix, dualIndex);
                     int max1 = dualIndex[0];
                     int max2 = dualIndex[1];
-                    int wNo1 = max1 / 2;
-                    int wNo2 = max2 / 2;
+                    int wNo1 = candidates[max1 / 2];
+                    int wNo2 = candidates[max2 / 2];
                     Direction widget1Side = side[horizontal][max1 & 0x1];
                     Direction widget2Side = side[horizontal][max2 & 0x1];
 
@@ -453,10 +559,13 @@ public class ScoutProbabilities {
                             continue;
                         }
 
+                        estimateBinaryProbability(list[i], horizontal,
+                                list[wNo1], widget1Side, list[wNo2], widget2Side,
+                                list, result);
                         worked = list[i].setCentered(horizontal * 2, list[wNo1], list[wNo2],
                                 widget1Side,
                                 widget2Side,
-                                bias[max1][max2]);
+                                result[RESULT_MARGIN]);
                         if (worked) {
                             mProbability[i][horizontal * 2] = null;
                             mProbability[i][horizontal * 2 + 1] = null;
@@ -517,15 +626,17 @@ public class ScoutProbabilities {
                         }
                     }
                     if (widgetProbability[maxDirection] == null) {
-                        System.out.println(list[i]+" "+maxDirection);
+                        if (DEBUG) {
+                            System.out.println(" no candidate " + list[i] + " " + maxDirection);
+                        }
                         continue;
                     }
                     int m, cDir;
                     if (maxDirection == baseline) { // baseline connection
-                        m = maxIndex;
+                        m = mCandidates[i][maxIndex];
                         cDir = baseline; // always baseline
                     } else {
-                        m = maxIndex / 2;
+                        m = mCandidates[i][maxIndex / 2];
                         cDir = maxDirection;
                         if (maxIndex % 2 == 1) {
                             cDir = cDir ^ 1;
@@ -879,6 +990,7 @@ public class ScoutProbabilities {
         System.out.println("  " + str);
 
         for (int i = 1; i < len; i++) {
+            System.out.println(i + " candidates " + Arrays.toString(mCandidates[i]));
             for (int dir = 0; dir < mBinaryProbability[i].length;
                     dir++) { // above, below, left, right
                 String tab = "";
@@ -927,6 +1039,7 @@ public class ScoutProbabilities {
             if (mProbability[i] == null) {
                 continue;
             }
+            System.out.println(padd + " candidates " + Arrays.toString(mCandidates[i]));
             for (int dir = 0; dir < mProbability[i].length; dir++) { // above, below, left, right
 
                 System.out.println(
@@ -18,12 +18,13 @@ package androidx.constraintlayout.core.scout;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.Guideline;
+import androidx.constraintlayout.core.widgets.Rectangle;
 import androidx.constraintlayout.core.widgets.WidgetContainer;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
 
 /**
  * Main Wrapper class for Constraint Widgets
@@ -65,9 +66,15 @@ public class ScoutWidget implements Comparable<ScoutWidget> {
      */
     @Override
     public int compareTo(ScoutWidget scoutWidget) {
+        if (this == scoutWidget) {
+            return 0;
+        }
         if (mParent == null) {
             return -1;
         }
+        if (scoutWidget.mParent == null) {
+            return 1;
+        }
         if (mRootDistance != scoutWidget.mRootDistance) {
             return Float.compare(mRootDistance, scoutWidget.mRootDistance);
         }
@@ -213,7 +220,21 @@ public class ScoutWidget implements Comparable<ScoutWidget> {
      * @param list ordered list of widgets root must be list[0]
      */
     public static void computeConstraints(ScoutWidget[] list) {
+        computeConstraints(list, Scout.DEFAULT_MAX_CANDIDATES, null);
+    }
+
+    /**
+     * This calculates a constraint tables and applies them to the widgets
+     *
+     * @param list          ordered list of widgets root must be list[0]
+     * @param maxCandidates number of nearest widgets scored for each widget, 0 scores them all
+     * @param executor      used to compute the tables in parallel, may be null
+     */
+    public static void computeConstraints(ScoutWidget[] list, int maxCandidates,
+            Executor executor) {
         ScoutProbabilities table = new ScoutProbabilities();
+        table.setMaxCandidates(maxCandidates);
+        table.setExecutor(executor);
         table.computeConstraints(list);
         table.applyConstraints(list);
     }
@@ -849,6 +870,17 @@ public class ScoutWidget implements Comparable<ScoutWidget> {
         return mRectangle;
     }
 
+    /**
+     * @return true if the two rectangles overlap, empty rectangles never do
+     */
+    static boolean intersects(Rectangle a, Rectangle b) {
+        if (a.width <= 0 || a.height <= 0 || b.width <= 0 || b.height <= 0) {
+            return false;
+        }
+        return a.x < b.x + b.width && b.x < a.x + a.width
+                && a.y < b.y + b.height && b.y < a.y + a.height;
+    }
+
     static ScoutWidget[] getWidgetArray(WidgetContainer base) {
         ArrayList<ConstraintWidget> list = new ArrayList<>(base.getChildren());
         list.add(0, base);
@@ -906,7 +938,7 @@ public class ScoutWidget implements Comparable<ScoutWidget> {
                 continue;
             }
             Rectangle r = scoutWidget.getRectangle();
-            if (r.intersects(rect)) {
+            if (intersects(r, rect)) {
                 int dist = (int) distance(scoutWidget, this);
                 if (min > dist) {
                     min = dist;
@@ -18,8 +18,8 @@ package androidx.constraintlayout.core.scout;
 
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
 import androidx.constraintlayout.core.widgets.Guideline;
+import androidx.constraintlayout.core.widgets.Rectangle;
 
-import java.awt.*;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -253,22 +253,31 @@ public class Utils {
      */
     static Rectangle getBoundingBox(ArrayList<ConstraintWidget> widgets) {
         Rectangle all = null;
-        Rectangle tmp = new Rectangle();
         for (ConstraintWidget widget : widgets) {
             if (widget instanceof Guideline) {
                 continue;
             }
-            tmp.x = widget.getX();
-            tmp.y = widget.getY();
-            tmp.width = widget.getWidth();
-            tmp.height = widget.getHeight();
             if (all == null) {
-                all = new Rectangle(tmp);
+                all = new Rectangle();
+                all.setBounds(widget.getX(), widget.getY(), widget.getWidth(),
+                        widget.getHeight());
             } else {
-                all = all.union(tmp);
+                union(all, widget.getX(), widget.getY(), widget.getWidth(), widget.getHeight());
             }
         }
         return all;
     }
 
+    /**
+     * Grow a rectangle to include another one
+     */
+    static void union(Rectangle rect, int x, int y, int width, int height) {
+        int x2 = Math.max(rect.x + rect.width, x + width);
+        int y2 = Math.max(rect.y + rect.height, y + height);
+        rect.x = Math.min(rect.x, x);
+        rect.y = Math.min(rect.y, y);
+        rect.width = x2 - rect.x;
+        rect.height = y2 - rect.y;
+    }
+
 }
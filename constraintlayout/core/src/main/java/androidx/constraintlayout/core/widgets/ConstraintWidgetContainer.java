@@ -166,8 +166,8 @@ public class ConstraintWidgetContainer extends WidgetContainer {
     private int mOptimizationLevel = Optimizer.OPTIMIZATION_STANDARD;
     public boolean mSkipSolver = false;
 
-    private boolean mWidthMeasuredTooSmall = false;
-    private boolean mHeightMeasuredTooSmall = false;
+    boolean mWidthMeasuredTooSmall = false;
+    boolean mHeightMeasuredTooSmall = false;
 
     /*-----------------------------------------------------------------------*/
     // Construction
@@ -517,6 +517,9 @@ public class ConstraintWidgetContainer extends WidgetContainer {
 
     public BasicMeasure.Measure mMeasure = new BasicMeasure.Measure();
 
+    // per container so that containers can be solved on different threads
+    final boolean[] mFlags = new boolean[3];
+
     public static boolean measure(int level, ConstraintWidget widget, BasicMeasure.Measurer measurer, BasicMeasure.Measure measure, int measureStrategy) {
         if (DEBUG) {
             System.out.println(Direct.ls(level) + "(M) call to measure " + widget.getDebugName());
@@ -857,7 +860,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
                 System.out.println("EXCEPTION : " + e);
             }
             if (needsSolving) {
-                needsSolving = updateChildrenFromSolver(mSystem, Optimizer.flags);
+                needsSolving = updateChildrenFromSolver(mSystem, mFlags);
             } else {
                 updateFromSolver(mSystem, optimize);
                 for (int i = 0; i < count; i++) {
@@ -868,7 +871,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
 
             if (hasWrapContent && countSolve < MAX_ITERATIONS
-                    && Optimizer.flags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
+                    && mFlags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
                 // let's get the new bounds
                 int maxX = 0;
                 int maxY = 0;
@@ -79,6 +79,14 @@ public class Flow extends VirtualLayout {
     private ConstraintWidget[] mDisplayedWidgets;
     private int mDisplayedWidgetsCount = 0;
 
+    // Virtualized content: the widgets are the items starting at mVirtualFirstIndex
+    // out of mVirtualItemCount, the extent of the other items is estimated
+
+    private int mVirtualFirstIndex = 0;
+    private int mVirtualItemCount = UNKNOWN;
+    private float mEstimatedChainExtent = 0;
+    private float mEstimatedItemsPerChain = 0;
+
 
     @Override
     public void copy(ConstraintWidget src, HashMap<ConstraintWidget,ConstraintWidget> map) {
@@ -109,6 +117,9 @@ public class Flow extends VirtualLayout {
         mMaxElementsWrap = srcFLow.mMaxElementsWrap;
 
         mOrientation = srcFLow.mOrientation;
+
+        mVirtualFirstIndex = srcFLow.mVirtualFirstIndex;
+        mVirtualItemCount = srcFLow.mVirtualItemCount;
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////
@@ -119,6 +130,10 @@ public class Flow extends VirtualLayout {
         mOrientation = value;
     }
 
+    public int getOrientation() {
+        return mOrientation;
+    }
+
     public void setFirstHorizontalStyle(int value) { mFirstHorizontalStyle = value; }
 
     public void setFirstVerticalStyle(int value) { mFirstVerticalStyle = value; }
@@ -169,6 +184,34 @@ public class Flow extends VirtualLayout {
 
     public void setMaxElementsWrap(int value) { mMaxElementsWrap = value; }
 
+    /**
+     * Only lay out a window of a larger list of items (WRAP_CHAIN only).
+     * The widgets of the flow are the items starting at firstIndex; no chains are created
+     * for the items before and after the window, the space they take is estimated from
+     * the chains of the window.
+     *
+     * @param firstIndex index of the first widget in the list of items
+     * @param itemCount  total number of items, or UNKNOWN to lay out the widgets only
+     */
+    public void setVirtualWindow(int firstIndex, int itemCount) {
+        mVirtualFirstIndex = firstIndex;
+        mVirtualItemCount = itemCount;
+    }
+
+    public int getVirtualFirstIndex() { return mVirtualFirstIndex; }
+
+    public int getVirtualItemCount() { return mVirtualItemCount; }
+
+    /**
+     * @return the average extent of a chain (including the gap) in the last virtualized measure
+     */
+    public float getEstimatedChainExtent() { return mEstimatedChainExtent; }
+
+    /**
+     * @return the average number of items per chain in the last virtualized measure
+     */
+    public float getEstimatedItemsPerChain() { return mEstimatedItemsPerChain; }
+
     /////////////////////////////////////////////////////////////////////////////////////////////
     // Utility methods
     /////////////////////////////////////////////////////////////////////////////////////////////
@@ -869,6 +912,30 @@ public class Flow extends VirtualLayout {
             }
         }
 
+        int leading = 0;
+        int trailing = 0;
+        if (mVirtualItemCount != UNKNOWN) {
+            int extent = 0;
+            for (int i = 0; i < listCount; i++) {
+                WidgetsList current = mChainList.get(i);
+                extent += orientation == HORIZONTAL ? current.getHeight() : current.getWidth();
+            }
+            int gap = orientation == HORIZONTAL ? mVerticalGap : mHorizontalGap;
+            mEstimatedChainExtent = (extent + gap * listCount) / (float) listCount;
+            mEstimatedItemsPerChain = count / (float) listCount;
+            int before = Math.max(0, mVirtualFirstIndex);
+            int after = Math.max(0, mVirtualItemCount - mVirtualFirstIndex - count);
+            leading = (int) (Math.ceil(before / mEstimatedItemsPerChain) * mEstimatedChainExtent);
+            trailing = (int) (Math.ceil(after / mEstimatedItemsPerChain) * mEstimatedChainExtent);
+            if (orientation == HORIZONTAL) {
+                paddingTop += leading;
+                maxHeight += leading + trailing;
+            } else {
+                paddingLeft += leading;
+                maxWidth += leading + trailing;
+            }
+        }
+
         for (int i = 0; i < listCount; i++) {
             WidgetsList current = mChainList.get(i);
             if (orientation == HORIZONTAL) {
@@ -878,7 +945,7 @@ public class Flow extends VirtualLayout {
                     paddingBottom = 0;
                 } else {
                     bottom = mBottom;
-                    paddingBottom = getPaddingBottom();
+                    paddingBottom = getPaddingBottom() + trailing;
                 }
                 ConstraintAnchor currentBottom = current.biggest.mBottom;
                 current.setup(orientation, left, top, right, bottom,
@@ -897,7 +964,7 @@ public class Flow extends VirtualLayout {
                     paddingRight = 0;
                 } else {
                     right = mRight;
-                    paddingRight = getPaddingRight();
+                    paddingRight = getPaddingRight() + trailing;
                 }
                 ConstraintAnchor currentRight = current.biggest.mRight;
                 current.setup(orientation, left, top, right, bottom,
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.constraintlayout.core.widgets;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+import androidx.constraintlayout.core.widgets.analyzer.MeasureCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * A private copy of the widget graph of a {@link ConstraintWidgetContainer}, which can be
+ * solved on another thread while the original keeps being used.
+ * <p>
+ * The snapshot is created on the thread owning the container. It can then be solved on any
+ * thread with a measurer that does not touch the original widgets, for instance one answering
+ * from sizes measured ahead of time and stored in {@link #getMeasureCache(int)}.
+ * If the measurer cannot answer, it calls {@link #markIncomplete()} and no frames are returned.
+ * The resulting {@link Frames} carry the version the snapshot was taken at, so the owner can
+ * discard them if the container changed since.
+ *
+ * @hide
+ */
+public class LayoutSnapshot {
+    private static final ConstraintAnchor.Type[] ANCHORS = {
+            ConstraintAnchor.Type.LEFT,
+            ConstraintAnchor.Type.TOP,
+            ConstraintAnchor.Type.RIGHT,
+            ConstraintAnchor.Type.BOTTOM,
+            ConstraintAnchor.Type.BASELINE,
+            ConstraintAnchor.Type.CENTER,
+            ConstraintAnchor.Type.CENTER_X,
+            ConstraintAnchor.Type.CENTER_Y,
+    };
+
+    private final long mVersion;
+    private final ConstraintWidgetContainer mContainer = new ConstraintWidgetContainer();
+    private final ConstraintWidget[] mSources;
+    private final ConstraintWidget[] mWidgets;
+    private final MeasureCache[] mMeasureCaches;
+    private final IdentityHashMap<ConstraintWidget, Integer> mIndex = new IdentityHashMap<>();
+    private volatile boolean mIncomplete;
+
+    private LayoutSnapshot(ConstraintWidgetContainer source, long version) {
+        mVersion = version;
+        ArrayList<ConstraintWidget> children = source.getChildren();
+        int count = children.size();
+        mSources = children.toArray(new ConstraintWidget[count]);
+        mWidgets = new ConstraintWidget[count];
+        mMeasureCaches = new MeasureCache[count];
+    }
+
+    /**
+     * Copy the widget graph of a container.
+     *
+     * @param source  the container to copy
+     * @param version a stamp identifying the state of the container
+     * @return the snapshot, or null if the container has widgets that cannot be copied
+     */
+    public static LayoutSnapshot create(ConstraintWidgetContainer source, long version) {
+        LayoutSnapshot snapshot = new LayoutSnapshot(source, version);
+        return snapshot.copy(source) ? snapshot : null;
+    }
+
+    private boolean copy(ConstraintWidgetContainer source) {
+        HashMap<ConstraintWidget, ConstraintWidget> map = new HashMap<>();
+        map.put(source, mContainer);
+        mContainer.copy(source, map);
+        mContainer.setHorizontalDimensionBehaviour(source.getHorizontalDimensionBehaviour());
+        mContainer.setVerticalDimensionBehaviour(source.getVerticalDimensionBehaviour());
+        mContainer.setOptimizationLevel(source.getOptimizationLevel());
+        mContainer.setRtl(source.isRtl());
+        for (int i = 0; i < mSources.length; i++) {
+            ConstraintWidget src = mSources[i];
+            ConstraintWidget widget;
+            if (src instanceof Barrier) {
+                widget = new Barrier();
+            } else if (src instanceof Guideline) {
+                widget = new Guideline();
+            } else if (src instanceof Flow) {
+                widget = new Flow();
+            } else if (src.getClass() == HelperWidget.class) {
+                widget = new HelperWidget();
+            } else if (src.getClass() == ConstraintWidget.class) {
+                widget = new ConstraintWidget();
+            } else {
+                return false;
+            }
+            mContainer.add(widget);
+            map.put(src, widget);
+            mWidgets[i] = widget;
+            mIndex.put(widget, i);
+        }
+        for (int i = 0; i < mSources.length; i++) {
+            ConstraintWidget src = mSources[i];
+            ConstraintWidget widget = mWidgets[i];
+            widget.copy(src, map);
+            widget.setHorizontalDimensionBehaviour(src.getHorizontalDimensionBehaviour());
+            widget.setVerticalDimensionBehaviour(src.getVerticalDimensionBehaviour());
+            widget.mMatchConstraintPercentWidth = src.mMatchConstraintPercentWidth;
+            widget.setWrapBehaviorInParent(src.getWrapBehaviorInParent());
+        }
+        // guidelines only have their anchors once copied, connect after every widget is
+        for (int i = 0; i < mSources.length; i++) {
+            ConstraintWidget src = mSources[i];
+            ConstraintWidget widget = mWidgets[i];
+            for (ConstraintAnchor.Type type : ANCHORS) {
+                ConstraintAnchor anchor = src.getAnchor(type);
+                if (anchor == null) {
+                    continue;
+                }
+                if (anchor.getTarget() != null && !map.containsKey(anchor.getTarget().getOwner())) {
+                    return false;
+                }
+                widget.getAnchor(type).copyFrom(anchor, map);
+            }
+        }
+        mContainer.updateHierarchy();
+        return true;
+    }
+
+    /**
+     * @return the version the snapshot was created with
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return the copy of the container
+     */
+    public ConstraintWidgetContainer getContainer() {
+        return mContainer;
+    }
+
+    /**
+     * @return the number of children in the container
+     */
+    public int size() {
+        return mWidgets.length;
+    }
+
+    /**
+     * @return the copy of the child at the given index
+     */
+    public ConstraintWidget getWidget(int index) {
+        return mWidgets[index];
+    }
+
+    /**
+     * @return the original child at the given index
+     */
+    public ConstraintWidget getSource(int index) {
+        return mSources[index];
+    }
+
+    /**
+     * @return the index of a copied child, or -1 if the widget is not part of the snapshot
+     */
+    public int indexOf(ConstraintWidget widget) {
+        Integer index = mIndex.get(widget);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Measures of the child at the given index, to be filled before solving
+     */
+    public MeasureCache getMeasureCache(int index) {
+        if (mMeasureCaches[index] == null) {
+            mMeasureCaches[index] = new MeasureCache();
+        }
+        return mMeasureCaches[index];
+    }
+
+    /**
+     * Called by the measurer if it could not measure a widget; the result is then discarded
+     */
+    public void markIncomplete() {
+        mIncomplete = true;
+    }
+
+    /**
+     * Solve the snapshot. Can be called from any thread, once.
+     *
+     * @return the frames of the children, or null if the measurer could not measure every child
+     */
+    public Frames solve(BasicMeasure.Measurer measurer, int widthMode, int widthSize,
+                        int heightMode, int heightSize, int paddingX, int paddingY) {
+        mContainer.setMeasurer(measurer);
+        mContainer.measure(mContainer.getOptimizationLevel(), widthMode, widthSize,
+                heightMode, heightSize, 0, 0, paddingX, paddingY);
+        if (mIncomplete) {
+            return null;
+        }
+        return new Frames(this);
+    }
+
+    /**
+     * The solved frames of a snapshot
+     */
+    public static class Frames {
+        private static final int STRIDE = 5;
+        private final long mVersion;
+        private final ConstraintWidget[] mSources;
+        private final int[] mBounds;
+        private final int mWidth;
+        private final int mHeight;
+        private final int mPaddingLeft;
+        private final int mPaddingTop;
+        private final boolean mWidthMeasuredTooSmall;
+        private final boolean mHeightMeasuredTooSmall;
+
+        Frames(LayoutSnapshot snapshot) {
+            ConstraintWidgetContainer container = snapshot.mContainer;
+            mVersion = snapshot.mVersion;
+            mSources = snapshot.mSources;
+            mWidth = container.mWidth;
+            mHeight = container.mHeight;
+            mPaddingLeft = container.mPaddingLeft;
+            mPaddingTop = container.mPaddingTop;
+            mWidthMeasuredTooSmall = container.mWidthMeasuredTooSmall;
+            mHeightMeasuredTooSmall = container.mHeightMeasuredTooSmall;
+            mBounds = new int[mSources.length * STRIDE];
+            for (int i = 0; i < mSources.length; i++) {
+                ConstraintWidget widget = snapshot.mWidgets[i];
+                int offset = i * STRIDE;
+                mBounds[offset] = widget.mX;
+                mBounds[offset + 1] = widget.mY;
+                mBounds[offset + 2] = widget.mWidth;
+                mBounds[offset + 3] = widget.mHeight;
+                mBounds[offset + 4] = widget.mBaselineDistance;
+            }
+        }
+
+        public long getVersion() {
+            return mVersion;
+        }
+
+        public int getWidth() {
+            return mWidth;
+        }
+
+        public int getHeight() {
+            return mHeight;
+        }
+
+        /**
+         * Set the solved frames on the original container and its children, as if it had been
+         * measured. Nothing is changed if its children are not the ones of the snapshot.
+         *
+         * @return true if the frames were applied
+         */
+        public boolean applyTo(ConstraintWidgetContainer container) {
+            ArrayList<ConstraintWidget> children = container.getChildren();
+            if (children.size() != mSources.length) {
+                return false;
+            }
+            for (int i = 0; i < mSources.length; i++) {
+                if (children.get(i) != mSources[i]) {
+                    return false;
+                }
+            }
+            container.mX = 0;
+            container.mY = 0;
+            container.mWidth = mWidth;
+            container.mHeight = mHeight;
+            container.mPaddingLeft = mPaddingLeft;
+            container.mPaddingTop = mPaddingTop;
+            container.mWidthMeasuredTooSmall = mWidthMeasuredTooSmall;
+            container.mHeightMeasuredTooSmall = mHeightMeasuredTooSmall;
+            for (int i = 0; i < mSources.length; i++) {
+                ConstraintWidget widget = mSources[i];
+                int offset = i * STRIDE;
+                widget.mX = mBounds[offset];
+                widget.mY = mBounds[offset + 1];
+                widget.mWidth = mBounds[offset + 2];
+                widget.mHeight = mBounds[offset + 3];
+                widget.mBaselineDistance = mBounds[offset + 4];
+            }
+            return true;
+        }
+    }
+}
@@ -49,7 +49,6 @@ public class Optimizer {
             ;
 
     // Internal use.
-    static boolean[] flags = new boolean[3];
     static final int FLAG_USE_OPTIMIZE = 0; // simple enough to use optimizer
     static final int FLAG_CHAIN_DANGLING = 1;
     static final int FLAG_RECOMPUTE_BOUNDS = 2;
@@ -42,7 +42,6 @@ public class Direct {
 
     private static final boolean DEBUG = LinearSystem.FULL_DEBUG;
     private static final boolean APPLY_MATCH_PARENT = false;
-    private static BasicMeasure.Measure measure = new BasicMeasure.Measure();
 
     /**
      * Walk the dependency graph and solves it.
@@ -234,7 +233,7 @@ public class Direct {
         for (int i = 0; i < count; i++) {
             ConstraintWidget child = children.get(i);
             if (child.isMeasureRequested() && canMeasure(0, child)) {
-                ConstraintWidgetContainer.measure(0, child, measurer, measure, BasicMeasure.Measure.SELF_DIMENSIONS);
+                ConstraintWidgetContainer.measure(0, child, measurer, layout.mMeasure, BasicMeasure.Measure.SELF_DIMENSIONS);
                 if (child instanceof Guideline) {
                     if (((Guideline) child).getOrientation() == Guideline.HORIZONTAL) {
                         verticalSolvingPass(0, child, measurer);
@@ -34,7 +34,7 @@ import static androidx.constraintlayout.core.widgets.analyzer.WidgetRun.RunType.
 
 public class HorizontalWidgetRun extends WidgetRun {
 
-    private static int[] tempDimensions = new int[2];
+    private int[] tempDimensions = new int[2];
 
     public HorizontalWidgetRun(ConstraintWidget widget) {
         super(widget);
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets.analyzer;
+
+/**
+ * Small bounded cache of measure results for one child, keyed by the
+ * (horizontal spec, vertical spec) pair it was measured with.
+ * During a single layout pass a child is typically measured with a wrap spec then
+ * with an exact spec, sometimes repeatedly; keeping a few entries avoids re-measuring it.
+ * The owner must clear the cache when the child's content changes (e.g. it requested a layout).
+ * <p>
+ * The cache also tracks the spec the child was last really measured with, so that the
+ * owner can re-measure it if the final result came from the cache ({@link #needsRemeasure()}).
+ *
+ * @hide
+ */
+public class MeasureCache {
+    public static final int SIZE = 4;
+    private static final int NONE = -1;
+
+    private final int[] mHorizontalSpec = new int[SIZE];
+    private final int[] mVerticalSpec = new int[SIZE];
+    private final int[] mWidth = new int[SIZE];
+    private final int[] mHeight = new int[SIZE];
+    private final int[] mBaseline = new int[SIZE];
+    private int mCount;
+    private int mNext;
+
+    private int mMeasuredHorizontalSpec;
+    private int mMeasuredVerticalSpec;
+    private int mLastHorizontalSpec;
+    private int mLastVerticalSpec;
+    private boolean mHasMeasured;
+
+    // result of the last get() or put()
+    public int width;
+    public int height;
+    public int baseline;
+
+    /**
+     * Look up the result of measuring with the given specs.
+     * On a hit the result is in {@link #width}, {@link #height} and {@link #baseline}.
+     *
+     * @return true if the specs were found
+     */
+    public boolean get(int horizontalSpec, int verticalSpec) {
+        int index = indexOf(horizontalSpec, verticalSpec);
+        if (index == NONE) {
+            return false;
+        }
+        width = mWidth[index];
+        height = mHeight[index];
+        baseline = mBaseline[index];
+        mLastHorizontalSpec = horizontalSpec;
+        mLastVerticalSpec = verticalSpec;
+        return true;
+    }
+
+    /**
+     * Record the result of really measuring the child with the given specs
+     */
+    public void put(int horizontalSpec, int verticalSpec, int width, int height, int baseline) {
+        int index = indexOf(horizontalSpec, verticalSpec);
+        if (index == NONE) {
+            index = mNext;
+            mNext = (mNext + 1) % SIZE;
+            if (mCount < SIZE) {
+                mCount++;
+            }
+        }
+        mHorizontalSpec[index] = horizontalSpec;
+        mVerticalSpec[index] = verticalSpec;
+        mWidth[index] = width;
+        mHeight[index] = height;
+        mBaseline[index] = baseline;
+        mMeasuredHorizontalSpec = horizontalSpec;
+        mMeasuredVerticalSpec = verticalSpec;
+        mLastHorizontalSpec = horizontalSpec;
+        mLastVerticalSpec = verticalSpec;
+        mHasMeasured = true;
+        this.width = width;
+        this.height = height;
+        this.baseline = baseline;
+    }
+
+    /**
+     * @return true if width, height and baseline hold a result since the last clear()
+     */
+    public boolean hasResult() {
+        return mHasMeasured;
+    }
+
+    /**
+     * @return true if the last result came from the cache and the child currently holds
+     * the measure of different specs
+     */
+    public boolean needsRemeasure() {
+        return mHasMeasured && (mLastHorizontalSpec != mMeasuredHorizontalSpec
+                || mLastVerticalSpec != mMeasuredVerticalSpec);
+    }
+
+    public int getLastHorizontalSpec() {
+        return mLastHorizontalSpec;
+    }
+
+    public int getLastVerticalSpec() {
+        return mLastVerticalSpec;
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    public void clear() {
+        mCount = 0;
+        mNext = 0;
+        mHasMeasured = false;
+    }
+
+    private int indexOf(int horizontalSpec, int verticalSpec) {
+        for (int i = 0; i < mCount; i++) {
+            if (mHorizontalSpec[i] == horizontalSpec && mVerticalSpec[i] == verticalSpec) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+}
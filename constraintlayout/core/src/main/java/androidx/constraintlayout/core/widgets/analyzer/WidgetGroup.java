@@ -22,6 +22,7 @@ import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.BOTH;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.HORIZONTAL;
@@ -33,7 +34,8 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.VERTICAL;
 public class WidgetGroup {
     private static final boolean DEBUG = false;
     ArrayList<ConstraintWidget> widgets = new ArrayList<>();
-    static int count = 0;
+    // shared by the containers measured on different threads
+    private static final AtomicInteger count = new AtomicInteger();
     int id = -1;
     boolean authoritative = false;
     int orientation = HORIZONTAL;
@@ -41,7 +43,7 @@ public class WidgetGroup {
     private int moveTo = -1;
 
     public WidgetGroup(int orientation) {
-        id = count++;
+        id = count.getAndIncrement();
         this.orientation = orientation;
     }
 
@@ -210,4 +210,45 @@ public class FlowTest {
         System.out.println("A: " + A);
         System.out.println("B: " + B);
     }
+
+    @Test
+    public void testVirtualWindow() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 2000);
+        root.setDebugName("root");
+        root.setMeasurer(sMeasurer);
+        Flow flow = new Flow();
+        flow.setDebugName("Flow");
+        flow.setWrapMode(Flow.WRAP_CHAIN);
+        flow.setVerticalGap(10);
+        flow.setWidth(500);
+        flow.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        flow.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT);
+        flow.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP);
+        root.add(flow);
+        ConstraintWidget[] widgets = new ConstraintWidget[10];
+        for (int i = 0; i < widgets.length; i++) {
+            widgets[i] = new ConstraintWidget(100, 20);
+            widgets[i].setDebugName("W" + i);
+            flow.add(widgets[i]);
+            root.add(widgets[i]);
+        }
+        // the 10 widgets are the items 20 to 29 of 100, laid out 5 per chain
+        flow.setVirtualWindow(20, 100);
+
+        root.measure(Optimizer.OPTIMIZATION_NONE, 0, 0, 0, 0, 0, 0, 0, 0);
+        root.layout();
+        assertEquals(5, flow.getEstimatedItemsPerChain(), 0);
+        assertEquals(30, flow.getEstimatedChainExtent(), 0);
+        // 4 chains before the window, 2 in it and 14 after
+        assertEquals(120 + 50 + 420, flow.getHeight());
+        assertEquals(120, widgets[0].getTop());
+        assertEquals(150, widgets[5].getTop());
+        assertEquals(widgets[0].getLeft() + 400, widgets[4].getLeft());
+
+        flow.setVirtualWindow(0, Flow.UNKNOWN);
+        root.measure(Optimizer.OPTIMIZATION_NONE, 0, 0, 0, 0, 0, 0, 0, 0);
+        root.layout();
+        assertEquals(50, flow.getHeight());
+        assertEquals(0, widgets[0].getTop());
+    }
 }
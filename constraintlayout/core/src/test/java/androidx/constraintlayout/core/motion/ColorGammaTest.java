@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.utils.ColorGamma;
+
+import org.junit.Test;
+
+public class ColorGammaTest {
+
+    private static int powToGamma(float v) {
+        int c = (int) ((float) Math.pow(v, 1.0 / 2.2) * 255.0f);
+        return Math.max(0, Math.min(255, c));
+    }
+
+    @Test
+    public void toLinear() {
+        for (int i = 0; i < 256; i++) {
+            assertEquals((float) Math.pow(i / 255.0f, 2.2), ColorGamma.toLinear(i), 0);
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, ColorGamma.toGamma(ColorGamma.toLinear(i)));
+        }
+        float[] linear = new float[4];
+        int color = 0x80FF7F01;
+        ColorGamma.colorToLinear(color, linear);
+        assertEquals(color, ColorGamma.linearToColor(linear));
+    }
+
+    @Test
+    public void toGammaError() {
+        int mismatch = 0;
+        int samples = 1000000;
+        for (int i = -10; i <= samples + 10; i++) {
+            float v = i / (float) samples;
+            int diff = Math.abs(powToGamma(v) - ColorGamma.toGamma(v));
+            assertTrue("at " + v, diff <= 1);
+            if (diff != 0) {
+                mismatch++;
+            }
+        }
+        assertTrue(mismatch < samples / 1000);
+        assertEquals(0, ColorGamma.toGamma(Float.NaN));
+    }
+
+    @Test
+    public void benchmark() {
+        int count = 1000000;
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = (i * 7919 % count) / (float) count;
+        }
+        int sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sum += powToGamma(values[i]);
+        }
+        long pow = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sum -= ColorGamma.toGamma(values[i]);
+        }
+        long table = System.nanoTime() - start;
+        System.out.println("linear to gamma: pow " + pow / count + "ns, table "
+                + table / count + "ns (" + sum + ")");
+    }
+}
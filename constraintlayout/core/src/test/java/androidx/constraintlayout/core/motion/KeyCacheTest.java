@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.utils.KeyCache;
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+
+import org.junit.Test;
+
+public class KeyCacheTest {
+    private static final String[] ATTRIBUTES = {
+            TypedValues.Attributes.S_ROTATION_Z,
+            TypedValues.Attributes.S_ALPHA,
+            TypedValues.Attributes.S_SCALE_X,
+            TypedValues.Attributes.S_SCALE_Y,
+            TypedValues.Attributes.S_TRANSLATION_X,
+    };
+
+    @Test
+    public void basic() {
+        KeyCache cache = new KeyCache();
+        MotionWidget a = new MotionWidget();
+        MotionWidget b = new MotionWidget();
+        assertTrue(Float.isNaN(cache.getFloatValue(a, "alpha", 0)));
+        cache.setFloatValue(a, "alpha", 0, 0.25f);
+        cache.setFloatValue(a, "alpha", 2, 0.75f);
+        cache.setFloatValue(b, "rotationZ", 0, 12f);
+        assertEquals(0.25f, cache.getFloatValue(a, "alpha", 0), 0);
+        assertTrue(Float.isNaN(cache.getFloatValue(a, "alpha", 1)));
+        assertEquals(0.75f, cache.getFloatValue(a, "alpha", 2), 0);
+        assertTrue(Float.isNaN(cache.getFloatValue(a, "alpha", 3)));
+        assertTrue(Float.isNaN(cache.getFloatValue(a, "rotationZ", 0)));
+        assertEquals(12f, cache.getFloatValue(b, "rotationZ", 0), 0);
+        assertTrue(Float.isNaN(cache.getFloatValue(b, "alpha", 0)));
+
+        int slot = cache.getSlot(a);
+        assertEquals(slot, cache.getSlot(a));
+        assertEquals(0.25f, cache.getFloatValue(slot, cache.getAttributeId("alpha"), 0), 0);
+    }
+
+    @Test
+    public void growthKeepsValues() {
+        KeyCache cache = new KeyCache();
+        MotionWidget[] views = new MotionWidget[200];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new MotionWidget();
+            for (int j = 0; j < ATTRIBUTES.length; j++) {
+                cache.setFloatValue(views[i], ATTRIBUTES[j], j % 2, i * 100 + j);
+            }
+        }
+        for (int i = 0; i < views.length; i++) {
+            for (int j = 0; j < ATTRIBUTES.length; j++) {
+                assertEquals(i * 100 + j, cache.getFloatValue(views[i], ATTRIBUTES[j], j % 2), 0);
+            }
+        }
+    }
+
+    @Test
+    public void benchmark200Views() {
+        int views = 200;
+        int frames = 1000;
+        MotionWidget[] widgets = new MotionWidget[views];
+        for (int i = 0; i < views; i++) {
+            widgets[i] = new MotionWidget();
+        }
+        KeyCache cache = new KeyCache();
+        int[] slots = new int[views];
+        int[] ids = new int[ATTRIBUTES.length];
+        for (int i = 0; i < views; i++) {
+            slots[i] = cache.getSlot(widgets[i]);
+        }
+        for (int j = 0; j < ids.length; j++) {
+            ids[j] = cache.getAttributeId(ATTRIBUTES[j]);
+        }
+
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            for (int i = 0; i < views; i++) {
+                for (int j = 0; j < ATTRIBUTES.length; j++) {
+                    float last = cache.getFloatValue(widgets[i], ATTRIBUTES[j], 0);
+                    if (Float.isNaN(last)) {
+                        last = 0;
+                    }
+                    cache.setFloatValue(widgets[i], ATTRIBUTES[j], 0, (last + 0.01f) % 1f);
+                }
+            }
+        }
+        long byName = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            for (int i = 0; i < views; i++) {
+                for (int j = 0; j < ids.length; j++) {
+                    float last = cache.getFloatValue(slots[i], ids[j], 0);
+                    cache.setFloatValue(slots[i], ids[j], 0, (last + 0.01f) % 1f);
+                }
+            }
+        }
+        long bySlot = System.nanoTime() - start;
+        System.out.println("KeyCache " + views + " views x " + ATTRIBUTES.length
+                + " time cycles: by name " + byName / (frames * 1000) + "us/frame, by slot "
+                + bySlot / (frames * 1000) + "us/frame");
+        assertEquals(cache.getFloatValue(widgets[7], ATTRIBUTES[3], 0),
+                cache.getFloatValue(slots[7], ids[3], 0), 0);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.key.MotionKeyPosition;
+import androidx.constraintlayout.core.motion.utils.ArcCurveFit;
+import androidx.constraintlayout.core.motion.utils.KeyCache;
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MotionBatchTest {
+    private static final boolean DEBUG = false;
+
+    private Motion makeMotion(int i, boolean keyPositions, boolean arc) {
+        MotionWidget mw1 = new MotionWidget();
+        MotionWidget mw2 = new MotionWidget();
+        int x = (i * 37) % 500;
+        int y = (i * 53) % 700;
+        mw1.setBounds(x, y, x + 30 + i % 7, y + 40);
+        mw2.setBounds(700 - y, 500 - x, 760 - y, 580 - x + i % 11);
+        Motion motion = new Motion(mw1);
+        if (arc) {
+            motion.setPathMotionArc(ArcCurveFit.ARC_START_VERTICAL);
+        }
+        motion.setStart(mw1);
+        motion.setEnd(mw2);
+        if (keyPositions) {
+            MotionKeyPosition keyPosition = new MotionKeyPosition();
+            keyPosition.setFramePosition(30);
+            keyPosition.setValue(TypedValues.Position.TYPE_PERCENT_X, 0.3f);
+            keyPosition.setValue(TypedValues.Position.TYPE_PERCENT_Y, 0.1f * (i % 5));
+            MotionKeyPosition keyPosition2 = new MotionKeyPosition();
+            keyPosition2.setFramePosition(88);
+            keyPosition2.setValue(TypedValues.Position.TYPE_PERCENT_X, .9f);
+            keyPosition2.setValue(TypedValues.Position.TYPE_PERCENT_Y, 0.5f);
+            motion.addKey(keyPosition);
+            motion.addKey(keyPosition2);
+        }
+        motion.setup(1000, 1000, 1, 1000000);
+        return motion;
+    }
+
+    private Motion[] makeMotions(int count) {
+        Motion[] motions = new Motion[count];
+        for (int i = 0; i < count; i++) {
+            motions[i] = makeMotion(i, i % 2 == 0, i % 10 == 9);
+        }
+        return motions;
+    }
+
+    private void compare(Motion[] motions, MotionBatch batch) {
+        KeyCache cache = new KeyCache();
+        MotionWidget[] widgets = new MotionWidget[motions.length];
+        for (int i = 0; i < widgets.length; i++) {
+            widgets[i] = new MotionWidget();
+        }
+        MotionWidget expected = new MotionWidget();
+        for (int step = -2; step <= 102; step++) {
+            float p = step / 100f;
+            batch.interpolate(widgets, p, 0, cache);
+            for (int i = 0; i < motions.length; i++) {
+                motions[i].interpolate(expected, p, 0, cache);
+                if (DEBUG) {
+                    System.out.println(p + " " + expected + " | " + widgets[i]);
+                }
+                assertEquals(expected.getLeft(), widgets[i].getLeft());
+                assertEquals(expected.getTop(), widgets[i].getTop());
+                assertEquals(expected.getRight(), widgets[i].getRight());
+                assertEquals(expected.getBottom(), widgets[i].getBottom());
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesMotion() {
+        Motion[] motions = makeMotions(50);
+        MotionBatch batch = new MotionBatch();
+        batch.setup(motions, motions.length);
+        assertEquals(45, batch.getBatchedCount());
+        assertTrue(batch.isBatched(0));
+        assertTrue(batch.isBatched(1));
+        assertFalse(batch.isBatched(9));
+        compare(motions, batch);
+    }
+
+    @Test
+    public void batchParallel() {
+        Motion[] motions = makeMotions(1000);
+        MotionBatch batch = new MotionBatch();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            batch.setExecutor(executor, 100);
+            batch.setup(motions, motions.length);
+            compare(motions, batch);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchParallelSetupTwice() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MotionBatch batch = new MotionBatch();
+            batch.setExecutor(executor, 100);
+            Motion[] motions = makeMotions(1000);
+            batch.setup(motions, motions.length);
+            compare(motions, batch);
+            motions = makeMotions(300);
+            batch.setup(motions, motions.length);
+            compare(motions, batch);
+            motions = makeMotions(1200);
+            batch.setup(motions, motions.length);
+            compare(motions, batch);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchBenchmark() {
+        int count = 2000;
+        Motion[] motions = new Motion[count];
+        for (int i = 0; i < count; i++) {
+            motions[i] = makeMotion(i, true, false);
+        }
+        MotionWidget[] widgets = new MotionWidget[count];
+        for (int i = 0; i < count; i++) {
+            widgets[i] = new MotionWidget();
+        }
+        KeyCache cache = new KeyCache();
+        MotionBatch batch = new MotionBatch();
+        batch.setup(motions, count);
+        int frames = 200;
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            float p = f / (float) frames;
+            for (int i = 0; i < count; i++) {
+                motions[i].interpolate(widgets[i], p, 0, cache);
+            }
+        }
+        long single = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            batch.interpolate(widgets, f / (float) frames, 0, cache);
+        }
+        long batched = System.nanoTime() - start;
+        System.out.println("interpolate " + count + " widgets: individually "
+                + single / (frames * 1000) + "us/frame, batched "
+                + batched / (frames * 1000) + "us/frame");
+    }
+}
@@ -16,6 +16,7 @@
 package androidx.constraintlayout.core.motion;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import androidx.constraintlayout.core.RandomLayoutTest;
 import androidx.constraintlayout.core.motion.utils.ArcCurveFit;
@@ -50,4 +51,64 @@ public class MotionKeyFrameArray {
         }
 
     }
+
+    @Test
+    public void sortedInsert() {
+        KeyFrameArray<Integer> array = new KeyFrameArray<>();
+        Random random = new Random(1234);
+        boolean[] present = new boolean[101];
+        for (int i = 0; i < 200; i++) {
+            int k = random.nextInt(101);
+            array.append(k, k * 10);
+            present[k] = true;
+        }
+        int expected = 0;
+        for (boolean p : present) {
+            expected += p ? 1 : 0;
+        }
+        assertEquals(expected, array.size());
+        for (int i = 0; i < array.size(); i++) {
+            if (i > 0) {
+                assertTrue(array.keyAt(i - 1) < array.keyAt(i));
+            }
+            assertEquals(array.keyAt(i) * 10, array.valueAt(i).intValue());
+        }
+        array.append(50, -1);
+        assertEquals(-1, array.valueAt(array.indexOfKey(50)).intValue());
+        int size = array.size();
+        array.remove(50);
+        assertEquals(size - 1, array.size());
+        assertTrue(array.indexOfKey(50) < 0);
+        array.remove(50);
+        assertEquals(size - 1, array.size());
+    }
+
+    @Test
+    public void primitiveArrays() {
+        KeyFrameArray.FloatArray floats = new KeyFrameArray.FloatArray(2);
+        for (int k : new int[]{90, 10, 50, 0, 100, 30}) {
+            floats.append(k, k, -k);
+        }
+        floats.append(50, 5, 6);
+        floats.remove(0);
+        assertEquals(5, floats.size());
+        int[] floatKeys = {10, 30, 50, 90, 100};
+        for (int i = 0; i < floats.size(); i++) {
+            assertEquals(floatKeys[i], floats.keyAt(i));
+            float a = floatKeys[i] == 50 ? 5 : floatKeys[i];
+            float b = floatKeys[i] == 50 ? 6 : -floatKeys[i];
+            assertEquals(a, floats.valueAt(i, 0), 0);
+            assertEquals(b, floats.valueAt(i, 1), 0);
+        }
+        KeyFrameArray.FloatArray triples = new KeyFrameArray.FloatArray(3);
+        triples.append(10, new float[]{1, 2, 3});
+        triples.append(10, 4, 5);
+        assertEquals(1, triples.size());
+        assertEquals(4, triples.valueAt(0, 0), 0);
+        assertEquals(5, triples.valueAt(0, 1), 0);
+        assertEquals(0, triples.valueAt(0, 2), 0);
+        triples.append(20, 7);
+        assertEquals(7, triples.valueAt(1, 0), 0);
+        assertEquals(0, triples.valueAt(1, 1), 0);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.utils.SpringStopEngine;
+
+import org.junit.Test;
+
+public class SpringStopEngineTest {
+    private static final boolean DEBUG = false;
+
+    private SpringStopEngine spring(boolean analytic, float stiffness, float damping, int boundary) {
+        SpringStopEngine engine = new SpringStopEngine();
+        engine.setAnalytic(analytic);
+        engine.springConfig(0, 1, 0, 1, stiffness, damping, 0.001f, boundary);
+        return engine;
+    }
+
+    /**
+     * Compare the closed form against the integrator sampled at a very high frame rate
+     */
+    private void compare(float stiffness, float damping, int boundary, float tolerance) {
+        SpringStopEngine analytic = spring(true, stiffness, damping, boundary);
+        SpringStopEngine integrated = spring(false, stiffness, damping, boundary);
+        float maxError = 0;
+        for (int i = 1; i <= 2000; i++) {
+            float time = i * 0.0005f;
+            float a = analytic.getInterpolation(time);
+            float b = integrated.getInterpolation(time);
+            maxError = Math.max(maxError, Math.abs(a - b));
+            if (DEBUG) {
+                System.out.println(time + " " + a + " " + b);
+            }
+            if (boundary != 0) {
+                assertTrue(a >= -0.0001f && a <= 1.0001f);
+            }
+        }
+        assertEquals("k=" + stiffness + " c=" + damping, 0, maxError, tolerance);
+    }
+
+    @Test
+    public void underDamped() {
+        compare(200, 4, 0, 0.002f);
+    }
+
+    @Test
+    public void criticallyDamped() {
+        compare(100, 20, 0, 0.002f);
+    }
+
+    @Test
+    public void overDamped() {
+        compare(100, 60, 0, 0.002f);
+    }
+
+    @Test
+    public void bounceEnd() {
+        compare(200, 2, 2, 0.01f);
+    }
+
+    @Test
+    public void settles() {
+        SpringStopEngine engine = spring(true, 400, 10, 0);
+        float pos = engine.getInterpolation(5);
+        assertEquals(1, pos, 0.0001);
+        assertTrue(engine.isStopped());
+        // evaluating at any time is O(1) and does not depend on the previous frame
+        engine = spring(true, 400, 10, 0);
+        assertEquals(pos, engine.getInterpolation(5), 0);
+    }
+
+    @Test
+    public void benchmark() {
+        float damping = 2;
+        int frames = 20000;
+        int framesPerSpring = 60;
+        float frameTime = 1 / 60f;
+        for (float stiffness : new float[]{10, 200, 4000}) {
+            long[] cost = new long[2];
+            float maxError = 0;
+            SpringStopEngine integrated = spring(false, stiffness, damping, 0);
+            SpringStopEngine analytic = spring(true, stiffness, damping, 0);
+            for (int i = 0; i < frames; i++) {
+                float time = (i % framesPerSpring + 1) * frameTime;
+                long start = System.nanoTime();
+                float a = integrated.getInterpolation(time);
+                long mid = System.nanoTime();
+                float b = analytic.getInterpolation(time);
+                cost[0] += mid - start;
+                cost[1] += System.nanoTime() - mid;
+                maxError = Math.max(maxError, Math.abs(a - b));
+                if (i % framesPerSpring == framesPerSpring - 1) {
+                    integrated.springConfig(0, 1, 0, 1, stiffness, damping, 0.001f, 0);
+                    analytic.springConfig(0, 1, 0, 1, stiffness, damping, 0.001f, 0);
+                }
+            }
+            System.out.println("spring k=" + stiffness + " integrated " + cost[0] / frames
+                    + "ns/frame, analytic " + cost[1] / frames + "ns/frame, max difference "
+                    + maxError);
+        }
+    }
+}
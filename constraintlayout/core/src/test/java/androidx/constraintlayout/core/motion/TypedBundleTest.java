@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.motion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.motion.utils.TypedBundle;
+import androidx.constraintlayout.core.motion.utils.TypedValues;
+
+import org.junit.Test;
+
+public class TypedBundleTest {
+
+    @Test
+    public void lookup() {
+        TypedBundle bundle = new TypedBundle();
+        assertEquals(-1, bundle.getInteger(TypedValues.Position.TYPE_PATH_MOTION_ARC));
+        bundle.add(TypedValues.Position.TYPE_PATH_MOTION_ARC, 2);
+        bundle.add(TypedValues.Cycle.TYPE_WAVE_SHAPE, 4);
+        bundle.add(TypedValues.Attributes.TYPE_ALPHA, 0.5f);
+        bundle.add(TypedValues.Attributes.TYPE_ROTATION_Z, 45f);
+        bundle.add(TypedValues.Attributes.TYPE_EASING, "linear");
+        bundle.add(TypedValues.Motion.TYPE_DRAW_PATH, true);
+        assertEquals(2, bundle.getInteger(TypedValues.Position.TYPE_PATH_MOTION_ARC));
+        assertEquals(4, bundle.getInteger(TypedValues.Cycle.TYPE_WAVE_SHAPE));
+        assertEquals(0.5f, bundle.getFloat(TypedValues.Attributes.TYPE_ALPHA), 0);
+        assertEquals(45f, bundle.getFloat(TypedValues.Attributes.TYPE_ROTATION_Z), 0);
+        assertTrue(Float.isNaN(bundle.getFloat(TypedValues.Attributes.TYPE_SCALE_X)));
+        assertEquals("linear", bundle.getString(TypedValues.Attributes.TYPE_EASING));
+        assertNull(bundle.getString(TypedValues.TYPE_TARGET));
+        assertTrue(bundle.getBoolean(TypedValues.Motion.TYPE_DRAW_PATH, false));
+
+        bundle.add(TypedValues.Position.TYPE_PATH_MOTION_ARC, 3);
+        assertEquals(3, bundle.getInteger(TypedValues.Position.TYPE_PATH_MOTION_ARC));
+
+        bundle.clear();
+        assertEquals(-1, bundle.getInteger(TypedValues.Position.TYPE_PATH_MOTION_ARC));
+        bundle.add(TypedValues.Cycle.TYPE_WAVE_SHAPE, 1);
+        assertEquals(1, bundle.getInteger(TypedValues.Cycle.TYPE_WAVE_SHAPE));
+    }
+
+    @Test
+    public void manyValues() {
+        TypedBundle bundle = new TypedBundle();
+        for (int i = 0; i < 50; i++) {
+            bundle.add(900 - i * 17, i);
+        }
+        bundle.add(5000, 7);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, bundle.getInteger(900 - i * 17));
+        }
+        assertEquals(7, bundle.getInteger(5000));
+        assertEquals(-1, bundle.getInteger(901));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.scout;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ScoutTest {
+    private static final int CELL_WIDTH = 160;
+    private static final int CELL_HEIGHT = 80;
+    private static final int JITTER = 20;
+    private static final int ALLOWED_POSITION_ERROR = 12;
+    private static final ConstraintAnchor.Type[] TYPES = {
+            ConstraintAnchor.Type.LEFT, ConstraintAnchor.Type.TOP,
+            ConstraintAnchor.Type.RIGHT, ConstraintAnchor.Type.BOTTOM,
+            ConstraintAnchor.Type.BASELINE};
+
+    /**
+     * Create a grid of widgets, each moved by a random amount inside its cell
+     */
+    private static ConstraintWidgetContainer layout(int count, long seed) {
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (count + columns - 1) / columns;
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0,
+                columns * CELL_WIDTH + JITTER, rows * CELL_HEIGHT + JITTER);
+        root.setDebugName("root");
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            ConstraintWidget widget = new ConstraintWidget();
+            widget.setDebugName("w" + i);
+            int x = (i % columns) * CELL_WIDTH + JITTER + random.nextInt(JITTER);
+            int y = (i / columns) * CELL_HEIGHT + JITTER + random.nextInt(JITTER);
+            widget.setDimension(80 + random.nextInt(JITTER), 40);
+            widget.setOrigin(x, y);
+            root.add(widget);
+        }
+        return root;
+    }
+
+    private static String constraints(ConstraintWidgetContainer root) {
+        StringBuilder builder = new StringBuilder();
+        for (ConstraintWidget widget : root.getChildren()) {
+            builder.append(widget.getDebugName());
+            for (ConstraintAnchor.Type type : TYPES) {
+                ConstraintAnchor anchor = widget.getAnchor(type);
+                if (anchor.isConnected()) {
+                    builder.append(' ').append(type).append("->")
+                            .append(anchor.getTarget().getOwner().getDebugName())
+                            .append('.').append(anchor.getTarget().getType())
+                            .append('(').append(anchor.getMargin()).append(')');
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static int[] positions(ConstraintWidgetContainer root) {
+        ArrayList<ConstraintWidget> children = root.getChildren();
+        int[] positions = new int[children.size() * 2];
+        for (int i = 0; i < children.size(); i++) {
+            positions[i * 2] = children.get(i).getX();
+            positions[i * 2 + 1] = children.get(i).getY();
+        }
+        return positions;
+    }
+
+    @Test
+    public void candidatesMatchAllPairsOnSmallLayouts() {
+        for (long seed = 0; seed < 10; seed++) {
+            ConstraintWidgetContainer all = layout(Scout.DEFAULT_MAX_CANDIDATES, seed);
+            ConstraintWidgetContainer limited = layout(Scout.DEFAULT_MAX_CANDIDATES, seed);
+            Scout.inferConstraints(all, 0, null);
+            Scout.inferConstraints(limited);
+            assertEquals(constraints(all), constraints(limited));
+        }
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int count : new int[]{100, 400}) {
+                ConstraintWidgetContainer sequential = layout(count, count);
+                ConstraintWidgetContainer parallel = layout(count, count);
+                Scout.inferConstraints(sequential);
+                Scout.inferConstraints(parallel, Scout.DEFAULT_MAX_CANDIDATES, executor);
+                assertEquals(constraints(sequential), constraints(parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void candidatesKeepPositions() {
+        ConstraintWidgetContainer root = layout(64, 1);
+        int[] expected = positions(root);
+        Scout.inferConstraints(root);
+        for (ConstraintWidget widget : root.getChildren()) {
+            widget.setOrigin(0, 0);
+        }
+        root.layout();
+        int[] actual = positions(root);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(root.getChildren().get(i / 2).getDebugName(),
+                    expected[i], actual[i], ALLOWED_POSITION_ERROR);
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int count : new int[]{100, 500, 1000, 2000}) {
+                long start = System.nanoTime();
+                Scout.inferConstraints(layout(count, count));
+                long sequential = System.nanoTime() - start;
+                start = System.nanoTime();
+                Scout.inferConstraints(layout(count, count), Scout.DEFAULT_MAX_CANDIDATES,
+                        executor);
+                long parallel = System.nanoTime() - start;
+                String allPairs = "";
+                if (count <= 100) {
+                    start = System.nanoTime();
+                    Scout.inferConstraints(layout(count, count), 0, null);
+                    allPairs = ", all pairs " + (System.nanoTime() - start) / 1000000 + "ms";
+                }
+                System.out.println("scout " + count + " widgets: nearest "
+                        + sequential / 1000000 + "ms, " + threads + " threads "
+                        + parallel / 1000000 + "ms" + allPairs);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+/**
+ * Widgets whose content changed while keeping their constraints
+ */
+public class ContentChangeTest {
+
+    static class Measurer implements BasicMeasure.Measurer {
+        int mContentWidth = 100;
+
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            boolean wrap = measure.horizontalBehavior
+                    == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT;
+            measure.measuredWidth = wrap ? mContentWidth : measure.horizontalDimension;
+            measure.measuredHeight = measure.verticalDimension;
+            if (measure.verticalBehavior == ConstraintWidget.DimensionBehaviour.WRAP_CONTENT) {
+                measure.measuredHeight = 20;
+            }
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    }
+
+    private static void measure(ConstraintWidgetContainer root) {
+        root.measure(Optimizer.OPTIMIZATION_GRAPH, BasicMeasure.EXACTLY, 600,
+                BasicMeasure.EXACTLY, 800, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void wrapContentRemeasured() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 800);
+        root.setDebugName("root");
+        ConstraintWidget text = new ConstraintWidget();
+        text.setDebugName("text");
+        text.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        text.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        text.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT, 10);
+        text.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP, 10);
+        ConstraintWidget next = new ConstraintWidget(50, 20);
+        next.setDebugName("next");
+        next.connect(ConstraintAnchor.Type.LEFT, text, ConstraintAnchor.Type.RIGHT, 5);
+        next.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP, 10);
+        root.add(text);
+        root.add(next);
+        Measurer measurer = new Measurer();
+        root.setMeasurer(measurer);
+        root.setOptimizationLevel(Optimizer.OPTIMIZATION_GRAPH);
+        root.updateHierarchy();
+        measure(root);
+        root.layout();
+        assertEquals(100, text.getWidth());
+        assertEquals(115, next.getX());
+
+        // the content changes but the hierarchy is kept, as ConstraintLayout does for a
+        // child that only requested a layout
+        measurer.mContentWidth = 180;
+        text.setMeasureRequested(true);
+        root.invalidateMeasures();
+        measure(root);
+        root.layout();
+        assertEquals(180, text.getWidth());
+        assertEquals(195, next.getX());
+    }
+}
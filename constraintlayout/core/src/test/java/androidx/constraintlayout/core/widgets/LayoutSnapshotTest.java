@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class LayoutSnapshotTest {
+
+    static class Measurer implements BasicMeasure.Measurer {
+        LayoutSnapshot mSnapshot;
+
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            if (mSnapshot != null && "unknown".equals(widget.getDebugName())) {
+                mSnapshot.markIncomplete();
+            }
+            measure.measuredWidth = size(measure.horizontalBehavior, measure.horizontalDimension,
+                    measure.measureStrategy, 70);
+            measure.measuredHeight = size(measure.verticalBehavior, measure.verticalDimension,
+                    measure.measureStrategy, 30);
+            measure.measuredBaseline = 20;
+            measure.measuredHasBaseline = true;
+        }
+
+        private int size(ConstraintWidget.DimensionBehaviour behaviour, int dimension,
+                         int strategy, int wrap) {
+            switch (behaviour) {
+                case WRAP_CONTENT:
+                    return wrap;
+                case MATCH_CONSTRAINT:
+                    return strategy == BasicMeasure.Measure.SELF_DIMENSIONS ? wrap : dimension;
+                default:
+                    return dimension;
+            }
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    }
+
+    private ConstraintWidgetContainer createLayout(String lastName) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 600, 800);
+        root.setDebugName("root");
+        ConstraintWidget a = new ConstraintWidget(100, 20);
+        a.setDebugName("A");
+        ConstraintWidget b = new ConstraintWidget(100, 20);
+        b.setDebugName("B");
+        ConstraintWidget c = new ConstraintWidget(100, 20);
+        c.setDebugName(lastName);
+        Guideline guideline = new Guideline();
+        guideline.setDebugName("guideline");
+        guideline.setOrientation(Guideline.VERTICAL);
+        guideline.setGuidePercent(0.5f);
+        Barrier barrier = new Barrier();
+        barrier.setDebugName("barrier");
+        barrier.setBarrierType(Barrier.BOTTOM);
+        barrier.add(a);
+        barrier.add(b);
+
+        a.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT, 8);
+        a.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP, 8);
+        b.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT);
+        b.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        b.connect(ConstraintAnchor.Type.LEFT, guideline, ConstraintAnchor.Type.LEFT);
+        b.connect(ConstraintAnchor.Type.RIGHT, root, ConstraintAnchor.Type.RIGHT, 16);
+        b.connect(ConstraintAnchor.Type.TOP, a, ConstraintAnchor.Type.BOTTOM, 40);
+        c.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        c.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT);
+        c.connect(ConstraintAnchor.Type.RIGHT, root, ConstraintAnchor.Type.RIGHT);
+        c.connect(ConstraintAnchor.Type.TOP, barrier, ConstraintAnchor.Type.BOTTOM, 10);
+        c.setHorizontalBiasPercent(0.3f);
+
+        root.add(a);
+        root.add(b);
+        root.add(c);
+        root.add(guideline);
+        root.add(barrier);
+        root.setMeasurer(new Measurer());
+        root.updateHierarchy();
+        return root;
+    }
+
+    private static String frames(ConstraintWidgetContainer root) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(root.getWidth()).append("x").append(root.getHeight());
+        for (ConstraintWidget widget : root.getChildren()) {
+            builder.append(" ").append(widget.getDebugName()).append("[")
+                    .append(widget.getX()).append(",").append(widget.getY()).append(",")
+                    .append(widget.getWidth()).append(",").append(widget.getHeight()).append("]");
+        }
+        return builder.toString();
+    }
+
+    private void setSize(ConstraintWidgetContainer root) {
+        root.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.FIXED);
+        root.setWidth(600);
+        root.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+    }
+
+    @Test
+    public void solveInBackground() throws Exception {
+        ConstraintWidgetContainer expected = createLayout("C");
+        setSize(expected);
+        expected.measure(Optimizer.OPTIMIZATION_STANDARD, BasicMeasure.EXACTLY, 600,
+                BasicMeasure.UNSPECIFIED, 0, 0, 0, 10, 5);
+
+        ConstraintWidgetContainer root = createLayout("C");
+        final LayoutSnapshot snapshot = LayoutSnapshot.create(root, 3);
+        assertNotNull(snapshot);
+        assertEquals(5, snapshot.size());
+        assertEquals(2, snapshot.indexOf(snapshot.getWidget(2)));
+        assertEquals(-1, snapshot.indexOf(root.getChildren().get(2)));
+        setSize(snapshot.getContainer());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<LayoutSnapshot.Frames> future;
+        try {
+            future = executor.submit(new Callable<LayoutSnapshot.Frames>() {
+                @Override
+                public LayoutSnapshot.Frames call() {
+                    return snapshot.solve(new Measurer(), BasicMeasure.EXACTLY, 600,
+                            BasicMeasure.UNSPECIFIED, 0, 10, 5);
+                }
+            });
+            LayoutSnapshot.Frames frames = future.get();
+            assertNotNull(frames);
+            assertEquals(3, frames.getVersion());
+            // the original widgets are untouched until the frames are applied
+            assertEquals(100, root.getChildren().get(1).getWidth());
+            assertTrue(frames.applyTo(root));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(frames(expected), frames(root));
+        assertEquals(600, root.getWidth());
+    }
+
+    @Test
+    public void incomplete() {
+        ConstraintWidgetContainer root = createLayout("unknown");
+        LayoutSnapshot snapshot = LayoutSnapshot.create(root, 0);
+        Measurer measurer = new Measurer();
+        measurer.mSnapshot = snapshot;
+        setSize(snapshot.getContainer());
+        assertNull(snapshot.solve(measurer, BasicMeasure.EXACTLY, 600,
+                BasicMeasure.UNSPECIFIED, 0, 0, 0));
+    }
+
+    @Test
+    public void changedChildren() {
+        ConstraintWidgetContainer root = createLayout("C");
+        LayoutSnapshot snapshot = LayoutSnapshot.create(root, 0);
+        setSize(snapshot.getContainer());
+        LayoutSnapshot.Frames frames = snapshot.solve(new Measurer(), BasicMeasure.EXACTLY, 600,
+                BasicMeasure.UNSPECIFIED, 0, 0, 0);
+        assertNotNull(frames);
+        root.remove(root.getChildren().get(0));
+        assertFalse(frames.applyTo(root));
+    }
+
+    /**
+     * Measures wrap content widgets to a size depending on their index and on a scale
+     */
+    static class ScaledMeasurer implements BasicMeasure.Measurer {
+        final int mScale;
+        // every Measure passed to this measurer
+        final HashSet<BasicMeasure.Measure> mMeasures = new HashSet<>();
+
+        ScaledMeasurer(int scale) {
+            mScale = scale;
+        }
+
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            int index = Integer.parseInt(widget.getDebugName().substring(1));
+            measure.measuredWidth = measure.horizontalBehavior
+                    == ConstraintWidget.DimensionBehaviour.FIXED
+                    ? measure.horizontalDimension : mScale * (index % 7 + 1);
+            measure.measuredHeight = measure.verticalBehavior
+                    == ConstraintWidget.DimensionBehaviour.FIXED
+                    ? measure.verticalDimension : mScale * (index % 5 + 1);
+            measure.measuredBaseline = measure.measuredHeight / 2;
+            measure.measuredHasBaseline = true;
+            mMeasures.add(measure);
+            // let other threads measure in between, as a slower measurer would
+            Thread.yield();
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    }
+
+    private static ConstraintWidgetContainer createDirectLayout() {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 1000, 1000);
+        root.setDebugName("root");
+        ConstraintWidget previous = root;
+        for (int i = 0; i < 60; i++) {
+            ConstraintWidget widget = new ConstraintWidget(10, 10);
+            widget.setDebugName("w" + i);
+            widget.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+            widget.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+            root.add(widget);
+            if (i % 2 == 1) {
+                // left dangling, measured by the last pass of Direct
+                widget.setHorizontalDimensionBehaviour(
+                        ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT);
+                continue;
+            }
+            if (previous == root) {
+                widget.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT, 4);
+                widget.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP, 4);
+            } else {
+                widget.connect(ConstraintAnchor.Type.LEFT, previous, ConstraintAnchor.Type.RIGHT, 2);
+                widget.connect(ConstraintAnchor.Type.TOP, previous, ConstraintAnchor.Type.BOTTOM, 1);
+            }
+            previous = widget;
+        }
+        root.updateHierarchy();
+        return root;
+    }
+
+    private static String solveDirect(ScaledMeasurer measurer) {
+        ConstraintWidgetContainer root = createDirectLayout();
+        LayoutSnapshot snapshot = LayoutSnapshot.create(root, measurer.mScale);
+        ConstraintWidgetContainer container = snapshot.getContainer();
+        container.setOptimizationLevel(Optimizer.OPTIMIZATION_STANDARD);
+        container.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        container.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+        LayoutSnapshot.Frames frames = snapshot.solve(measurer,
+                BasicMeasure.UNSPECIFIED, 0, BasicMeasure.UNSPECIFIED, 0, 0, 0);
+        assertNotNull(frames);
+        assertTrue(frames.applyTo(root));
+        return frames(root);
+    }
+
+    @Test
+    public void solveConcurrently() throws Exception {
+        final int threads = 4;
+        final int iterations = 50;
+        final String[] expected = new String[threads];
+        final ScaledMeasurer[] measurers = new ScaledMeasurer[threads];
+        for (int i = 0; i < threads; i++) {
+            expected[i] = solveDirect(new ScaledMeasurer(i + 1));
+            measurers[i] = new ScaledMeasurer(i + 1);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int index = i;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        start.await();
+                        for (int j = 0; j < iterations; j++) {
+                            String solved = solveDirect(measurers[index]);
+                            if (!solved.equals(expected[index])) {
+                                return solved;
+                            }
+                        }
+                        return expected[index];
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < threads; i++) {
+                assertEquals(expected[i], results.get(i).get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // the containers solved on different threads never share their measure state
+        for (int i = 0; i < threads; i++) {
+            for (int j = i + 1; j < threads; j++) {
+                HashSet<BasicMeasure.Measure> shared = new HashSet<>(measurers[i].mMeasures);
+                shared.retainAll(measurers[j].mMeasures);
+                assertTrue(shared.isEmpty());
+            }
+        }
+    }
+}
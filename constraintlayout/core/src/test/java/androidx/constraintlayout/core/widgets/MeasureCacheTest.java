@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core.widgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+import androidx.constraintlayout.core.widgets.analyzer.MeasureCache;
+
+import org.junit.Test;
+
+public class MeasureCacheTest {
+    private static final int WRAP = BasicMeasure.AT_MOST | 1000;
+    private static final int EXACT = BasicMeasure.EXACTLY | 300;
+    private static final int HEIGHT = BasicMeasure.UNSPECIFIED;
+
+    @Test
+    public void wrapThenExact() {
+        MeasureCache cache = new MeasureCache();
+        assertFalse(cache.hasResult());
+        assertFalse(cache.get(WRAP, HEIGHT));
+        cache.put(WRAP, HEIGHT, 420, 40, 30);
+        assertFalse(cache.get(EXACT, HEIGHT));
+        cache.put(EXACT, HEIGHT, 300, 80, 30);
+        assertFalse(cache.needsRemeasure());
+
+        // the child was last measured exactly, a hit on the wrap spec must be re-measured
+        assertTrue(cache.get(WRAP, HEIGHT));
+        assertEquals(420, cache.width);
+        assertEquals(40, cache.height);
+        assertEquals(30, cache.baseline);
+        assertTrue(cache.needsRemeasure());
+        assertEquals(WRAP, cache.getLastHorizontalSpec());
+
+        assertTrue(cache.get(EXACT, HEIGHT));
+        assertEquals(300, cache.width);
+        assertEquals(80, cache.height);
+        assertFalse(cache.needsRemeasure());
+    }
+
+    @Test
+    public void bounded() {
+        MeasureCache cache = new MeasureCache();
+        int entries = MeasureCache.SIZE + 2;
+        for (int i = 0; i < entries; i++) {
+            cache.put(BasicMeasure.EXACTLY | i, HEIGHT, i, i, -1);
+        }
+        assertEquals(MeasureCache.SIZE, cache.size());
+        assertFalse(cache.get(BasicMeasure.EXACTLY, HEIGHT));
+        assertFalse(cache.get(BasicMeasure.EXACTLY | 1, HEIGHT));
+        for (int i = 2; i < entries; i++) {
+            assertTrue(cache.get(BasicMeasure.EXACTLY | i, HEIGHT));
+            assertEquals(i, cache.width);
+        }
+        // measuring again with a cached spec updates that entry
+        cache.put(BasicMeasure.EXACTLY | 3, HEIGHT, 33, 33, -1);
+        assertEquals(MeasureCache.SIZE, cache.size());
+        assertTrue(cache.get(BasicMeasure.EXACTLY | 3, HEIGHT));
+        assertEquals(33, cache.width);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(cache.hasResult());
+        assertFalse(cache.get(BasicMeasure.EXACTLY | 3, HEIGHT));
+    }
+}